@@ -119,5 +119,53 @@ public enum ConfigurationKeys {
    /**
     * @see WapServerConfig#proxiedBasePath
     */
-   ProxiedBasePath
+   ProxiedBasePath,
+   /**
+    * @see WapServerConfig#enableGroupCommit
+    */
+   EnableGroupCommit,
+   /**
+    * @see WapServerConfig#groupCommitWindowInMs
+    */
+   GroupCommitWindowInMs,
+   /**
+    * @see WapServerConfig#groupCommitMaxOperations
+    */
+   GroupCommitMaxOperations,
+   /**
+    * @see WapServerConfig#enableObjectIndex
+    */
+   EnableObjectIndex,
+   /**
+    * @see WapServerConfig#renderedBodyCacheSizeInMb
+    */
+   RenderedBodyCacheSizeInMb,
+   /**
+    * @see WapServerConfig#pageRenderingParallelism
+    */
+   PageRenderingParallelism,
+   /**
+    * @see WapServerConfig#jsonLdPrettyPrinting
+    */
+   JsonLdPrettyPrinting,
+   /**
+    * @see WapServerConfig#jsonLdFormattingEngine
+    */
+   JsonLdFormattingEngine,
+   /**
+    * @see WapServerConfig#bulkImportChunkSize
+    */
+   BulkImportChunkSize,
+   /**
+    * @see WapServerConfig#jsonLdValidationEngine
+    */
+   JsonLdValidationEngine,
+   /**
+    * @see WapServerConfig#responseStreamingThreads
+    */
+   ResponseStreamingThreads,
+   /**
+    * @see WapServerConfig#responseStreamingTimeoutInMs
+    */
+   ResponseStreamingTimeoutInMs
 }
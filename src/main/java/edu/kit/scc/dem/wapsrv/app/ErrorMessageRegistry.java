@@ -61,6 +61,10 @@ public final class ErrorMessageRegistry {
     * Error message for invalid IRI being not a URI.
     */
    public static final String INTERNAL_IRI_NOT_A_URI = "Internal Server error, IRI not an URI";
+   /**
+    * Error message for a request body that cannot be read.
+    */
+   public static final String INTERNAL_REQUEST_BODY_NOT_READABLE = "Internal Server error, request body not readable";
    /**
     * Error message for missing IF MATCH header in DELETE request.
     */
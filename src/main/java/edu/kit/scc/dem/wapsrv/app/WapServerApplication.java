@@ -2,7 +2,12 @@ package edu.kit.scc.dem.wapsrv.app;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
 import org.springframework.beans.BeansException;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -12,8 +17,12 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
+import edu.kit.scc.dem.wapsrv.exceptions.WapException;
 import edu.kit.scc.dem.wapsrv.installer.WapServerInstaller;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
 import edu.kit.scc.dem.wapsrv.repository.WapObjectRepository;
+import edu.kit.scc.dem.wapsrv.repository.jena.JenaBulkLoader;
+import edu.kit.scc.dem.wapsrv.repository.jena.JenaRdfBackend;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -97,7 +106,15 @@ public class WapServerApplication implements ApplicationContextAware{
     boolean manualInstall = false;
     // We only intercept the --install argument and ignore the rest
     if(args != null){
-      for(String arg : args){
+      for(int n = 0; n < args.length; n++){
+        final String arg = args[n];
+        if("--bulk-load".equals(arg)){
+          // All following arguments are dump files
+          if(!performBulkLoad(Arrays.asList(args).subList(n + 1, args.length))){
+            System.exit(1); // Let scripts notice the failed load
+          }
+          return; // exit the application
+        }
         if("--install".equals(arg)){
           manualInstall = true;
           break;
@@ -153,6 +170,59 @@ public class WapServerApplication implements ApplicationContextAware{
     return (WapObjectRepository) getRunningApplicationContext().getBean(rdfBackendName);
   }
 
+  /**
+   * Loads dumps into the empty database of this installation without starting
+   * the server, see {@link JenaBulkLoader}. All files have to be N-Quads or all
+   * have to be NDJSON.
+   *
+   * @param files The dump files
+   * @return true if the dumps have been loaded
+   */
+  public static boolean performBulkLoad(List<String> files){
+    if(files.isEmpty()){
+      System.out.println("Usage : --bulk-load <dump file> [<dump file> ...]");
+      return false;
+    }
+    final boolean isNQuads = JenaBulkLoader.isNQuads(files.get(0));
+    for(String file : files){
+      if(JenaBulkLoader.isNQuads(file) != isNQuads){
+        System.out.println("All dump files have to be N-Quads or all have to be NDJSON");
+        return false;
+      }
+    }
+    createConfigIfNotExistent();
+    WapServerConfig.updateConfigFromOldVersions();
+    if(!WapServerConfig.checkConfig()){
+      return false;
+    }
+    try{
+      Properties props = new Properties();
+      try(FileInputStream inStream = new FileInputStream(WapServerConfig.propertiesFile)){
+        props.load(inStream);
+      }
+      // Spring is not started, the configuration is read like in the static checks
+      WapServerConfig config = new WapServerConfig();
+      config.updateConfig(props);
+      if(!"jena".equals(config.getRdfBackendImplementation())){
+        System.out.println("Bulk loading is only supported by the jena RDF backend");
+        return false;
+      }
+      JenaBulkLoader loader = new JenaBulkLoader(config.getDataBasePath(), config.getRootContainerIri());
+      if(isNQuads){
+        loader.loadNQuads(files);
+      } else{
+        JsonLdProfileRegistry profileRegistry = new JsonLdProfileRegistry();
+        profileRegistry.init(config);
+        loader.loadObjects(files, new JenaRdfBackend(), profileRegistry);
+      }
+    } catch(IOException | WapException ex){
+      System.out.println("Bulk load failed : " + ex.getMessage());
+      return false;
+    }
+    System.out.println("Bulk load finished, exitting");
+    return true;
+  }
+
   /**
    * Creates the default config file if non exists already.
    *
@@ -5,19 +5,25 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Properties;
 import java.util.Set;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
 import edu.kit.scc.dem.wapsrv.controller.WapPathMatcher;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdFormatter;
+import edu.kit.scc.dem.wapsrv.model.validators.NetworkntJsonLdValidator;
 import java.util.Arrays;
 
 /**
@@ -93,6 +99,25 @@ public class WapServerConfig extends WebMvcConfigurationSupport{
   private static final String RDF_BACKEND_IMPLEMENTATION_DEFAULT = "jena";
   private static final String CONTEXT_PATH_DEFAULT = "";
   private static final String PROXYBASEPATH_DEFAULT = "";
+  private static final boolean ENABLE_GROUP_COMMIT_DEFAULT = false;
+  private static final long GROUP_COMMIT_WINDOW_IN_MS_DEFAULT = 2;
+  private static final int GROUP_COMMIT_MAX_OPERATIONS_DEFAULT = 64;
+  private static final boolean ENABLE_OBJECT_INDEX_DEFAULT = true;
+  private static final int RENDERED_BODY_CACHE_SIZE_IN_MB_DEFAULT = 64;
+  private static final int PAGE_RENDERING_PARALLELISM_DEFAULT = 0;
+  private static final boolean JSON_LD_PRETTY_PRINTING_DEFAULT = true;
+  private static final String JSON_LD_FORMATTING_ENGINE_DEFAULT = "framing";
+  private static final int BULK_IMPORT_CHUNK_SIZE_DEFAULT = 1000;
+  private static final String JSON_LD_VALIDATION_ENGINE_DEFAULT = "json-schema-validator";
+  private static final int RESPONSE_STREAMING_THREADS_DEFAULT = 16;
+  private static final long RESPONSE_STREAMING_TIMEOUT_IN_MS_DEFAULT = 60 * 1000;
+  // The number of streamed responses that may wait per streaming thread, further ones are rejected
+  private static final int RESPONSE_STREAMING_QUEUE_PER_THREAD = 64;
+  // The values allowed for the settings choosing an engine, others are rejected
+  private static final Set<String> JSON_LD_FORMATTING_ENGINES
+          = Set.of(JSON_LD_FORMATTING_ENGINE_DEFAULT, JsonLdFormatter.GRAPH_ENGINE);
+  private static final Set<String> JSON_LD_VALIDATION_ENGINES
+          = Set.of(JSON_LD_VALIDATION_ENGINE_DEFAULT, NetworkntJsonLdValidator.ENGINE);
 
   /**
    * The single instance of the configuration
@@ -253,6 +278,80 @@ public class WapServerConfig extends WebMvcConfigurationSupport{
 
   @Value("${WapBaseUrl:" + PROXYBASEPATH_DEFAULT + "}")
   private String proxiedBasePath;
+  /**
+   * Enables or disables executing concurrent write transactions together in one
+   * database transaction
+   */
+  @Value("${EnableGroupCommit:" + ENABLE_GROUP_COMMIT_DEFAULT + "}")
+  private boolean enableGroupCommit;
+  /**
+   * The time in ms to wait for further writes to commit together with the first
+   * one
+   */
+  @Value("${GroupCommitWindowInMs:" + GROUP_COMMIT_WINDOW_IN_MS_DEFAULT + "}")
+  private long groupCommitWindowInMs;
+  /**
+   * The maximum number of writes committed together
+   */
+  @Value("${GroupCommitMaxOperations:" + GROUP_COMMIT_MAX_OPERATIONS_DEFAULT + "}")
+  private int groupCommitMaxOperations;
+  /**
+   * Enables or disables keeping the IRIs of existing and deleted objects in
+   * memory
+   */
+  @Value("${EnableObjectIndex:" + ENABLE_OBJECT_INDEX_DEFAULT + "}")
+  private boolean enableObjectIndex;
+  /**
+   * The maximum memory used to cache rendered annotations in MB, 0 disables
+   * the cache
+   */
+  @Value("${RenderedBodyCacheSizeInMb:" + RENDERED_BODY_CACHE_SIZE_IN_MB_DEFAULT + "}")
+  private int renderedBodyCacheSizeInMb;
+  /**
+   * The number of threads used to render the annotations of a page in
+   * parallel, 0 renders pages as a whole
+   */
+  @Value("${PageRenderingParallelism:" + PAGE_RENDERING_PARALLELISM_DEFAULT + "}")
+  private int pageRenderingParallelism;
+
+  /**
+   * Enables or disables indented JSON-LD output, compact output saves bytes
+   * for machine clients
+   */
+  @Value("${JsonLdPrettyPrinting:" + JSON_LD_PRETTY_PRINTING_DEFAULT + "}")
+  private boolean jsonLdPrettyPrinting;
+
+  /**
+   * The engine used to frame annotations in JSON-LD output. framing uses the
+   * JSON-LD processor on the serialized graph, graph frames the graph directly
+   */
+  @Value("${JsonLdFormattingEngine:" + JSON_LD_FORMATTING_ENGINE_DEFAULT + "}")
+  private String jsonLdFormattingEngine;
+
+  /**
+   * The number of annotations a bulk import stores in one transaction
+   */
+  @Value("${BulkImportChunkSize:" + BULK_IMPORT_CHUNK_SIZE_DEFAULT + "}")
+  private int bulkImportChunkSize;
+
+  /**
+   * The engine used to validate JSON-LD against the schemas. json-schema-validator
+   * uses the library of that name, networknt the networknt json-schema-validator
+   */
+  @Value("${JsonLdValidationEngine:" + JSON_LD_VALIDATION_ENGINE_DEFAULT + "}")
+  private String jsonLdValidationEngine;
+
+  /**
+   * The number of threads writing streamed response bodies, read on startup
+   */
+  @Value("${ResponseStreamingThreads:" + RESPONSE_STREAMING_THREADS_DEFAULT + "}")
+  private int responseStreamingThreads;
+
+  /**
+   * The time in ms a streamed response body may take, read on startup
+   */
+  @Value("${ResponseStreamingTimeoutInMs:" + RESPONSE_STREAMING_TIMEOUT_IN_MS_DEFAULT + "}")
+  private long responseStreamingTimeoutInMs;
 
   /**
    * The cors configuration to use
@@ -373,6 +472,18 @@ public class WapServerConfig extends WebMvcConfigurationSupport{
     props.put(ConfigurationKeys.FallbackValidation.toString(), FALLBACK_VALIDATION_DEFAULT + "");
     props.put(ConfigurationKeys.ContextPath.toString(), CONTEXT_PATH_DEFAULT);
     props.put(ConfigurationKeys.ProxiedBasePath.toString(), PROXYBASEPATH_DEFAULT);
+    props.put(ConfigurationKeys.EnableGroupCommit.toString(), ENABLE_GROUP_COMMIT_DEFAULT + "");
+    props.put(ConfigurationKeys.GroupCommitWindowInMs.toString(), GROUP_COMMIT_WINDOW_IN_MS_DEFAULT + "");
+    props.put(ConfigurationKeys.GroupCommitMaxOperations.toString(), GROUP_COMMIT_MAX_OPERATIONS_DEFAULT + "");
+    props.put(ConfigurationKeys.EnableObjectIndex.toString(), ENABLE_OBJECT_INDEX_DEFAULT + "");
+    props.put(ConfigurationKeys.RenderedBodyCacheSizeInMb.toString(), RENDERED_BODY_CACHE_SIZE_IN_MB_DEFAULT + "");
+    props.put(ConfigurationKeys.PageRenderingParallelism.toString(), PAGE_RENDERING_PARALLELISM_DEFAULT + "");
+    props.put(ConfigurationKeys.JsonLdPrettyPrinting.toString(), JSON_LD_PRETTY_PRINTING_DEFAULT + "");
+    props.put(ConfigurationKeys.JsonLdFormattingEngine.toString(), JSON_LD_FORMATTING_ENGINE_DEFAULT + "");
+    props.put(ConfigurationKeys.BulkImportChunkSize.toString(), BULK_IMPORT_CHUNK_SIZE_DEFAULT + "");
+    props.put(ConfigurationKeys.JsonLdValidationEngine.toString(), JSON_LD_VALIDATION_ENGINE_DEFAULT + "");
+    props.put(ConfigurationKeys.ResponseStreamingThreads.toString(), RESPONSE_STREAMING_THREADS_DEFAULT + "");
+    props.put(ConfigurationKeys.ResponseStreamingTimeoutInMs.toString(), RESPONSE_STREAMING_TIMEOUT_IN_MS_DEFAULT + "");
     if(ConfigurationKeys.values().length != props.size()){
       throw new RuntimeException("Default properties and the ConfigurationKeys enum not in sync");
     }
@@ -581,6 +692,12 @@ public class WapServerConfig extends WebMvcConfigurationSupport{
       if(!checkFolder(ConfigurationKeys.JsonLdValidator_SchemaFolder, props)){
         return false;
       }
+      if(!checkValue(ConfigurationKeys.JsonLdFormattingEngine, JSON_LD_FORMATTING_ENGINES, props)){
+        return false;
+      }
+      if(!checkValue(ConfigurationKeys.JsonLdValidationEngine, JSON_LD_VALIDATION_ENGINES, props)){
+        return false;
+      }
       int wapPort = Integer.parseInt(props.getProperty(ConfigurationKeys.WapPort.toString()));
       if(wapPort < 80 || wapPort > 65535){
         logger.error("Wap Port invalid (>=80 && <=65535) : " + wapPort);
@@ -652,6 +769,40 @@ public class WapServerConfig extends WebMvcConfigurationSupport{
     return exists;
   }
 
+  private static boolean checkValue(ConfigurationKeys key, Set<String> allowedValues, Properties props){
+    String value = props.getProperty(key.toString());
+    // A missing value is replaced by the default
+    if(value == null || isAllowedValue(value, allowedValues)){
+      return true;
+    }
+    LoggerFactory.getLogger(WapServerConfig.class)
+            .error("Invalid value " + key.toString() + "=" + value + ", allowed are " + allowedValues);
+    return false;
+  }
+
+  private static boolean isAllowedValue(String value, Set<String> allowedValues){
+    return value != null && allowedValues.contains(value.trim().toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Checks the value of a setting choosing one of several engines. Unknown
+   * values are rejected, a typo would silently select the default engine
+   * otherwise.
+   *
+   * @param key The configuration key
+   * @param value The configured value
+   * @param allowedValues The allowed values in lower case
+   * @return The value in lower case
+   * @throws IllegalArgumentException if the value is not allowed
+   */
+  private static String requireAllowedValue(ConfigurationKeys key, String value, Set<String> allowedValues){
+    if(!isAllowedValue(value, allowedValues)){
+      throw new IllegalArgumentException(
+              "Invalid value " + key.toString() + "=" + value + ", allowed are " + allowedValues);
+    }
+    return value.trim().toLowerCase(Locale.ROOT);
+  }
+
   /**
    * Returns the single instance of the application configuration. If used in
    * tests or situations where Spring autowiring is not in use the configuration
@@ -690,8 +841,17 @@ public class WapServerConfig extends WebMvcConfigurationSupport{
    * Annotations and the ConfigurationLeys enum)
    *
    * @param props The properties to extract the updated configuration from
+   * @throws IllegalArgumentException if an engine is unknown, nothing is
+   * updated then
    */
   public void updateConfig(Properties props){
+    // Checked first, invalid values must not leave a partially updated configuration
+    final String formattingEngine = requireAllowedValue(ConfigurationKeys.JsonLdFormattingEngine,
+            getProperty(props, ConfigurationKeys.JsonLdFormattingEngine, JSON_LD_FORMATTING_ENGINE_DEFAULT),
+            JSON_LD_FORMATTING_ENGINES);
+    final String validationEngine = requireAllowedValue(ConfigurationKeys.JsonLdValidationEngine,
+            getProperty(props, ConfigurationKeys.JsonLdValidationEngine, JSON_LD_VALIDATION_ENGINE_DEFAULT),
+            JSON_LD_VALIDATION_ENGINES);
     enableHttps = getProperty(props, ConfigurationKeys.EnableHttps, ENABLE_HTTPS_DEFAULT);
     hostname = getProperty(props, ConfigurationKeys.Hostname, HOSTNAME_DEFAULT);
     wapIp = getProperty(props, ConfigurationKeys.WapIp, WAP_IP_DEFAULT);
@@ -728,6 +888,25 @@ public class WapServerConfig extends WebMvcConfigurationSupport{
     fallbackValidation = getProperty(props, ConfigurationKeys.FallbackValidation, FALLBACK_VALIDATION_DEFAULT);
     contextPath = getProperty(props, ConfigurationKeys.ContextPath, CONTEXT_PATH_DEFAULT);
     proxiedBasePath = getProperty(props, ConfigurationKeys.ProxiedBasePath, PROXYBASEPATH_DEFAULT);
+    enableGroupCommit = getProperty(props, ConfigurationKeys.EnableGroupCommit, ENABLE_GROUP_COMMIT_DEFAULT);
+    groupCommitWindowInMs
+            = getProperty(props, ConfigurationKeys.GroupCommitWindowInMs, GROUP_COMMIT_WINDOW_IN_MS_DEFAULT);
+    groupCommitMaxOperations
+            = getProperty(props, ConfigurationKeys.GroupCommitMaxOperations, GROUP_COMMIT_MAX_OPERATIONS_DEFAULT);
+    enableObjectIndex = getProperty(props, ConfigurationKeys.EnableObjectIndex, ENABLE_OBJECT_INDEX_DEFAULT);
+    renderedBodyCacheSizeInMb
+            = getProperty(props, ConfigurationKeys.RenderedBodyCacheSizeInMb, RENDERED_BODY_CACHE_SIZE_IN_MB_DEFAULT);
+    pageRenderingParallelism
+            = getProperty(props, ConfigurationKeys.PageRenderingParallelism, PAGE_RENDERING_PARALLELISM_DEFAULT);
+    jsonLdPrettyPrinting
+            = getProperty(props, ConfigurationKeys.JsonLdPrettyPrinting, JSON_LD_PRETTY_PRINTING_DEFAULT);
+    jsonLdFormattingEngine = formattingEngine;
+    bulkImportChunkSize = getProperty(props, ConfigurationKeys.BulkImportChunkSize, BULK_IMPORT_CHUNK_SIZE_DEFAULT);
+    jsonLdValidationEngine = validationEngine;
+    responseStreamingThreads
+            = getProperty(props, ConfigurationKeys.ResponseStreamingThreads, RESPONSE_STREAMING_THREADS_DEFAULT);
+    responseStreamingTimeoutInMs
+            = getProperty(props, ConfigurationKeys.ResponseStreamingTimeoutInMs, RESPONSE_STREAMING_TIMEOUT_IN_MS_DEFAULT);
   }
 
   private String getProperty(Properties newProps, ConfigurationKeys key, String defaultValue){
@@ -948,6 +1127,10 @@ public class WapServerConfig extends WebMvcConfigurationSupport{
 
   @PostConstruct
   private void postConstruct(){
+    jsonLdFormattingEngine = requireAllowedValue(ConfigurationKeys.JsonLdFormattingEngine, jsonLdFormattingEngine,
+            JSON_LD_FORMATTING_ENGINES);
+    jsonLdValidationEngine = requireAllowedValue(ConfigurationKeys.JsonLdValidationEngine, jsonLdValidationEngine,
+            JSON_LD_VALIDATION_ENGINES);
     corsConfig = new CorsConfiguration(getCorsAllowedOriginsPath());
   }
 
@@ -1017,6 +1200,30 @@ public class WapServerConfig extends WebMvcConfigurationSupport{
     configurer.setPathMatcher(pathMatcher).setUseTrailingSlashMatch(false).setUseSuffixPatternMatch(true);
   }
 
+  /**
+   * Creates the executor writing streamed response bodies. Its threads and queue are bounded, a request exceeding
+   * both is rejected instead of starting yet another thread. Spring shuts it down with the application context.
+   *
+   * @return The executor writing streamed response bodies
+   */
+  @Bean
+  public ThreadPoolTaskExecutor responseStreamingExecutor(){
+    final int threads = Math.max(1, responseStreamingThreads);
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(threads * RESPONSE_STREAMING_QUEUE_PER_THREAD);
+    executor.setThreadNamePrefix("wap-streaming-");
+    return executor;
+  }
+
+  @Override
+  public void configureAsyncSupport(AsyncSupportConfigurer configurer){
+    // Without this, streamed bodies would be written by a SimpleAsyncTaskExecutor starting one unbounded thread
+    // per request, with the servlet container's timeout
+    configurer.setTaskExecutor(responseStreamingExecutor()).setDefaultTimeout(responseStreamingTimeoutInMs);
+  }
+
   /**
    * Gets the folder where JSON-LD Frames are stored
    *
@@ -1035,6 +1242,120 @@ public class WapServerConfig extends WebMvcConfigurationSupport{
     return pageSize;
   }
 
+  /**
+   * Checks whether concurrent write transactions are committed together
+   *
+   * @return true if group commit is enabled
+   */
+  public boolean isGroupCommitEnabled(){
+    return enableGroupCommit;
+  }
+
+  /**
+   * Gets the time to wait for further writes to commit together with the first
+   * one
+   *
+   * @return The group commit window in ms
+   */
+  public long getGroupCommitWindowInMs(){
+    return groupCommitWindowInMs;
+  }
+
+  /**
+   * Gets the maximum number of writes committed together
+   *
+   * @return The maximum number of writes in one group commit
+   */
+  public int getGroupCommitMaxOperations(){
+    return groupCommitMaxOperations;
+  }
+
+  /**
+   * Checks whether existence and deletion of objects is looked up in memory
+   * instead of the database
+   *
+   * @return true if the object index is enabled
+   */
+  public boolean isObjectIndexEnabled(){
+    return enableObjectIndex;
+  }
+
+  /**
+   * Gets the maximum memory used to cache rendered annotations
+   *
+   * @return The cache size in MB, 0 if the cache is disabled
+   */
+  public int getRenderedBodyCacheSizeInMb(){
+    return renderedBodyCacheSizeInMb;
+  }
+
+  /**
+   * Gets the number of threads used to render the annotations of pages with
+   * embedded annotations in parallel
+   *
+   * @return The number of threads, 0 if pages are rendered as a whole
+   */
+  public int getPageRenderingParallelism(){
+    return pageRenderingParallelism;
+  }
+
+  /**
+   * Checks whether JSON-LD responses are indented for human readers
+   *
+   * @return true if JSON-LD is pretty printed, false for compact output
+   */
+  public boolean isJsonLdPrettyPrinting(){
+    return jsonLdPrettyPrinting;
+  }
+
+  /**
+   * Gets the engine used to frame annotations in JSON-LD output
+   *
+   * @return framing for the JSON-LD processor, graph to frame the graph directly
+   */
+  public String getJsonLdFormattingEngine(){
+    return jsonLdFormattingEngine;
+  }
+
+  /**
+   * Gets the number of annotations a bulk import stores in one transaction
+   *
+   * @return The chunk size of bulk imports
+   */
+  public int getBulkImportChunkSize(){
+    return bulkImportChunkSize;
+  }
+
+  /**
+   * Gets the engine used to validate JSON-LD against the schemas
+   *
+   * @return json-schema-validator for the default library, networknt for the
+   * networknt json-schema-validator
+   */
+  public String getJsonLdValidationEngine(){
+    return jsonLdValidationEngine;
+  }
+
+  /**
+   * Gets the number of threads that write the bodies of pages and containers into the response.
+   * Requests wait in a bounded queue while all of them are busy. The value is read on startup.
+   *
+   * @return The number of threads writing streamed response bodies
+   */
+  public int getResponseStreamingThreads(){
+    return responseStreamingThreads;
+  }
+
+  /**
+   * Gets the time in ms writing the body of a page or container into the response may take before the
+   * request is timed out. The value is read on startup.
+   *
+   * @return The timeout of streamed response bodies in ms
+   */
+  public long getResponseStreamingTimeoutInMs(){
+    return responseStreamingTimeoutInMs;
+  }
+
   /**
    * Checks whether posting of multiple annotations in one request is allowed or
    * not
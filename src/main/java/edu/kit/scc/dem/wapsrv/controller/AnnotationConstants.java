@@ -33,6 +33,14 @@ public final class AnnotationConstants {
     * The HTTP status code for successful DELETE requests of annotations
     */
    public static final int DELETE_ANNOTATION_SUCCESS_CODE = 204;
+   /**
+    * The HTTP status code for bulk imports of annotations, also used if single lines failed
+    */
+   public static final int IMPORT_ANNOTATIONS_SUCCESS_CODE = 200;
+   /**
+    * The content type of bulk imports, one JSON-LD annotation per line
+    */
+   public static final String IMPORT_ANNOTATIONS_CONTENT_TYPE = "application/x-ndjson";
    /**
     * Set of allowed HTTP methods on annotations
     */
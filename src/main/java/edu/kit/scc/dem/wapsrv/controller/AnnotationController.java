@@ -1,7 +1,15 @@
 package edu.kit.scc.dem.wapsrv.controller;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +22,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import com.github.jsonldjava.utils.JsonUtils;
 import edu.kit.scc.dem.wapsrv.app.ErrorMessageRegistry;
 import edu.kit.scc.dem.wapsrv.app.EtagFactory;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
@@ -31,6 +40,8 @@ import edu.kit.scc.dem.wapsrv.model.formats.Formatter;
 import edu.kit.scc.dem.wapsrv.model.formats.JsonLdFormatter;
 import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
 import edu.kit.scc.dem.wapsrv.service.AnnotationService;
+import edu.kit.scc.dem.wapsrv.service.BulkImportResult;
+import edu.kit.scc.dem.wapsrv.service.RenderedBody;
 
 /**
  * The WAP controller used for requests to annotations
@@ -92,7 +103,21 @@ public class AnnotationController extends WapController {
             = getContentNegotiator(request.getHeader("Accept"), Type.ANNOTATION, profileRegistry, formatRegistry);
     final Formatter formatter = contentNegotiator.getFormatter();
     final String annotationIri = extractIri(request);
-    final Annotation annotation = annotationService.getAnnotation(annotationIri);
+    final boolean isHeadRequest = isHeadRequest(httpMethod);
+    // GET may be answered with a body rendered before, OPTIONS only needs to know the annotation exists.
+    // For HEAD and conditional requests only the ETag is looked up first, the annotation is not read if the
+    // client has it or no body is sent anyway.
+    RenderedBody rendered = null;
+    String etag = null;
+    if(isOptionsRequest){
+      annotationService.getAnnotation(annotationIri);
+    } else if(isHeadRequest || hasIfNoneMatch(headers)){
+      etag = annotationService.getEtag(annotationIri);
+    }
+    final String currentEtag = quoteEtag(etag);
+    if(!isOptionsRequest && !isHeadRequest && !isNotModified(headers, currentEtag)){
+      rendered = annotationService.getRenderedAnnotation(annotationIri, formatter);
+    }
     // If something went wrong fetching the annotation, the code here is never reached, an Exception has
     // been thrown
     // Create Headers for the response
@@ -108,16 +133,27 @@ public class AnnotationController extends WapController {
       // No body ==> no ContentType header
       return new ResponseEntity<>(responseHeaders,
               HttpStatus.valueOf(AnnotationConstants.GET_ANNOTATION_SUCCESS_CODE));
+    } else if(isNotModified(headers, currentEtag)){
+      // The client holds the current annotation, no body and therefore no ContentType header
+      responseHeaders.setETag(currentEtag);
+      return new ResponseEntity<>(responseHeaders, HttpStatus.NOT_MODIFIED);
+    } else if(isHeadRequest){
+      // HEAD gets the headers of GET without rendering the body. The length is only known if the annotation
+      // has been rendered before, otherwise Content-Length is omitted.
+      if(currentEtag != null){
+        responseHeaders.setETag(currentEtag);
+      }
+      responseHeaders.set(HttpHeaders.CONTENT_TYPE, formatter.getContentType());
+      final String cachedBody = annotationService.getCachedRenderedAnnotation(annotationIri, etag, formatter);
+      if(cachedBody != null){
+        responseHeaders.setContentLength(cachedBody.getBytes(StandardCharsets.UTF_8).length);
+      }
+      return new ResponseEntity<>(responseHeaders,
+              HttpStatus.valueOf(AnnotationConstants.GET_ANNOTATION_SUCCESS_CODE));
     } else{
-      // determine these values only when needed, this speeds up OPTIONS
-      // HEAD request do need them too (for correct content length) and
-      // by spec as they should create the same answer as get without the body
-      final String etag = annotation.getEtagQuoted();
-      responseHeaders.setETag(etag);
+      responseHeaders.setETag(rendered.getEtagQuoted());
       responseHeaders.set(HttpHeaders.CONTENT_TYPE, formatter.getContentType());
-      final String responseBody = formatter.format(annotation);
-      // Attention : spring(or jetty) does not add the body to head requests automatically
-      // but they need it to calculate corrects length. Therefore add it (and ignore in tests)
+      final String responseBody = rendered.getBody();
       return new ResponseEntity<>(responseBody, responseHeaders,
               HttpStatus.valueOf(AnnotationConstants.GET_ANNOTATION_SUCCESS_CODE));
     }
@@ -234,6 +270,57 @@ public class AnnotationController extends WapController {
             HttpStatus.valueOf(AnnotationConstants.POST_ANNOTATION_SUCCESS_CODE));
   }
 
+  /**
+   * This method implements the endpoint for bulk imports of annotations to
+   * containers. The body holds one JSON-LD annotation per line, lines that
+   * cannot be imported are listed in the response and do not stop the import.
+   *
+   * @param request The request the client sent
+   * @param headers The headers of the request
+   * @return A response object to sent to the client
+   * @throws WapException in case any error occurs
+   */
+  @RequestMapping(value = WapPathMatcher.CONTAINER_AND_PAGE_PATTERN, method = RequestMethod.POST,
+          consumes = AnnotationConstants.IMPORT_ANNOTATIONS_CONTENT_TYPE)
+  public ResponseEntity<?> importAnnotations(HttpServletRequest request, @RequestHeader HttpHeaders headers)
+          throws WapException{
+    logger.info("POST Annotation import");
+    // We may get requests that have params ==> return error
+    if(!request.getParameterMap().isEmpty()){
+      throw new IllegalHttpParameterException(ErrorMessageRegistry.ANNOTATION_NO_PARAMETERS_ALLOWED);
+    }
+    final String containerIri = extractIri(request);
+    final BulkImportResult result;
+    // The body is read line by line, it is never held in memory as a whole
+    try(BufferedReader lines
+            = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))){
+      result = annotationService.importAnnotations(containerIri, lines);
+    } catch(IOException e){
+      throw new InternalServerException(ErrorMessageRegistry.INTERNAL_REQUEST_BODY_NOT_READABLE);
+    }
+    final List<Object> errors = new ArrayList<>();
+    for(BulkImportResult.LineError error : result.getErrors()){
+      final Map<String, Object> lineError = new LinkedHashMap<>();
+      lineError.put("line", error.getLine());
+      lineError.put("message", error.getMessage());
+      errors.add(lineError);
+    }
+    final Map<String, Object> report = new LinkedHashMap<>();
+    report.put("imported", result.getImported());
+    report.put("failed", errors.size());
+    report.put("errors", errors);
+    final String responseBody;
+    try{
+      responseBody = JsonUtils.toPrettyString(report);
+    } catch(IOException e){
+      throw new InternalServerException(e.getMessage());
+    }
+    HttpHeaders responseHeaders = new HttpHeaders();
+    responseHeaders.set(HttpHeaders.CONTENT_TYPE, "application/json");
+    return new ResponseEntity<>(responseBody, responseHeaders,
+            HttpStatus.valueOf(AnnotationConstants.IMPORT_ANNOTATIONS_SUCCESS_CODE));
+  }
+
   /**
    * This method implements the endpoint for HTTP PUT requests of annotations
    *
@@ -64,4 +64,15 @@ public abstract class BasicController {
    public static boolean isOptionsRequest(String httpMethod) {
       return HttpMethod.valueOf(httpMethod) == HttpMethod.OPTIONS;
    }
+
+   /**
+    * Determine whether a given HTTP method as a String corresponds to the HTTP HEAD method
+    * 
+    * @param  httpMethod
+    *                    The string representation of the HTTP method
+    * @return            true if HEAD, false otherwise
+    */
+   public static boolean isHeadRequest(String httpMethod) {
+      return HttpMethod.valueOf(httpMethod) == HttpMethod.HEAD;
+   }
 }
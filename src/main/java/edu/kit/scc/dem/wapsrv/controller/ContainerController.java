@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import edu.kit.scc.dem.wapsrv.app.ErrorMessageRegistry;
 import edu.kit.scc.dem.wapsrv.app.EtagFactory;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
@@ -155,11 +156,33 @@ public class ContainerController extends WapController {
             = getContentNegotiator(headers.getFirst("Accept"), Type.CONTAINER, profileRegistry, formatRegistry);
       final Formatter formatter = contentNegotiator.getFormatter();
       final String iri = extractIri(request);
-      Container container = containerService.getContainer(iri, preferences);
       HttpHeaders responseHeaders = new HttpHeaders();
       responseHeaders.add("Link", ContainerConstants.LINK_TYPE);
       responseHeaders.add("Link", ContainerConstants.LINK_ANNOTATION_PROTOCOL);
       responseHeaders.setVary(ContainerConstants.VARY_LIST);
+      final boolean isHeadRequest = isHeadRequest(httpMethod);
+      if (!isOptionsRequest && (isHeadRequest || hasIfNoneMatch(headers))) {
+         // Only the ETag is looked up, the container is neither read nor formatted if the client holds it or no
+         // body is sent anyway
+         final String currentEtag = quoteEtag(containerService.getEtag(iri));
+         final boolean isNotModified = isNotModified(headers, currentEtag);
+         if (isNotModified || isHeadRequest) {
+            responseHeaders.set("Content-Location", iri);
+            responseHeaders.setAllow(
+                  isRootContainer ? ContainerConstants.ROOT_ALLOWED_METHODS : ContainerConstants.ALLOWED_METHODS);
+            if (currentEtag != null) {
+               responseHeaders.setETag(currentEtag);
+            }
+            if (isNotModified) {
+               return new ResponseEntity<>(responseHeaders, HttpStatus.NOT_MODIFIED);
+            }
+            // HEAD gets the headers of GET without rendering the body, Content-Length is therefore omitted
+            responseHeaders.set(HttpHeaders.CONTENT_TYPE, formatter.getContentType());
+            return new ResponseEntity<>(responseHeaders,
+                  HttpStatus.valueOf(ContainerConstants.GET_CONTAINER_SUCCESS_CODE));
+         }
+      }
+      final Container container = containerService.getContainer(iri, preferences);
       // 4.2 end of section : if not redirecting client, the server MUST include Content-Location header
       String containerIri = container.getIriString();
       responseHeaders.set("Content-Location", containerIri);
@@ -172,12 +195,8 @@ public class ContainerController extends WapController {
       } else {
          responseHeaders.setETag(container.getEtagQuoted());
          responseHeaders.set(HttpHeaders.CONTENT_TYPE, formatter.getContentType());
-         String responseBody = "";
-         try{
-         responseBody = formatter.format(container);
-         }catch(Exception e){
-             e.printStackTrace();
-         }
+         // The container is written straight to the response instead of being built as a String first
+         final StreamingResponseBody responseBody = new FormattedResponseBody(formatter, container);
          return new ResponseEntity<>(responseBody, responseHeaders,
                HttpStatus.valueOf(ContainerConstants.GET_CONTAINER_SUCCESS_CODE));
       }
@@ -0,0 +1,92 @@
+package edu.kit.scc.dem.wapsrv.controller;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import edu.kit.scc.dem.wapsrv.model.FormattableObject;
+import edu.kit.scc.dem.wapsrv.model.formats.Formatter;
+
+/**
+ * A response body that formats an object straight into the response stream instead of building it as a String first.
+ * <p>
+ * As long as nothing has been written, an error while formatting is answered like on any other request. Once the
+ * status and the first part of the body have been sent, that is no longer possible. The error is then thrown as an
+ * IOException, which the WAP exception handler leaves to the servlet container. The container closes the connection
+ * instead of completing the response, so that clients do not take the truncated body for a complete one.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+final class FormattedResponseBody implements StreamingResponseBody {
+   /**
+    * The formatter to use
+    */
+   private final Formatter formatter;
+   /**
+    * The object to format
+    */
+   private final FormattableObject object;
+
+   /**
+    * Creates a new response body
+    *
+    * @param formatter
+    *                  The formatter to use
+    * @param object
+    *                  The object to format
+    */
+   FormattedResponseBody(Formatter formatter, FormattableObject object) {
+      this.formatter = formatter;
+      this.object = object;
+   }
+
+   @Override
+   public void writeTo(OutputStream outputStream) throws IOException {
+      final WriteTrackingOutputStream out = new WriteTrackingOutputStream(outputStream);
+      try {
+         formatter.format(object, out);
+      } catch (RuntimeException e) {
+         if (!out.written) {
+            throw e;
+         }
+         throw new IOException("Formatting failed after the response body has been started", e);
+      }
+   }
+
+   /**
+    * An output stream that records whether anything has been written to it
+    */
+   private static final class WriteTrackingOutputStream extends FilterOutputStream {
+      /**
+       * Whether anything has been written
+       */
+      private boolean written;
+
+      /**
+       * Creates a new stream writing to the given one
+       *
+       * @param out
+       *            The stream to write to
+       */
+      private WriteTrackingOutputStream(OutputStream out) {
+         super(out);
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+         written = true;
+         out.write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+         written |= len > 0;
+         out.write(b, off, len);
+      }
+   }
+}
@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import edu.kit.scc.dem.wapsrv.app.ErrorMessageRegistry;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
 import edu.kit.scc.dem.wapsrv.exceptions.IllegalHttpParameterException;
@@ -100,30 +101,69 @@ public class PageController extends WapController {
       final Formatter formatter = contentNegotiator.getFormatter();
       final String containerIri = extractIri(request);
       final int containerPreference = iris;
-      final Page page = containerService.getPage(containerIri, containerPreference, pageNr);
-      // If something went wrong fetching the page, the code here is never reached, an
-      // Exception has been thrown
-      // Create Headers for the response
       final HttpHeaders responseHeaders = new HttpHeaders();
       responseHeaders.setAllow(PageConstants.ALLOWED_METHODS);
       responseHeaders.setVary(PageConstants.VARY_LIST);
+      // The container ETag changes with every change of its annotations and is read before the page, so the page
+      // is never older than its ETag
+      String pageEtag = null;
+      if (!isOptionsRequest) {
+         pageEtag = createPageEtag(containerService.getEtag(containerIri), containerPreference, pageNr);
+         if (isNotModified(headers, pageEtag)) {
+            // The client holds the current page, it is neither read nor formatted
+            responseHeaders.setETag(pageEtag);
+            return new ResponseEntity<>(responseHeaders, HttpStatus.NOT_MODIFIED);
+         }
+         if (isHeadRequest(httpMethod)) {
+            // HEAD gets the headers of GET without reading and rendering the page, Content-Length is therefore
+            // omitted. Only the existence of the page is checked.
+            containerService.checkPageExists(containerIri, pageNr);
+            if (pageEtag != null) {
+               responseHeaders.setETag(pageEtag);
+            }
+            responseHeaders.set(HttpHeaders.CONTENT_TYPE, formatter.getContentType());
+            return new ResponseEntity<>(responseHeaders, HttpStatus.valueOf(PageConstants.GET_PAGE_SUCCESS_CODE));
+         }
+      }
+      final Page page = containerService.getPage(containerIri, containerPreference, pageNr);
+      // If something went wrong fetching the page, the code here is never reached, an
+      // Exception has been thrown
       if (isOptionsRequest) {
          // According to protocol, ETag is not used in OPTIONS Requests
          // No body ==> no ContentType header
          return new ResponseEntity<>(responseHeaders, HttpStatus.valueOf(PageConstants.GET_PAGE_SUCCESS_CODE));
       } else {
-         // determine these values only when needed, this speeds up OPTIONS
-         // HEAD request do need them too (for correct content length) and
-         // by spec as they should create the same answer as get without the body
+         // Only GET is left here, HEAD has been answered without the body above
+         if (pageEtag != null) {
+            responseHeaders.setETag(pageEtag);
+         }
          responseHeaders.set(HttpHeaders.CONTENT_TYPE, formatter.getContentType());
-         final String responseBody = formatter.format(page);
-         // Attention : spring(or jetty) does not add the body to head requests automatically
-         // but they need it to calculate corrects length. Therefore add it (and ignore in tests)
+         // The page is written straight to the response instead of being built as a String first
+         final StreamingResponseBody responseBody = new FormattedResponseBody(formatter, page);
          return new ResponseEntity<>(responseBody, responseHeaders,
                HttpStatus.valueOf(PageConstants.GET_PAGE_SUCCESS_CODE));
       }
    }
 
+   /**
+    * Creates the weak ETag of a page. Pages have no ETag of their own, it is derived from the ETag of the container,
+    * the preference and the page number.
+    * 
+    * @param  containerEtag
+    *                       The ETag of the container without quotes, may be null
+    * @param  iris
+    *                       The preference the page is requested with
+    * @param  pageNr
+    *                       The number of the page
+    * @return               The quoted weak ETag, null if the container has no ETag
+    */
+   private String createPageEtag(String containerEtag, int iris, int pageNr) {
+      if (containerEtag == null) {
+         return null;
+      }
+      return "W/" + quoteEtag(containerEtag + "-" + iris + "-" + pageNr);
+   }
+
    /**
     * This method implements the endpoint for HTTP GET requests to pages
     * 
@@ -1,5 +1,7 @@
 package edu.kit.scc.dem.wapsrv.controller;
 
+import java.util.List;
+import org.springframework.http.HttpHeaders;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
 import edu.kit.scc.dem.wapsrv.exceptions.FormatException;
 import edu.kit.scc.dem.wapsrv.exceptions.FormatNotAvailableException;
@@ -52,6 +54,57 @@ public abstract class WapController extends BasicController {
       return quotedString.substring(1, quotedString.length() - 1);
    }
 
+   /**
+    * Checks whether the client already holds the representation with the given ETag, as stated in its If-None-Match
+    * header. ETags are compared weakly as required for If-None-Match, a W/ prefix is ignored on both sides.
+    * 
+    * @param  headers
+    *                     The headers of the request
+    * @param  quotedEtag
+    *                     The quoted (possibly weak) ETag of the current representation, may be null
+    * @return             true if the representation has not been modified and 304 may be returned
+    */
+   protected boolean isNotModified(HttpHeaders headers, String quotedEtag) {
+      if (quotedEtag == null || !hasIfNoneMatch(headers)) {
+         return false;
+      }
+      List<String> ifNoneMatch = headers.getIfNoneMatch();
+      String opaqueEtag = stripWeakPrefix(quotedEtag);
+      for (String etag : ifNoneMatch) {
+         if ("*".equals(etag.trim()) || opaqueEtag.equals(stripWeakPrefix(etag.trim()))) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Checks whether the request contains an If-None-Match header. Only then looking up the current ETag before
+    * building the response is worthwhile.
+    * 
+    * @param  headers
+    *                 The headers of the request, may be null
+    * @return         true if the request is conditional
+    */
+   protected boolean hasIfNoneMatch(HttpHeaders headers) {
+      return headers != null && headers.containsKey(HttpHeaders.IF_NONE_MATCH);
+   }
+
+   /**
+    * Puts the given ETag in quotes, as used in HTTP headers
+    * 
+    * @param  etag
+    *              The ETag without quotes, may be null
+    * @return      The quoted ETag, null if no ETag given
+    */
+   protected String quoteEtag(String etag) {
+      return etag == null ? null : "\"" + etag + "\"";
+   }
+
+   private static String stripWeakPrefix(String etag) {
+      return etag.startsWith("W/") ? etag.substring(2) : etag;
+   }
+
    /**
     * Determines the format provided by the client in the body of the request.<br>
     * An exception is thrown if format is invalid or not usable in PUT/POST requests.
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.scc.dem.wapsrv.dao;
+
+import edu.kit.scc.dem.wapsrv.model.ext.SequenceCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * DAO interface used by Spring Data in order to provide database access to the
+ * element counters of sequences. The counter of a sequence is identified by the
+ * sequenceIri.
+ *
+ * @author jejkal
+ */
+public interface ISequenceCounterDao extends JpaRepository<SequenceCounter, String>{
+
+  /**
+   * Add a delta to the counter of a sequence in the database without loading
+   * it.
+   *
+   * @param sequenceIri The IRI of the sequence.
+   * @param delta The value to add, negative to decrement.
+   *
+   * @return The number of updated counters, 0 if the sequence has no counter
+   * yet.
+   */
+  @Modifying
+  @Transactional
+  @Query("update SequenceCounter c set c.elementCount = c.elementCount + :delta where c.sequenceIri = :sequenceIri")
+  int addToElementCount(@Param("sequenceIri") String sequenceIri, @Param("delta") long delta);
+}
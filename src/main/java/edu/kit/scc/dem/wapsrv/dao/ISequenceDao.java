@@ -18,9 +18,14 @@ package edu.kit.scc.dem.wapsrv.dao;
 import edu.kit.scc.dem.wapsrv.model.ext.SequenceResource;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * DAO interface used by Spring Data in order to provide database access to
@@ -55,6 +60,58 @@ public interface ISequenceDao extends JpaRepository<SequenceResource, Long>{
    */
   Page<SequenceResource> findBySequenceIriEquals(String sequenceIri, Pageable pgbl);
 
+  /**
+   * Find the sequence resources of one sequence identified by sequenceIri that
+   * follow the sequence resource with the provided id, in the order they have
+   * been added. Seeking by id (keyset pagination) costs the same for every
+   * position in the sequence, unlike an offset.
+   *
+   * @param sequenceIri The IRI of the sequence.
+   * @param id The id to continue after, 0 to start at the beginning.
+   * @param limit The maximum number of sequence resources.
+   *
+   * @return A list of max. limit sequence resources ordered by id.
+   */
+  List<SequenceResource> findBySequenceIriEqualsAndIdGreaterThanOrderByIdAsc(String sequenceIri, Long id, Limit limit);
+
+  /**
+   * Find the ids of the sequence resources of one sequence identified by
+   * sequenceIri that follow the sequence resource with the provided id. Only
+   * the ids are read, which is used to skip positions from a known id on.
+   *
+   * @param sequenceIri The IRI of the sequence.
+   * @param id The id to continue after, 0 to start at the beginning.
+   * @param limit The maximum number of ids.
+   *
+   * @return A list of max. limit ids in ascending order.
+   */
+  @Query("select r.id from SequenceResource r where r.sequenceIri = :sequenceIri and r.id > :id order by r.id asc")
+  List<Long> findIdsAfter(@Param("sequenceIri") String sequenceIri, @Param("id") Long id, Limit limit);
+
+  /**
+   * Count the sequence resources belonging to one sequence identified by
+   * sequenceIri. The counting is done by the database, no sequence resource is
+   * loaded.
+   *
+   * @param sequenceIri The IRI of the sequence.
+   *
+   * @return The number of sequence resources.
+   */
+  long countBySequenceIriEquals(String sequenceIri);
+
+  /**
+   * Delete all sequence resources belonging to one sequence identified by
+   * sequenceIri with a single statement, without loading them.
+   *
+   * @param sequenceIri The IRI of the sequence.
+   *
+   * @return The number of deleted sequence resources.
+   */
+  @Modifying
+  @Transactional
+  @Query("delete from SequenceResource r where r.sequenceIri = :sequenceIri")
+  int deleteAllBySequenceIri(@Param("sequenceIri") String sequenceIri);
+
   /**
    * Find a single sequence information associated with the provided
    * annotationIri.
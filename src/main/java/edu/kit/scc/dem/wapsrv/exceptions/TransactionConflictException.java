@@ -0,0 +1,30 @@
+package edu.kit.scc.dem.wapsrv.exceptions;
+
+/**
+ * This exception is used whenever a transaction could not be promoted to a write transaction, because another write
+ * transaction committed after it began. The repository repeats such transactions as write transactions, so the
+ * exception should not reach the client.
+ * 
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public class TransactionConflictException extends RepositoryException {
+   /**
+    * The serial version UID for java serialization
+    */
+   private static final long serialVersionUID = 1L;
+
+   /**
+    * Creates a new TransactionConflictException with a given message
+    * 
+    * @param message
+    *                The message
+    */
+   public TransactionConflictException(String message) {
+      super(message);
+   }
+}
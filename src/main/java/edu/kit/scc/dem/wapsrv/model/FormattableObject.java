@@ -1,5 +1,10 @@
 package edu.kit.scc.dem.wapsrv.model;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import edu.kit.scc.dem.wapsrv.exceptions.FormatNotAvailableException;
 import edu.kit.scc.dem.wapsrv.model.formats.Format;
 
@@ -44,6 +49,27 @@ public interface FormattableObject {
     */
    String toString(Format format) throws FormatNotAvailableException;
 
+   /**
+    * Writes a serialization in the given format to the given stream. The stream is flushed, but not closed.
+    * <p>
+    * The default implementation writes {@link #toString(Format)} encoded as UTF-8. Implementations should override it
+    * if they can write the serialization without building it as a whole in memory first.
+    * 
+    * @param  format
+    *                                     The format
+    * @param  out
+    *                                     The stream to write to
+    * @throws IOException
+    *                                     if writing to the stream fails
+    * @throws FormatNotAvailableException
+    *                                     if format not supported
+    */
+   default void writeTo(Format format, OutputStream out) throws IOException, FormatNotAvailableException {
+      Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      writer.write(toString(format));
+      writer.flush();
+   }
+
    /**
     * Gets the type of the formattable object
     * 
@@ -1,5 +1,6 @@
 package edu.kit.scc.dem.wapsrv.model;
 
+import java.util.List;
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.RDF;
 import edu.kit.scc.dem.wapsrv.exceptions.WapException;
@@ -54,6 +55,17 @@ public interface ModelFactory {
     */
    Annotation createAnnotation(String rawAnnotation, Format format) throws WapException;
 
+   /**
+    * Creates an annotation from already expanded JSON-LD. The annotation will use the IRI that is implicit in it.
+    * 
+    * @param  expandedJsonLd
+    *                        The expanded JSON-LD of the annotation
+    * @return                The created annotation
+    * @throws WapException
+    *                        if any error occurred
+    */
+   Annotation createAnnotation(List<Object> expandedJsonLd) throws WapException;
+
    /**
     * Creates an annotation with the given data set as backend
     * 
@@ -78,6 +90,19 @@ public interface ModelFactory {
     */
    AnnotationList createAnnotationList(String rawAnnotation, Format format) throws WapException;
 
+   /**
+    * Create an annotation list from already expanded JSON-LD. All existent annotations in it will be added to the
+    * annotation list.<br>
+    * The annotations will use the IRIs that are implicit in the JSON-LD.
+    * 
+    * @param  expandedJsonLd
+    *                        The expanded JSON-LD of the annotations
+    * @return                The created annotationList
+    * @throws WapException
+    *                        if any error occurred
+    */
+   AnnotationList createAnnotationList(List<Object> expandedJsonLd) throws WapException;
+
    /**
     * Creates a container from the given parameters. The container will use the IRI that is implicit in the string.
     * 
@@ -93,6 +118,19 @@ public interface ModelFactory {
     */
    Container createContainer(String rawContainer, Format format, String newContainerIri) throws WapException;
 
+   /**
+    * Creates a container from already expanded JSON-LD.
+    * 
+    * @param  expandedJsonLd
+    *                         The expanded JSON-LD of the container
+    * @param  newContainerIri
+    *                         The new IRI for Container
+    * @return                 The container
+    * @throws WapException
+    *                         if any error occurred
+    */
+   Container createContainer(List<Object> expandedJsonLd, String newContainerIri) throws WapException;
+
    /**
     * Creates a container with the given dataset as backend
     * 
@@ -1,6 +1,10 @@
 package edu.kit.scc.dem.wapsrv.model;
 
+import java.util.Collections;
+import java.util.List;
 import org.apache.commons.rdf.api.Dataset;
+import edu.kit.scc.dem.wapsrv.exceptions.FormatNotAvailableException;
+import edu.kit.scc.dem.wapsrv.model.formats.Format;
 
 /**
  * Page objects need to implement this interface. Pages are used only as outgoing objects and are created with data in
@@ -91,4 +95,27 @@ public interface Page extends FormattableObject {
     * @return the Dataset
     */
    Dataset getDataset();
+
+   /**
+    * Returns the annotations of the page kept apart from the rest of the page, so they can be formatted one by one.
+    * 
+    * @return The annotations in the order of the page, an empty list if they are not kept apart
+    */
+   default List<Annotation> getAnnotations() {
+      return Collections.emptyList();
+   }
+
+   /**
+    * Returns a String representation of the page without the annotations returned by {@link #getAnnotations()}. The
+    * page still lists their IRIs as items.
+    * 
+    * @param  format
+    *                                     The format to use
+    * @return                             The String representation of the page without its annotations
+    * @throws FormatNotAvailableException
+    *                                     If the given format is not supported
+    */
+   default String toEnvelopeString(Format format) throws FormatNotAvailableException {
+      return toString(format);
+   }
 }
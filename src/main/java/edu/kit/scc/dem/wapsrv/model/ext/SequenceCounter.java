@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.scc.dem.wapsrv.model.ext;
+
+import java.io.Serializable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * The number of elements of one sequence. The counter is maintained whenever
+ * sequence resources are added or removed, so the size of a sequence is
+ * available without counting its sequence resources.
+ *
+ * @author jejkal
+ */
+@Entity
+public class SequenceCounter implements Serializable{
+
+  private static final long serialVersionUID = 1L;
+
+  @Id
+  private String sequenceIri;
+
+  private long elementCount;
+
+  public SequenceCounter(){
+  }
+
+  public static SequenceCounter create(String sequenceIri, long elementCount){
+    SequenceCounter counter = new SequenceCounter();
+    counter.setSequenceIri(sequenceIri);
+    counter.setElementCount(elementCount);
+    return counter;
+  }
+
+  public String getSequenceIri(){
+    return sequenceIri;
+  }
+
+  public void setSequenceIri(String sequenceIri){
+    this.sequenceIri = sequenceIri;
+  }
+
+  public long getElementCount(){
+    return elementCount;
+  }
+
+  public void setElementCount(long elementCount){
+    this.elementCount = elementCount;
+  }
+}
@@ -21,12 +21,18 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 /**
  *
  * @author jejkal
  */
 @Entity
+@Table(indexes = {
+  @Index(name = "idx_sequence_resource_sequence_iri", columnList = "sequenceIri"),
+  @Index(name = "idx_sequence_resource_annotation_iri", columnList = "annotationIri")
+})
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class SequenceResource implements Serializable{
 
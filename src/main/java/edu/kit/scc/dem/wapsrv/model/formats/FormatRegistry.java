@@ -40,6 +40,11 @@ public final class FormatRegistry {
     */
    @Autowired
    private JsonLdProfileRegistry profileRegistry;
+   /**
+    * The pool rendering the annotations of pages in parallel, null if there is none
+    */
+   @Autowired(required = false)
+   private PageRenderingPool pageRenderingPool;
 
    /**
     * The constructor is called by spring once and sets the {@link instance} variable of the class.
@@ -153,6 +158,7 @@ public final class FormatRegistry {
             // Autowire manually if jsonLdFormatter
             if (formatterClass.equals(JsonLdFormatter.class)) {
                ((JsonLdFormatter) formatter).setProfileRegistry(profileRegistry);
+               ((JsonLdFormatter) formatter).setPageRenderingPool(pageRenderingPool);
             }
          } catch (InstantiationException | IllegalAccessException e) {
             throw new InternalServerException(
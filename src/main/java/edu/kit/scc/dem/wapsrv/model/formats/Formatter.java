@@ -1,5 +1,13 @@
 package edu.kit.scc.dem.wapsrv.model.formats;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
 import edu.kit.scc.dem.wapsrv.model.FormattableObject;
 import edu.kit.scc.dem.wapsrv.model.FormattableObject.Type;
 
@@ -44,6 +52,27 @@ public interface Formatter {
     */
    String format(FormattableObject obj);
 
+   /**
+    * Formats a given FormattableObject with this formatter and writes the result encoded as UTF-8 to the given stream.
+    * The stream is flushed, but not closed.
+    * <p>
+    * The output is the same as the one of {@link #format(FormattableObject)}. The default implementation writes that
+    * String, formatters that can write their output piece by piece should override it so that large objects are not
+    * held in memory as a whole.
+    * 
+    * @param  obj
+    *                     The Object for format
+    * @param  out
+    *                     The stream to write to
+    * @throws IOException
+    *                     if writing to the stream fails
+    */
+   default void format(FormattableObject obj, OutputStream out) throws IOException {
+      Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      writer.write(format(obj));
+      writer.flush();
+   }
+
    /**
     * Returns whether this formatter is valid. This means that setAcceptPart(String, Type) was called with a valid HTTP
     * Accept Header part. Without calling this method before, the formatter is always invalid.
@@ -71,4 +100,14 @@ public interface Formatter {
     * @return String representation for ContentType HTTP Header
     */
    String getContentType();
+
+   /**
+    * Return the profiles applied by this formatter. Two formatters of the same format and profiles produce the same
+    * String representation of an object.
+    * 
+    * @return The profiles, an empty set if the format knows no profiles
+    */
+   default Set<URI> getProfiles() {
+      return Collections.emptySet();
+   }
 }
@@ -0,0 +1,324 @@
+package edu.kit.scc.dem.wapsrv.model.formats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import com.github.jsonldjava.core.JsonLdConsts;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+
+/**
+ * Frames a graph without serializing it to JSON-LD first.
+ * <p>
+ * The generic path lets the RDF backend write the graph as JSON-LD, parses that string again and hands it to
+ * {@link JsonLdProcessor#frame(Object, Object, JsonLdOptions)}, which expands it, builds a node map and embeds the
+ * nodes. This class builds the same framed and expanded node straight from the triples, the result only has to be
+ * compacted. It supports frames that match a single type and only set {@code @embed} on some of their properties,
+ * like the annotation frame delivered with the server. Graphs whose framed output depends on details of the JSON-LD
+ * processor are not framed at all, see {@link #frame(Graph)}. The generic path has to be used for them.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public final class GraphFramer {
+   /**
+    * The RDF namespace
+    */
+   private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+   /**
+    * The XML schema namespace
+    */
+   private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+   /**
+    * The predicate turned into @type
+    */
+   private static final String RDF_TYPE = RDF + "type";
+   /**
+    * The datatype of plain strings
+    */
+   private static final String XSD_STRING = XSD + "string";
+   /**
+    * The IRIs of RDF lists, which are turned into @list objects
+    */
+   private static final Set<String> LIST_IRIS = Set.of(RDF + "first", RDF + "rest", RDF + "nil");
+   /**
+    * Datatypes the JSON-LD writer of the RDF backend may turn into native JSON values or JSON literals
+    */
+   private static final Set<String> UNSUPPORTED_DATATYPES =
+         Set.of(XSD + "integer", XSD + "double", XSD + "boolean", RDF + "JSON");
+   /**
+    * The node IRI used to expand the terms of the frame
+    */
+   private static final String PROBE_IRI = "urn:wapsrv:frame";
+   /**
+    * The type the top level node must have
+    */
+   private final String type;
+   /**
+    * The properties of the top level node whose values are not embedded
+    */
+   private final Set<String> referencedProperties;
+
+   /**
+    * Creates a new framer
+    *
+    * @param type
+    *                             The type the top level node must have
+    * @param referencedProperties
+    *                             The properties of the top level node whose values are not embedded
+    */
+   private GraphFramer(String type, Set<String> referencedProperties) {
+      this.type = type;
+      this.referencedProperties = referencedProperties;
+   }
+
+   /**
+    * Creates a framer for the given frame
+    *
+    * @param  frame
+    *                 The parsed frame
+    * @param  options
+    *                 The options containing the cached profiles
+    * @return         The framer, null if the frame is not supported
+    */
+   @SuppressWarnings("unchecked")
+   static GraphFramer create(Object frame, JsonLdOptions options) {
+      if (!(frame instanceof Map)) {
+         return null;
+      }
+      // Let the processor expand the terms used by the frame. Every property gets a node of its own,
+      // so it can be found again after expansion.
+      Map<String, Object> probe = new LinkedHashMap<>();
+      Map<String, Boolean> embedByProbe = new HashMap<>();
+      String typeTerm = null;
+      for (Map.Entry<String, Object> entry : ((Map<String, Object>) frame).entrySet()) {
+         final String key = entry.getKey();
+         final Object value = entry.getValue();
+         if (JsonLdConsts.CONTEXT.equals(key)) {
+            probe.put(key, value);
+         } else if ("@omitDefault".equals(key)) {
+            // Without it, missing properties are added with their default value
+            if (!Boolean.TRUE.equals(value)) {
+               return null;
+            }
+         } else if (key.startsWith("@")) {
+            return null;
+         } else if (value instanceof String && typeTerm == null) {
+            typeTerm = key;
+            probe.put(key, value);
+         } else if (value instanceof Map && ((Map<String, Object>) value).size() == 1
+               && ((Map<String, Object>) value).get("@embed") instanceof Boolean) {
+            final String probeIri = PROBE_IRI + ":" + embedByProbe.size();
+            embedByProbe.put(probeIri, (Boolean) ((Map<String, Object>) value).get("@embed"));
+            probe.put(key, Map.of(JsonLdConsts.ID, probeIri));
+         } else {
+            return null;
+         }
+      }
+      if (typeTerm == null) {
+         return null;
+      }
+      probe.put(JsonLdConsts.ID, PROBE_IRI);
+      final List<Object> expanded;
+      try {
+         expanded = JsonLdProcessor.expand(probe, options);
+      } catch (JsonLdError e) {
+         return null;
+      }
+      if (expanded.size() != 1 || !(expanded.get(0) instanceof Map)) {
+         return null;
+      }
+      final Map<String, Object> node = (Map<String, Object>) expanded.get(0);
+      final Object types = node.get(JsonLdConsts.TYPE);
+      if (!(types instanceof List) || ((List<Object>) types).size() != 1) {
+         return null;
+      }
+      Set<String> referencedProperties = new HashSet<>();
+      int properties = 0;
+      for (Map.Entry<String, Object> entry : node.entrySet()) {
+         if (entry.getKey().startsWith("@")) {
+            continue;
+         }
+         final Object values = entry.getValue();
+         if (!(values instanceof List) || ((List<Object>) values).size() != 1
+               || !(((List<Object>) values).get(0) instanceof Map)) {
+            return null;
+         }
+         final Boolean embed = embedByProbe.get(((Map<String, Object>) ((List<Object>) values).get(0))
+               .get(JsonLdConsts.ID));
+         if (embed == null) {
+            return null;
+         }
+         if (!embed) {
+            referencedProperties.add(entry.getKey());
+         }
+         properties++;
+      }
+      // Terms the context does not define are dropped by the expansion
+      if (properties != embedByProbe.size()) {
+         return null;
+      }
+      return new GraphFramer((String) ((List<Object>) types).get(0), Set.copyOf(referencedProperties));
+   }
+
+   /**
+    * Frames the given graph. Only graphs that form a tree below a single node of the frame type are framed: every
+    * other node with properties is the object of exactly one triple, RDF lists and literals the JSON-LD writer of
+    * the RDF backend may turn into native values are not used. For other graphs the order in which the JSON-LD
+    * processor embeds nodes and the labels it assigns to blank nodes show up in the output.
+    *
+    * @param  graph
+    *               The graph to frame
+    * @return       The framed node in expanded form, null if the graph is not supported
+    */
+   public List<Object> frame(Graph graph) {
+      Map<BlankNodeOrIRI, List<Triple>> subjects = new HashMap<>();
+      for (Triple triple : graph.iterate()) {
+         if (LIST_IRIS.contains(triple.getPredicate().getIRIString())
+               || triple.getObject() instanceof IRI && LIST_IRIS.contains(((IRI) triple.getObject()).getIRIString())) {
+            return null;
+         }
+         if (triple.getObject() instanceof Literal
+               && UNSUPPORTED_DATATYPES.contains(((Literal) triple.getObject()).getDatatype().getIRIString())) {
+            return null;
+         }
+         subjects.computeIfAbsent(triple.getSubject(), s -> new ArrayList<>()).add(triple);
+      }
+      BlankNodeOrIRI root = null;
+      Map<BlankNodeOrIRI, Integer> references = new HashMap<>();
+      for (Map.Entry<BlankNodeOrIRI, List<Triple>> entry : subjects.entrySet()) {
+         for (Triple triple : entry.getValue()) {
+            final RDFTerm object = triple.getObject();
+            if (RDF_TYPE.equals(triple.getPredicate().getIRIString())) {
+               if (!(object instanceof IRI)) {
+                  return null;
+               }
+               if (type.equals(((IRI) object).getIRIString())) {
+                  if (root != null) {
+                     // More than one top level node
+                     return null;
+                  }
+                  root = entry.getKey();
+               }
+            } else if (object instanceof BlankNodeOrIRI) {
+               if (object instanceof BlankNode && !subjects.containsKey(object)) {
+                  // Would be output with the label assigned by the processor
+                  return null;
+               }
+               references.merge((BlankNodeOrIRI) object, 1, Integer::sum);
+            }
+         }
+      }
+      if (root == null || references.containsKey(root)) {
+         return null;
+      }
+      for (Map.Entry<BlankNodeOrIRI, Integer> entry : references.entrySet()) {
+         if (entry.getValue() > 1 && subjects.containsKey(entry.getKey())) {
+            return null;
+         }
+      }
+      final Map<String, Object> node = toNode(root, subjects, true);
+      if (node == null) {
+         return null;
+      }
+      List<Object> framed = new ArrayList<>();
+      framed.add(node);
+      return framed;
+   }
+
+   /**
+    * Creates the expanded node object of a subject with all nodes below it embedded
+    *
+    * @param  subject
+    *                  The subject
+    * @param  subjects
+    *                  The triples by subject
+    * @param  topLevel
+    *                  true if the subject is the top level node of the frame
+    * @return          The node object, null if the graph is not supported
+    */
+   private Map<String, Object> toNode(BlankNodeOrIRI subject, Map<BlankNodeOrIRI, List<Triple>> subjects,
+         boolean topLevel) {
+      Map<String, Object> node = new LinkedHashMap<>();
+      node.put(JsonLdConsts.ID, toId(subject));
+      List<Object> types = new ArrayList<>();
+      // The compaction sorts the properties anyway, sorting them here keeps the output stable
+      Map<String, List<Object>> properties = new TreeMap<>();
+      for (Triple triple : subjects.getOrDefault(subject, List.of())) {
+         final String predicate = triple.getPredicate().getIRIString();
+         final RDFTerm object = triple.getObject();
+         if (RDF_TYPE.equals(predicate)) {
+            types.add(((IRI) object).getIRIString());
+            continue;
+         }
+         final Object value;
+         if (object instanceof Literal) {
+            value = toValue((Literal) object);
+         } else if (topLevel && referencedProperties.contains(predicate) || !subjects.containsKey(object)) {
+            if (object instanceof BlankNode) {
+               return null;
+            }
+            value = new LinkedHashMap<>(Map.of(JsonLdConsts.ID, toId((BlankNodeOrIRI) object)));
+         } else {
+            value = toNode((BlankNodeOrIRI) object, subjects, false);
+            if (value == null) {
+               return null;
+            }
+         }
+         properties.computeIfAbsent(predicate, p -> new ArrayList<>()).add(value);
+      }
+      if (!types.isEmpty()) {
+         node.put(JsonLdConsts.TYPE, types);
+      }
+      node.putAll(properties);
+      return node;
+   }
+
+   /**
+    * Gets the node ID of a subject
+    *
+    * @param  subject
+    *                 The subject
+    * @return         The IRI or the blank node label
+    */
+   private static String toId(BlankNodeOrIRI subject) {
+      return subject instanceof IRI ? ((IRI) subject).getIRIString() : subject.ntriplesString();
+   }
+
+   /**
+    * Creates the expanded value object of a literal
+    *
+    * @param  literal
+    *                 The literal
+    * @return         The value object
+    */
+   private static Map<String, Object> toValue(Literal literal) {
+      Map<String, Object> value = new LinkedHashMap<>();
+      value.put(JsonLdConsts.VALUE, literal.getLexicalForm());
+      if (literal.getLanguageTag().isPresent()) {
+         // The JSON-LD expansion lower cases language tags
+         value.put(JsonLdConsts.LANGUAGE, literal.getLanguageTag().get().toLowerCase(Locale.ROOT));
+      } else if (!XSD_STRING.equals(literal.getDatatype().getIRIString())) {
+         value.put(JsonLdConsts.TYPE, literal.getDatatype().getIRIString());
+      }
+      return value;
+   }
+}
@@ -0,0 +1,141 @@
+package edu.kit.scc.dem.wapsrv.model.formats;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.github.jsonldjava.core.Context;
+import com.github.jsonldjava.core.JsonLdApi;
+import com.github.jsonldjava.core.JsonLdConsts;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+
+/**
+ * The contexts a JSON-LD output is compacted with, together with the active context processed from them.
+ * <p>
+ * {@link JsonLdProcessor#compact(Object, Object, JsonLdOptions)} processes the given contexts on every call, which
+ * includes all term definitions of anno.jsonld and ldp.jsonld. Instances of this class process them once and are
+ * shared by all formatters using the same type and profiles, see {@link JsonLdProfileRegistry#getCompactionContext}.
+ * The active context is only read after construction, instances can therefore be used by several threads at once.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public final class JsonLdCompactionContext {
+   /**
+    * The contexts as put into the output
+    */
+   private final List<Object> contexts;
+   /**
+    * The active context processed from the contexts
+    */
+   private final Context activeContext;
+   /**
+    * The key the top level graph is put under, @graph or its alias in the contexts
+    */
+   private final String graphKey;
+
+   /**
+    * Processes the given contexts
+    *
+    * @param  contexts
+    *                     The contexts to compact with
+    * @param  options
+    *                     The options containing the cached profiles
+    * @throws JsonLdError
+    *                     if the contexts cannot be processed
+    */
+   JsonLdCompactionContext(List<Object> contexts, JsonLdOptions options) throws JsonLdError {
+      this.contexts = contexts;
+      this.activeContext = new Context(options).parse(contexts);
+      // The inverse context is built lazily on first use, which is not thread safe. Build it before sharing.
+      activeContext.getInverse();
+      this.graphKey = findGraphKey(activeContext);
+   }
+
+   /**
+    * Finds the key compacting @graph results in. Like the compaction algorithm the shortest and then lexicographically
+    * least alias is used, if there is none the keyword itself.
+    *
+    * @param  activeContext
+    *                       The active context
+    * @return               The key for @graph
+    */
+   @SuppressWarnings("unchecked")
+   private static String findGraphKey(Context activeContext) {
+      String graphKey = null;
+      final Object definitions = activeContext.serialize().get(JsonLdConsts.CONTEXT);
+      if (definitions instanceof Map) {
+         for (Map.Entry<String, Object> entry : ((Map<String, Object>) definitions).entrySet()) {
+            final Object definition = entry.getValue();
+            final Object id = definition instanceof Map ? ((Map<String, Object>) definition).get(JsonLdConsts.ID)
+                  : definition;
+            final String term = entry.getKey();
+            if (JsonLdConsts.GRAPH.equals(id) && (graphKey == null || term.length() < graphKey.length()
+                  || term.length() == graphKey.length() && term.compareTo(graphKey) < 0)) {
+               graphKey = term;
+            }
+         }
+      }
+      return graphKey == null ? JsonLdConsts.GRAPH : graphKey;
+   }
+
+   /**
+    * Gets the contexts the output is compacted with
+    *
+    * @return The contexts
+    */
+   public List<Object> getContexts() {
+      return contexts;
+   }
+
+   /**
+    * Compacts the given JSON-LD. The result is the same as the one of
+    * {@link JsonLdProcessor#compact(Object, Object, JsonLdOptions)} called with the contexts of this instance.
+    *
+    * @param  input
+    *                     The parsed JSON-LD to compact
+    * @param  options
+    *                     The options to use
+    * @return             The compacted JSON-LD
+    * @throws JsonLdError
+    *                     if compacting fails
+    */
+   public Map<String, Object> compact(Object input, JsonLdOptions options) throws JsonLdError {
+      return compactExpanded(JsonLdProcessor.expand(input, options), options);
+   }
+
+   /**
+    * Compacts the given JSON-LD, which has to be in expanded form already
+    *
+    * @param  expanded
+    *                     The expanded JSON-LD to compact
+    * @param  options
+    *                     The options to use
+    * @return             The compacted JSON-LD
+    * @throws JsonLdError
+    *                     if compacting fails
+    */
+   @SuppressWarnings("unchecked")
+   public Map<String, Object> compactExpanded(Object expanded, JsonLdOptions options) throws JsonLdError {
+      Object compacted = new JsonLdApi(options).compact(activeContext, null, expanded, options.getCompactArrays());
+      if (compacted instanceof List) {
+         final Map<String, Object> graph = new LinkedHashMap<>();
+         if (!((List<Object>) compacted).isEmpty()) {
+            graph.put(graphKey, compacted);
+         }
+         compacted = graph;
+      }
+      if (compacted != null && !contexts.isEmpty()) {
+         // Every output gets its own list, the cached one must not be changed
+         ((Map<String, Object>) compacted).put(JsonLdConsts.CONTEXT,
+               contexts.size() == 1 && options.getCompactArrays() ? contexts.get(0) : new ArrayList<>(contexts));
+      }
+      return (Map<String, Object>) compacted;
+   }
+}
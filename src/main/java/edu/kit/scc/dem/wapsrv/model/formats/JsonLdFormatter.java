@@ -1,10 +1,18 @@
 package edu.kit.scc.dem.wapsrv.model.formats;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 import org.apache.commons.collections4.map.ListOrderedMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +29,7 @@ import edu.kit.scc.dem.wapsrv.model.Annotation;
 import edu.kit.scc.dem.wapsrv.model.AnnotationList;
 import edu.kit.scc.dem.wapsrv.model.FormattableObject;
 import edu.kit.scc.dem.wapsrv.model.FormattableObject.Type;
+import edu.kit.scc.dem.wapsrv.model.Page;
 
 /**
  * JSON-LD Formatter that can be used for JSON-LD Requests. It parses profiles
@@ -49,6 +58,15 @@ public final class JsonLdFormatter extends AbstractFormatter {
      * The string identifying JSON-LD
      */
     public static final String JSON_LD_STRING = "application/ld+json";
+    /**
+     * The formatting engine that frames annotations straight from their graph
+     */
+    public static final String GRAPH_ENGINE = "graph";
+    /**
+     * The keys holding node IDs in compacted JSON-LD, id is the alias
+     * defined by anno.jsonld
+     */
+    private static final List<String> ID_KEYS = List.of("id", JsonLdConsts.ID);
     /**
      * The set of used profiles
      */
@@ -61,6 +79,10 @@ public final class JsonLdFormatter extends AbstractFormatter {
      * The logger to use
      */
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    /**
+     * The pool used to render the annotations of pages in parallel
+     */
+    private PageRenderingPool pageRenderingPool;
 
     /**
      * Creates a new JsonLdFormatter instance
@@ -95,6 +117,17 @@ public final class JsonLdFormatter extends AbstractFormatter {
         this.profileRegistry = profileRegistry;
     }
 
+    /**
+     * Sets the pool used to render the annotations of pages in parallel.
+     * Without one, pages are rendered as a whole.
+     *
+     * @param pageRenderingPool The page rendering pool
+     */
+    @Autowired(required = false)
+    public void setPageRenderingPool(PageRenderingPool pageRenderingPool) {
+        this.pageRenderingPool = pageRenderingPool;
+    }
+
     /**
      * Overloaded method to format annotation lists Single annotations are
      * formatted as if they were annotations directly, multiple ones have their
@@ -108,17 +141,17 @@ public final class JsonLdFormatter extends AbstractFormatter {
             return format(annoList.getAnnotations().get(0));
         }
         // Serialize lists differently
+        final String newLine = isPrettyPrinting() ? "\n" : "";
         StringBuilder builder = new StringBuilder();
-        builder.append("[\n");
+        builder.append("[").append(newLine);
         List<Annotation> annotations = annoList.getAnnotations();
         for (int n = 0; n < annotations.size(); n++) {
             Annotation annotation = annotations.get(n);
             builder.append(format(annotation));
             if (n < annotations.size() - 1) {
-                builder.append(",\n");
-            } else {
-                builder.append("\n");
+                builder.append(",");
             }
+            builder.append(newLine);
         }
         builder.append("]");
         return builder.toString();
@@ -126,20 +159,70 @@ public final class JsonLdFormatter extends AbstractFormatter {
 
     @Override
     public String format(FormattableObject obj) {
-        final String jsonldString = obj.toString(Format.JSON_LD);
-        // Get the frame as JSON-LD string
-        final String frameString = profileRegistry.getFrameString(obj.getType());
-        final String jsonLdWithBlankNodeIds = applyProfiles(jsonldString, frameString);
+        final Object jsonObject = formatToJsonObject(obj);
+        try {
+            return isPrettyPrinting() ? JsonUtils.toPrettyString(jsonObject) : JsonUtils.toString(jsonObject);
+        } catch (IOException e) {
+            throw new FormatException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Formats the object and writes the result to the stream. Framing and
+     * compaction need the whole document, the compacted result is however
+     * serialized straight into the stream.
+     */
+    @Override
+    public void format(FormattableObject obj, OutputStream out) throws IOException {
+        final Object jsonObject = formatToJsonObject(obj);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (isPrettyPrinting()) {
+            JsonUtils.writePrettyPrint(writer, jsonObject);
+        } else {
+            JsonUtils.write(writer, jsonObject);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Checks whether the output is indented for human readers
+     *
+     * @return true if pretty printed, false for compact output
+     */
+    private static boolean isPrettyPrinting() {
+        final WapServerConfig config = WapServerConfig.getInstance();
+        return config == null || config.isJsonLdPrettyPrinting();
+    }
+
+    /**
+     * Frames and compacts the object
+     *
+     * @param obj The object to format
+     * @return The compacted JSON-LD object tree without blank node IDs
+     */
+    private Object formatToJsonObject(FormattableObject obj) {
+        Object jsonObject = null;
+        if (obj instanceof Page page && !page.getAnnotations().isEmpty()) {
+            jsonObject = formatPageInParallel(page);
+        }
+        if (jsonObject == null && obj instanceof Annotation annotation) {
+            jsonObject = formatAnnotationGraph(annotation);
+        }
+        if (jsonObject == null) {
+            jsonObject = applyProfiles(obj.toString(Format.JSON_LD), obj.getType());
+        }
         // Details why this step is necessary is found within the method
-        return removeBlankNodeIds(jsonLdWithBlankNodeIds);
+        removeBlankNodeIds(jsonObject);
+        return jsonObject;
     }
 
     /**
-     * Remove all blank node IDs from a given "pretty" JSON-LD String
+     * Remove all blank node IDs from a compacted JSON-LD object tree
      *
-     * @return The same JSON-LD without blank node IDs
+     * @param jsonObject The compacted JSON-LD, changed in place
      */
-    private String removeBlankNodeIds(String jsonLdWithBlankNodeIds) {
+    @SuppressWarnings("unchecked")
+    static void removeBlankNodeIds(Object jsonObject) {
         // Whenever we add something that needs an IRI but has none
         // (more formally that is going to be used as an RDF subject)
         // to the triple store, it gets a new and umambiguously blank node IRI assigned.
@@ -159,86 +242,301 @@ public final class JsonLdFormatter extends AbstractFormatter {
         // setting setPruneBlankNodeIdentifiers(false) to given JsonLdOptions.
         // But, as another bug of this "reference implementation", this is ignored or not
         // completely implemented yet. Until this bug is removed from JSON-LD-Java, we have to work
-        // around it by removing all blank node IDs manually from a well formatted pretty string
-        StringBuilder builder = new StringBuilder();
-        String[] lines = jsonLdWithBlankNodeIds.split(Pattern.quote("\n"));
-        for (String line : lines) {
-            if (line.trim().startsWith("\"id\"")) {
-                if (line.contains("\"_:b")) {
-                    continue; // skip this unneeded line
-                } else {
-                    builder.append(line);
+        // around it by removing all blank node IDs manually from the compacted object tree
+        if (jsonObject instanceof Map) {
+            Map<String, Object> jsonMap = (Map<String, Object>) jsonObject;
+            for (String idKey : ID_KEYS) {
+                if (jsonMap.get(idKey) instanceof String id && id.startsWith("_:")) {
+                    jsonMap.remove(idKey);
                 }
-            } else {
-                builder.append(line);
             }
-            // we append a new line if not the last }
-            // update. We cut the last \n if not needed from the builder. Thats faster
-            builder.append("\n");
+            for (Map.Entry<String, Object> entry : jsonMap.entrySet()) {
+                // Contexts define terms, not nodes. They may also be shared with other outputs.
+                if (!JsonLdConsts.CONTEXT.equals(entry.getKey())) {
+                    removeBlankNodeIds(entry.getValue());
+                }
+            }
+        } else if (jsonObject instanceof List) {
+            for (Object item : (List<?>) jsonObject) {
+                removeBlankNodeIds(item);
+            }
         }
-        if (builder.charAt(builder.length() - 1) == '\n') {
-            return builder.substring(0, builder.length() - 1);
-        } else {
-            return builder.toString();
+    }
+
+    /**
+     * Formats a page whose annotations are kept apart. The page without its
+     * annotations and every annotation are framed and compacted on their own,
+     * the annotations in parallel, and the results are put in place of the
+     * items of the page with the same ID. All of them are compacted with the
+     * contexts of the page, so the output matches the one of the page
+     * formatted as a whole.
+     *
+     * @param page The page to format
+     * @return The compacted page still containing blank node IDs, null if it
+     * has to be formatted as a whole
+     */
+    @SuppressWarnings("unchecked")
+    private Object formatPageInParallel(Page page) {
+        final ForkJoinPool pool = pageRenderingPool == null ? null : pageRenderingPool.getPool();
+        if (pool == null) {
+            return null;
+        }
+        try {
+            final Object pageFrame = profileRegistry.getFrame(Type.PAGE);
+            if (!isFramed(pageFrame) || profileRegistry.getFrame(Type.ANNOTATION) == null) {
+                return null;
+            }
+            final JsonLdCompactionContext contexts = getCompactionContext(Type.PAGE, pageFrame);
+            Object envelope = frameAndCompact(JsonUtils.fromString(page.toEnvelopeString(Format.JSON_LD)),
+                    pageFrame, contexts);
+            if (!(envelope instanceof Map)) {
+                return null;
+            }
+            final List<Annotation> annotations = page.getAnnotations();
+            Object items = ((Map<String, Object>) envelope).get("items");
+            List<Object> itemList = items instanceof List ? (List<Object>) items : Collections.singletonList(items);
+            if (items == null || itemList.size() != annotations.size()) {
+                return null;
+            }
+            List<Object> renderedItems = pool.submit(() -> annotations.parallelStream()
+                    .map(annotation -> formatPageItem(annotation, contexts))
+                    .collect(Collectors.toList())).get();
+            final Map<String, Object> renderedById = new HashMap<>();
+            for (Object item : renderedItems) {
+                // More than one top level node, the annotation cannot be embedded as it is
+                if (!(item instanceof Map) || ((Map<String, Object>) item).containsKey("@graph")) {
+                    return null;
+                }
+                renderedById.put(getNodeId(item), item);
+            }
+            // The page may list its items in another order than the annotations are returned in
+            final List<Object> orderedItems = new ArrayList<>(itemList.size());
+            for (Object item : itemList) {
+                final String id = getNodeId(item);
+                if (id == null || !renderedById.containsKey(id)) {
+                    return null;
+                }
+                orderedItems.add(renderedById.remove(id));
+            }
+            ((Map<String, Object>) envelope).put("items",
+                    items instanceof List ? orderedItems : orderedItems.get(0));
+            return reorderJsonAttributes(envelope);
+        } catch (RejectedExecutionException e) {
+            // The pool has been replaced or shut down meanwhile
+            return null;
+        } catch (JsonLdError | IOException e) {
+            throw new FormatException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FormatException) {
+                throw (FormatException) e.getCause();
+            }
+            throw new FormatException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FormatException("Interrupted while formatting page", e);
+        }
+    }
+
+    /**
+     * Gets the ID of a node in compacted JSON-LD
+     *
+     * @param node The node, or its ID if it is not embedded
+     * @return The ID, null if the node has none
+     */
+    @SuppressWarnings("unchecked")
+    private static String getNodeId(Object node) {
+        if (node instanceof String id) {
+            return id;
+        }
+        if (node instanceof Map) {
+            for (String idKey : ID_KEYS) {
+                if (((Map<String, Object>) node).get(idKey) instanceof String id) {
+                    return id;
+                }
+            }
         }
+        return null;
+    }
+
+    /**
+     * Frames and compacts a single annotation of a page
+     *
+     * @param annotation The annotation
+     * @param contexts The compaction context of the page
+     * @return The compacted annotation without @context
+     */
+    @SuppressWarnings("unchecked")
+    private Object formatPageItem(Annotation annotation, JsonLdCompactionContext contexts) {
+        try {
+            Object item = frameAnnotationGraph(annotation, contexts);
+            if (item == null) {
+                // The frame object is changed by the processor, every task gets its own copy
+                item = frameAndCompact(JsonUtils.fromString(annotation.toString(Format.JSON_LD)),
+                        profileRegistry.getFrame(Type.ANNOTATION), contexts);
+            }
+            if (item instanceof Map) {
+                ((Map<String, Object>) item).remove("@context");
+            }
+            return item;
+        } catch (JsonLdError | IOException e) {
+            throw new FormatException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Formats an annotation with the graph engine
+     *
+     * @param annotation The annotation to format
+     * @return The compacted annotation still containing blank node IDs, null
+     * if it has to be formatted by the JSON-LD processor
+     */
+    private Object formatAnnotationGraph(Annotation annotation) {
+        if (!isGraphEngine()) {
+            return null;
+        }
+        final JsonLdCompactionContext contexts = profileRegistry.getCompactionContext(Type.ANNOTATION, profiles,
+                () -> collectContexts(profileRegistry.getFrame(Type.ANNOTATION)));
+        final Object jsonObject = frameAnnotationGraph(annotation, contexts);
+        return jsonObject == null ? null : reorderJsonAttributes(jsonObject);
+    }
+
+    /**
+     * Frames an annotation straight from its graph and compacts it. This skips
+     * serializing the graph as JSON-LD, parsing it again and the framing of the
+     * JSON-LD processor, see {@link GraphFramer}.
+     *
+     * @param annotation The annotation to frame
+     * @param contexts The compaction context
+     * @return The compacted annotation, null if the graph engine is not used or
+     * cannot frame the annotation
+     */
+    private Object frameAnnotationGraph(Annotation annotation, JsonLdCompactionContext contexts) {
+        if (!isGraphEngine() || !profiles.contains(DEFAULT_PROFILE)) {
+            return null;
+        }
+        final GraphFramer framer = profileRegistry.getGraphFramer(Type.ANNOTATION);
+        if (framer == null) {
+            return null;
+        }
+        final List<Object> framed = framer.frame(annotation.getDataset().getGraph());
+        if (framed == null) {
+            return null;
+        }
+        try {
+            return contexts.compactExpanded(framed, profileRegistry.getJsonLdOptions());
+        } catch (JsonLdError e) {
+            throw new FormatException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks whether annotations are framed by the graph engine
+     *
+     * @return true if the graph engine is configured
+     */
+    private static boolean isGraphEngine() {
+        final WapServerConfig config = WapServerConfig.getInstance();
+        return config != null && GRAPH_ENGINE.equalsIgnoreCase(config.getJsonLdFormattingEngine());
     }
 
     /**
      * Expands all listed profiles in a given JSON-LD string
      *
      * @param jsonLd The string to expand
-     * @param frameString The JSON-LD Frame as String
-     * @return the expanded string
+     * @param type The type of the formatted object, selects the frame
+     * @return the compacted JSON-LD object tree
      */
-    private String applyProfiles(String jsonLd, String frameString) {
+    private Object applyProfiles(String jsonLd, Type type) {
         try {
-
-            final Object frameObject = frameString == null ? null : JsonUtils.fromString(frameString);
+            final Object frameObject = profileRegistry.getFrame(type);
             Object jsonObject = JsonUtils.fromString(jsonLd);
-            // Use precreated options with in memory profiles
-            JsonLdOptions optionsWithContexts = profileRegistry.getJsonLdOptions();
+            jsonObject = frameAndCompact(jsonObject, frameObject, getCompactionContext(type, frameObject));
 
-            List<Object> contexts = new ArrayList<>();
+            return reorderJsonAttributes(jsonObject);
+        } catch (JsonLdError | IOException e) {
+            throw new FormatException(e.getMessage(), e);
+        }
+    }
 
-            //We assume that framing and compacting only needs to be applied if anno profile is present
-            if (frameObject != null && profiles.contains(DEFAULT_PROFILE)) {
-                final JsonLdOptions options = profileRegistry.getJsonLdOptions();
-                options.format = JsonLdConsts.APPLICATION_NQUADS;
-                options.setCompactArrays(true);
+    /**
+     * Checks whether the output is framed before it is compacted
+     *
+     * @param frameObject The parsed frame, may be null
+     * @return true if the frame is applied
+     */
+    private boolean isFramed(Object frameObject) {
+        //We assume that framing and compacting only needs to be applied if anno profile is present
+        return frameObject != null && profiles.contains(DEFAULT_PROFILE);
+    }
 
-                // Frame the RDF-converted JSON-LD
-                jsonObject = JsonLdProcessor.frame(jsonObject, frameObject, options);
+    /**
+     * Gets the processed contexts used to compact the output. They only depend
+     * on the type and the profiles and are cached by the profile registry.
+     *
+     * @param type The type of the frame
+     * @param frameObject The parsed frame of the type, may be null
+     * @return The compaction context
+     */
+    private JsonLdCompactionContext getCompactionContext(Type type, Object frameObject) {
+        return profileRegistry.getCompactionContext(type, profiles, () -> collectContexts(frameObject));
+    }
 
-                // Collect contexts from profiles
-                for (URI url : profiles) {
-                    contexts.add(url.toString());
-                }
+    /**
+     * Collects the contexts used to compact the output
+     *
+     * @param frameObject The parsed frame, may be null
+     * @return The deduplicated contexts
+     */
+    private List<Object> collectContexts(Object frameObject) {
+        List<Object> contexts = new ArrayList<>();
+        if (isFramed(frameObject)) {
+            // Collect contexts from profiles
+            for (URI url : profiles) {
+                contexts.add(url.toString());
+            }
 
-                // Extract @context from the frame and add it to the list
-                if (frameObject instanceof Map) {
-                    Object frameContext = ((Map<?, ?>) frameObject).get("@context");
-                    if (frameContext != null) {
-                        if (frameContext instanceof List) {
-                            // Flatten the list
-                            contexts.addAll((List<?>) frameContext);
-                        } else {
-                            // Add single context (string or map)
-                            contexts.add(frameContext);
-                        }
+            // Extract @context from the frame and add it to the list
+            if (frameObject instanceof Map) {
+                Object frameContext = ((Map<?, ?>) frameObject).get("@context");
+                if (frameContext != null) {
+                    if (frameContext instanceof List) {
+                        // Flatten the list
+                        contexts.addAll((List<?>) frameContext);
+                    } else {
+                        // Add single context (string or map)
+                        contexts.add(frameContext);
                     }
                 }
             }
-            for (URI url : profiles) {
-                contexts.add(url.toString());
-            }
-            contexts = deduplicateContexts(contexts);
-            jsonObject = JsonLdProcessor.compact(jsonObject, contexts, optionsWithContexts);
+        }
+        for (URI url : profiles) {
+            contexts.add(url.toString());
+        }
+        return deduplicateContexts(contexts);
+    }
 
-            jsonObject = reorderJsonAttributes(jsonObject);
-            return JsonUtils.toPrettyString(jsonObject);
-        } catch (JsonLdError | IOException e) {
-            throw new FormatException(e.getMessage(), e);
+    /**
+     * Frames the given JSON-LD object if needed and compacts it
+     *
+     * @param jsonObject The parsed JSON-LD
+     * @param frameObject The parsed frame, may be null
+     * @param contexts The compaction context
+     * @return The compacted JSON-LD object
+     * @throws JsonLdError if framing or compacting fails
+     */
+    private Object frameAndCompact(Object jsonObject, Object frameObject, JsonLdCompactionContext contexts)
+            throws JsonLdError {
+        // Use precreated options with in memory profiles
+        JsonLdOptions optionsWithContexts = profileRegistry.getJsonLdOptions();
+        if (isFramed(frameObject)) {
+            final JsonLdOptions options = profileRegistry.getJsonLdOptions();
+            options.format = JsonLdConsts.APPLICATION_NQUADS;
+            options.setCompactArrays(true);
+
+            // Frame the RDF-converted JSON-LD
+            jsonObject = JsonLdProcessor.frame(jsonObject, frameObject, options);
         }
+        return contexts.compact(jsonObject, optionsWithContexts);
     }
 
     /**
@@ -331,7 +629,7 @@ public final class JsonLdFormatter extends AbstractFormatter {
                 // It is ok to have some malformed profile String here, since profile negotiation is optional
                 // we treat this case as if no accept header was given
             } else {
-                String[] profiles = profilesWithinQuotes.split(Pattern.quote(" "));
+                String[] profiles = profilesWithinQuotes.split(" ");
                 for (String profile : profiles) {
                     String trimmedProfile = profile.trim();
                     try {
@@ -407,4 +705,9 @@ public final class JsonLdFormatter extends AbstractFormatter {
     public String getFormatString() {
         return JSON_LD_STRING;
     }
+
+    @Override
+    public Set<URI> getProfiles() {
+        return Set.copyOf(profiles);
+    }
 }
@@ -8,11 +8,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.*;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -104,6 +112,21 @@ public final class JsonLdProfileRegistry {
      * The frames needed for specific types
      */
     private final Map<Type, String> type2frame = new Hashtable<Type, String>();
+    /**
+     * The parsed frames needed for specific types. Replaced whenever the
+     * profiles are updated.
+     */
+    private volatile Map<Type, Object> type2parsedFrame = new ConcurrentHashMap<>();
+    /**
+     * The processed compaction contexts by type and profiles. Replaced
+     * whenever the profiles are updated.
+     */
+    private volatile Map<CompactionKey, JsonLdCompactionContext> compactionContexts = new ConcurrentHashMap<>();
+    /**
+     * The graph framers by type, empty if the frame of the type is not
+     * supported by them. Replaced whenever the profiles are updated.
+     */
+    private volatile Map<Type, Optional<GraphFramer>> graphFramers = new ConcurrentHashMap<>();
     /**
      * The logger to use
      */
@@ -124,6 +147,10 @@ public final class JsonLdProfileRegistry {
      * Will be set to true if asynchronous initialization is done
      */
     private boolean isInitialized = false;
+    /**
+     * The listeners called whenever the profiles in use have been updated
+     */
+    private final List<Runnable> updateListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Reads in a file into a string
@@ -520,8 +547,29 @@ public final class JsonLdProfileRegistry {
         }
     }
 
-    private synchronized void setJsonLdOptions(JsonLdOptions jsonLdOptions) {
-        this.jsonLdOptions = jsonLdOptions;
+    private void setJsonLdOptions(JsonLdOptions jsonLdOptions) {
+        synchronized (this) {
+            this.jsonLdOptions = jsonLdOptions;
+        }
+        // Frames embed the contexts and compaction contexts are processed with the options,
+        // both are rebuilt with the new profiles on next access
+        type2frame.clear();
+        type2parsedFrame = new ConcurrentHashMap<>();
+        compactionContexts = new ConcurrentHashMap<>();
+        graphFramers = new ConcurrentHashMap<>();
+        for (Runnable listener : updateListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Adds a listener that is called whenever the profiles in use have been
+     * updated, e.g. to drop everything formatted with the old ones
+     *
+     * @param listener The listener to add
+     */
+    public void addUpdateListener(Runnable listener) {
+        updateListeners.add(listener);
     }
 
     /**
@@ -760,6 +808,131 @@ public final class JsonLdProfileRegistry {
         }
     }
 
+    /**
+     * Gets the parsed JSON-LD Frame needed for serialization of the given type
+     * of object. The frame is parsed once, every call gets its own copy as the
+     * JSON-LD processor may change it.
+     *
+     * @param type The object type
+     * @return The parsed frame needed for serialization
+     */
+    public Object getFrame(Type type) {
+        final Map<Type, Object> frames = type2parsedFrame;
+        Object frame = frames.get(type);
+        if (frame == null) {
+            try {
+                frame = JsonUtils.fromString(getFrameString(type));
+            } catch (IOException e) {
+                throw new InternalServerException("Could not parse JSON-LD Frame file for " + type);
+            }
+            frames.put(type, frame);
+        }
+        return copyJson(frame);
+    }
+
+    /**
+     * Copies a parsed JSON tree
+     *
+     * @param json The parsed JSON
+     * @return A deep copy, strings, numbers and booleans are shared
+     */
+    @SuppressWarnings("unchecked")
+    private static Object copyJson(Object json) {
+        if (json instanceof Map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) json).entrySet()) {
+                copy.put(entry.getKey(), copyJson(entry.getValue()));
+            }
+            return copy;
+        } else if (json instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<Object>) json).size());
+            for (Object item : (List<Object>) json) {
+                copy.add(copyJson(item));
+            }
+            return copy;
+        }
+        return json;
+    }
+
+    /**
+     * Gets the compaction context used for the given type of object and the
+     * given profiles. It is created from the given contexts on first access
+     * and kept until the profiles are updated.
+     *
+     * @param type The object type
+     * @param profiles The profiles applied
+     * @param contexts Supplies the contexts to compact with if not cached yet.
+     * They must only depend on type and profiles.
+     * @return The compaction context
+     * @throws FormatException if the contexts cannot be processed
+     */
+    public JsonLdCompactionContext getCompactionContext(Type type, Set<URI> profiles,
+            Supplier<List<Object>> contexts) throws FormatException {
+        // Read the map before the options, a context processed with outdated options
+        // is thereby never added to the map used after an update
+        final Map<CompactionKey, JsonLdCompactionContext> cache = compactionContexts;
+        final CompactionKey key = new CompactionKey(type, profiles);
+        JsonLdCompactionContext compactionContext = cache.get(key);
+        if (compactionContext == null) {
+            try {
+                compactionContext = new JsonLdCompactionContext(contexts.get(), getJsonLdOptions());
+            } catch (JsonLdError e) {
+                throw new FormatException(e.getMessage(), e);
+            }
+            cache.put(key, compactionContext);
+        }
+        return compactionContext;
+    }
+
+    /**
+     * Gets the framer that frames graphs of the given type of object without
+     * serializing them first. It is created from the frame on first access and
+     * kept until the profiles are updated.
+     *
+     * @param type The object type
+     * @return The graph framer, null if the frame of the type is not supported
+     * by it
+     */
+    public GraphFramer getGraphFramer(Type type) {
+        final Map<Type, Optional<GraphFramer>> framers = graphFramers;
+        Optional<GraphFramer> framer = framers.get(type);
+        if (framer == null) {
+            framer = Optional.ofNullable(GraphFramer.create(getFrame(type), getJsonLdOptions()));
+            framers.put(type, framer);
+        }
+        return framer.orElse(null);
+    }
+
+    /**
+     * The identity of a compaction context
+     */
+    private static final class CompactionKey {
+        private final Type type;
+        private final Set<URI> profiles;
+
+        CompactionKey(Type type, Set<URI> profiles) {
+            this.type = type;
+            this.profiles = Set.copyOf(profiles);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CompactionKey)) {
+                return false;
+            }
+            CompactionKey other = (CompactionKey) obj;
+            return type == other.type && profiles.equals(other.profiles);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, profiles);
+        }
+    }
+
     /**
      * Embeds the used contexts into the given JSON-LD serialized string
      *
@@ -818,11 +991,26 @@ public final class JsonLdProfileRegistry {
      * @throws FormatException if anything went wrong expanding JSON-LD profiles
      */
     public String expandJsonLd(String serialization) throws FormatException {
+        try {
+            return JsonUtils.toPrettyString(expandJsonLdTree(serialization));
+        } catch (IOException e) {
+            throw new FormatException("Exception expanding JSON-LD profiles : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Expands a given JSON-LD serialization using cached profiles. In contrast
+     * to {@link #expandJsonLd(String)} the result is not serialized again, it
+     * can be checked and converted to RDF as it is.
+     *
+     * @param serialization The serialized JSON-LD to expand its profiles
+     * @return The expanded JSON-LD as parsed JSON
+     * @throws FormatException if anything went wrong expanding JSON-LD profiles
+     */
+    public List<Object> expandJsonLdTree(String serialization) throws FormatException {
         try {
             Object jsonObject = JsonUtils.fromString(serialization);
-            jsonObject = JsonLdProcessor.expand(jsonObject, getJsonLdOptions());
-            String erg = JsonUtils.toPrettyString(jsonObject);
-            return erg;
+            return JsonLdProcessor.expand(jsonObject, getJsonLdOptions());
         } catch (IOException | JsonLdError e) {
             throw new FormatException("Exception expanding JSON-LD profiles : " + e.getMessage());
         }
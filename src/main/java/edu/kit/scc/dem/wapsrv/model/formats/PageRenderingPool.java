@@ -0,0 +1,85 @@
+package edu.kit.scc.dem.wapsrv.model.formats;
+
+import java.util.concurrent.ForkJoinPool;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+
+/**
+ * Holds the pool used by the {@link JsonLdFormatter} to render the annotations of pages in parallel.
+ * <p>
+ * The pool has the parallelism configured in {@link WapServerConfig#getPageRenderingParallelism()}. It is replaced
+ * when the configured value changes, pages already being rendered by the old pool are finished. The pool is shut down
+ * with the application context.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+@Component
+public class PageRenderingPool {
+   /**
+    * The application configuration containing the parallelism
+    */
+   private final WapServerConfig config;
+   /**
+    * The current pool, null if pages are rendered as a whole
+    */
+   private ForkJoinPool pool;
+   /**
+    * The parallelism the current pool has been created with
+    */
+   private int parallelism;
+   /**
+    * Whether the pool has been shut down for good
+    */
+   private boolean shutDown;
+
+   /**
+    * Creates a new pool holder
+    *
+    * @param config
+    *               The config to use
+    */
+   @Autowired
+   public PageRenderingPool(WapServerConfig config) {
+      this.config = config;
+   }
+
+   /**
+    * Gets the pool with the configured parallelism
+    *
+    * @return The pool, null if pages are rendered as a whole or the pool has been shut down
+    */
+   public synchronized ForkJoinPool getPool() {
+      final int configured = shutDown ? 0 : Math.max(0, config.getPageRenderingParallelism());
+      if (configured != parallelism) {
+         if (pool != null) {
+            // Tasks already submitted are still executed
+            pool.shutdown();
+         }
+         pool = configured > 0 ? new ForkJoinPool(configured) : null;
+         parallelism = configured;
+         LoggerFactory.getLogger(getClass()).info("Page rendering parallelism set to " + configured);
+      }
+      return pool;
+   }
+
+   /**
+    * Shuts the pool down, pages are rendered as a whole afterwards
+    */
+   @PreDestroy
+   public synchronized void shutdown() {
+      shutDown = true;
+      if (pool != null) {
+         pool.shutdown();
+         pool = null;
+      }
+      parallelism = 0;
+   }
+}
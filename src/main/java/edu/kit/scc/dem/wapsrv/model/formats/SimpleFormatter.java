@@ -1,5 +1,7 @@
 package edu.kit.scc.dem.wapsrv.model.formats;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import edu.kit.scc.dem.wapsrv.model.FormattableObject;
 import edu.kit.scc.dem.wapsrv.model.FormattableObject.Type;
 
@@ -44,6 +46,12 @@ public class SimpleFormatter extends AbstractFormatter{
     return obj.toString(getFormat());
   }
 
+  @Override
+  public void format(FormattableObject obj, OutputStream out) throws IOException{
+    // Nothing to apply, the object writes its serialization straight to the stream
+    obj.writeTo(getFormat(), out);
+  }
+
   @Override
   public void setAcceptPart(String acceptPart, Type type){
     // we do not use acceptPart in SimpleFormatters, no matter of type
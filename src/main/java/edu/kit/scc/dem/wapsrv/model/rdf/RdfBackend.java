@@ -1,8 +1,13 @@
 package edu.kit.scc.dem.wapsrv.model.rdf;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.RDF;
 import edu.kit.scc.dem.wapsrv.exceptions.WapException;
@@ -60,6 +65,19 @@ public interface RdfBackend {
     */
    Dataset readFromString(String serialization, Format format) throws WapException;
 
+   /**
+    * Creates a data set from JSON-LD that has been parsed and expanded already, e.g. by
+    * {@link edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry#expandJsonLdTree(String)}. The result is the
+    * same as parsing its serialization with {@link #readFromString(String, Format)}.
+    * 
+    * @param  expandedJsonLd
+    *                        The expanded JSON-LD
+    * @return                The data set
+    * @throws WapException
+    *                        If any error occurs
+    */
+   Dataset readFromJsonLd(List<Object> expandedJsonLd) throws WapException;
+
    /**
     * Writes the given data set in the given format to a string serialization
     * 
@@ -73,6 +91,30 @@ public interface RdfBackend {
     */
    String getOutput(Dataset dataset, Format format) throws WapException;
 
+   /**
+    * Writes the given data set in the given format encoded as UTF-8 to the given stream. The stream is flushed, but not
+    * closed.
+    * <p>
+    * The default implementation writes the result of {@link #getOutput(Dataset, Format)}, backends should override it
+    * to serialize directly into the stream.
+    * 
+    * @param  dataset
+    *                      The data set
+    * @param  format
+    *                      The format
+    * @param  out
+    *                      The stream to write to
+    * @throws IOException
+    *                      if writing to the stream fails
+    * @throws WapException
+    *                      In case any other error occurred
+    */
+   default void writeOutput(Dataset dataset, Format format, OutputStream out) throws IOException, WapException {
+      Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      writer.write(getOutput(dataset, format));
+      writer.flush();
+   }
+
    /**
     * Tests whether the given format is usable by the actual RdfBackend implementation
     * 
@@ -1,6 +1,7 @@
 package edu.kit.scc.dem.wapsrv.model.rdf;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import org.apache.commons.rdf.api.BlankNodeOrIRI;
 import org.apache.commons.rdf.api.Dataset;
@@ -54,8 +55,23 @@ public class RdfModelFactory implements ModelFactory {
 
    @Override
    public AnnotationList createAnnotationList(String rawAnnotation, Format format) {
+      return createAnnotationList(rdfBackend.readFromString(rawAnnotation, format));
+   }
+
+   @Override
+   public AnnotationList createAnnotationList(List<Object> expandedJsonLd) {
+      return createAnnotationList(rdfBackend.readFromJsonLd(expandedJsonLd));
+   }
+
+   /**
+    * Creates an annotation list with an annotation for every annotation in the given data set
+    * 
+    * @param  dataset
+    *                 The data set
+    * @return         The annotation list
+    */
+   private AnnotationList createAnnotationList(Dataset dataset) {
       AnnotationList annotationList = new RdfAnnotationList(rdfBackend);
-      Dataset dataset = rdfBackend.readFromString(rawAnnotation, format);
       Set<BlankNodeOrIRI> annotationIris = new HashSet<BlankNodeOrIRI>();
       Iterable<Quad> iterator = dataset.iterate(null, null, RdfVocab.type, AnnoVocab.annotation);
       for (Quad quad : iterator) {
@@ -87,6 +103,11 @@ public class RdfModelFactory implements ModelFactory {
       return annotation;
    }
 
+   @Override
+   public Annotation createAnnotation(List<Object> expandedJsonLd) {
+      return new RdfAnnotation(rdfBackend.readFromJsonLd(expandedJsonLd), rdfBackend);
+   }
+
    @Override
    public boolean isValidInputFormat(Format format) {
       return rdfBackend.isValidInputFormat(format);
@@ -112,6 +133,12 @@ public class RdfModelFactory implements ModelFactory {
       return container;
    }
 
+   @Override
+   public Container createContainer(List<Object> expandedJsonLd, String newContainerIri) {
+      IRI containerIri = rdf.createIRI(newContainerIri);
+      return new RdfContainer(rdfBackend.readFromJsonLd(expandedJsonLd), rdfBackend, containerIri);
+   }
+
    @Override
    public String convertFormat(String rawString, Format srcFormat, Format destFormat) {
       Dataset dataset = rdfBackend.readFromString(rawString, srcFormat);
@@ -1,14 +1,17 @@
 package edu.kit.scc.dem.wapsrv.model.rdf;
 
+import java.util.Optional;
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.Triple;
 import org.apache.commons.rdf.simple.Types;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
 import edu.kit.scc.dem.wapsrv.model.Container;
 import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.AsVocab;
 import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.LdpVocab;
 import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.RdfVocab;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.WapVocab;
 
 /**
  * The class is used to generate the correct output representation of the Container. It extends the Container class and
@@ -50,8 +53,16 @@ public class RdfOutputContainer extends RdfContainer {
     */
    @Override
    public Dataset getDataset() {
-      // Because the sequence head is also included we need to substract 1
-      long annoCount = dataset.getGraph().stream(Container.toAnnotationSeqIri(iri), null, null).count() - 1;
+      long annoCount;
+      Optional<? extends Triple> itemCount
+            = dataset.getGraph().stream(Container.toAnnotationSeqIri(iri), WapVocab.itemCount, null).findFirst();
+      if (itemCount.isPresent()) {
+         // The repository stores the annotations with order keys and keeps their count
+         annoCount = Long.parseLong(((Literal) itemCount.get().getObject()).getLexicalForm());
+      } else {
+         // Because the sequence head is also included we need to substract 1
+         annoCount = dataset.getGraph().stream(Container.toAnnotationSeqIri(iri), null, null).count() - 1;
+      }
       Literal annoCountLiteral
             = rdfBackend.getRdf().createLiteral(String.valueOf(annoCount), Types.XSD_NONNEGATIVEINTEGER);
       dataset.getGraph().add(iri, AsVocab.totalItems, annoCountLiteral);
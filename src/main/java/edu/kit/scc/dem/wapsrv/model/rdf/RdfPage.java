@@ -1,5 +1,10 @@
 package edu.kit.scc.dem.wapsrv.model.rdf;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.apache.commons.rdf.api.BlankNode;
 import org.apache.commons.rdf.api.BlankNodeOrIRI;
 import org.apache.commons.rdf.api.Dataset;
@@ -45,6 +50,15 @@ public class RdfPage implements Page {
    private String containerIri;
    private boolean preferIrisOnly;
    private AsCollection asCollection;
+   /**
+    * The annotations of the page, kept apart from the page data set until it is needed. Null if the annotations are
+    * added to the data set at once.
+    */
+   private List<Annotation> annotations;
+   /**
+    * Whether the annotations kept apart have been added to the data set
+    */
+   private boolean annotationsMerged;
 
    /**
     * Creates a new RdfPage object using the given parameters
@@ -77,6 +91,10 @@ public class RdfPage implements Page {
       this.containerIri = containerIriString;
       this.preferIrisOnly = preferIrisOnly;
       this.itemsPerPage = WapServerConfig.getInstance().getPageSize();
+      if (!preferIrisOnly && WapServerConfig.getInstance().getPageRenderingParallelism() > 0) {
+         // The annotations may be rendered one by one in parallel
+         annotations = new ArrayList<>();
+      }
       iriPreferOnly = getIriPreferOnly();
       iriFull = getIriforPage(pageNr);
       // IRI containerIri = rdfBackend.getRdf().createIRI(containerIriString);
@@ -123,9 +141,27 @@ public class RdfPage implements Page {
 
    @Override
    public String toString(Format format) throws FormatNotAvailableException {
+      return rdfBackend.getOutput(getDataset(), format);
+   }
+
+   @Override
+   public void writeTo(Format format, OutputStream out) throws IOException, FormatNotAvailableException {
+      rdfBackend.writeOutput(getDataset(), format, out);
+   }
+
+   @Override
+   public String toEnvelopeString(Format format) throws FormatNotAvailableException {
+      if (annotations == null) {
+         return toString(format);
+      }
       return rdfBackend.getOutput(dataset, format);
    }
 
+   @Override
+   public List<Annotation> getAnnotations() {
+      return annotations == null ? Collections.emptyList() : Collections.unmodifiableList(annotations);
+   }
+
    @Override
    public int getPageNr() {
       return pageNr;
@@ -178,9 +214,18 @@ public class RdfPage implements Page {
       }
       asCollection.addItem(anno.getIri());
       Dataset annoDs = anno.getDataset();
+      // The annotation may be a view only valid in the current transaction, it is always copied
+      Dataset target = dataset;
+      if (annotations != null) {
+         target = rdfBackend.getRdf().createDataset();
+      }
+      final Graph targetGraph = target.getGraph();
       annoDs.getGraph().iterate().forEach(t -> {
-         dataset.getGraph().add(t);
+         targetGraph.add(t);
       });
+      if (annotations != null) {
+         annotations.add(new RdfAnnotation(target, rdfBackend));
+      }
    }
 
    @Override
@@ -216,6 +261,15 @@ public class RdfPage implements Page {
 
    @Override
    public Dataset getDataset() {
+      if (annotations != null && !annotations.isEmpty() && !annotationsMerged) {
+         // Needed as a whole, add the annotations kept apart
+         for (Annotation annotation : annotations) {
+            annotation.getDataset().getGraph().iterate().forEach(t -> {
+               dataset.getGraph().add(t);
+            });
+         }
+         annotationsMerged = true;
+      }
       return dataset;
    }
 
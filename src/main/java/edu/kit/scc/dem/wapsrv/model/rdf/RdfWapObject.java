@@ -1,5 +1,7 @@
 package edu.kit.scc.dem.wapsrv.model.rdf;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Optional;
@@ -88,6 +90,11 @@ public abstract class RdfWapObject implements WapObject {
       return serialized;
    }
 
+   @Override
+   public void writeTo(Format format, OutputStream out) throws IOException {
+      rdfBackend.writeOutput(getDataset(), format, out);
+   }
+
    @Override
    public String getEtagQuoted() {
       return "\"" + getEtag() + "\"";
@@ -23,6 +23,18 @@ public class WapVocab {
     * etag - under this the etag of an object is stored in the database
     */
    public static IRI etag = buildIri("etag");
+   /**
+    * itemCount - the number of elements in a sequence (or in a block of it) stored with order keys
+    */
+   public static IRI itemCount = buildIri("itemCount");
+   /**
+    * orderKey - the order key of an element in a sequence
+    */
+   public static IRI orderKey = buildIri("orderKey");
+   /**
+    * nextKey - the order key the next element appended to a sequence gets
+    */
+   public static IRI nextKey = buildIri("nextKey");
    private static RDF rdf;
    private static final String ROOT = "http://dem.scc.kit.edu/wapserv/ns#";
 
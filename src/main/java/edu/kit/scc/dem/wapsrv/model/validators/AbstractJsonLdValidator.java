@@ -0,0 +1,237 @@
+package edu.kit.scc.dem.wapsrv.model.validators;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.LoggerFactory;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.utils.JsonUtils;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.exceptions.FormatException;
+import edu.kit.scc.dem.wapsrv.model.formats.Format;
+
+/**
+ * The base of the input validators for JSON-LD that validate against the WADM schemas in the schema folder. Subclasses
+ * implement the JSON schema engine, the one used is chosen in the configuration, see
+ * {@link WapServerConfig#getJsonLdValidationEngine()}.
+ * <p>
+ * The schemas are compiled once and shared by all requests, compiled schemas therefore have to be immutable. A schema
+ * is compiled again if its file or the configured schema folder changes.
+ * <p>
+ * The schemas describe the expanded form of JSON-LD. Strings are expanded before they are validated, input that has
+ * been expanded already is validated as it is, see {@link #isExpansionNeeded()}.
+ *
+ * @param   <S>
+ *                  The type of the compiled schemas
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public abstract class AbstractJsonLdValidator<S> implements Validator {
+   /**
+    * The file name of the schema for annotations
+    */
+   static final String ANNOTATION_SCHEMA_FILE = "w3c-annotation-schema.json";
+   /**
+    * The file name of the schema for containers
+    */
+   static final String CONTAINER_SCHEMA_FILE = "ldp-container-schema.json";
+   /**
+    * The application configuration containing the schema folder
+    */
+   private final WapServerConfig config;
+   /**
+    * The compiled schema for annotations, null until first used
+    */
+   private final AtomicReference<SchemaFile<S>> annotationSchema = new AtomicReference<>();
+   /**
+    * The compiled schema for containers, null until first used
+    */
+   private final AtomicReference<SchemaFile<S>> containerSchema = new AtomicReference<>();
+
+   /**
+    * Sets the WapServerConfig to use
+    *
+    * @param config
+    *               The config to use
+    */
+   protected AbstractJsonLdValidator(WapServerConfig config) {
+      this.config = config;
+   }
+
+   @Override
+   public boolean validateAnnotation(String annotationString) {
+      try {
+         return validateJson(annotationString, getSchema(annotationSchema, ANNOTATION_SCHEMA_FILE));
+      } catch (IOException | JsonLdError e) {
+         throw new FormatException(e.getMessage());
+      }
+   }
+
+   @Override
+   public boolean validateContainer(String containerString) {
+      try {
+         return validateJson(containerString, getSchema(containerSchema, CONTAINER_SCHEMA_FILE));
+      } catch (IOException | JsonLdError e) {
+         throw new FormatException(e.getMessage());
+      }
+   }
+
+   @Override
+   public boolean isExpansionNeeded() {
+      return true;
+   }
+
+   @Override
+   public boolean validateAnnotation(List<Object> expandedJsonLd) {
+      try {
+         return validateExpanded(expandedJsonLd, getSchema(annotationSchema, ANNOTATION_SCHEMA_FILE));
+      } catch (IOException e) {
+         throw new FormatException(e.getMessage());
+      }
+   }
+
+   @Override
+   public boolean validateContainer(List<Object> expandedJsonLd) {
+      try {
+         return validateExpanded(expandedJsonLd, getSchema(containerSchema, CONTAINER_SCHEMA_FILE));
+      } catch (IOException e) {
+         throw new FormatException(e.getMessage());
+      }
+   }
+
+   @Override
+   public Format getFormat() {
+      return Format.JSON_LD;
+   }
+
+   @Override
+   public abstract String getEngine();
+
+   /**
+    * Compiles the schema in the given file
+    *
+    * @param  file
+    *                     The schema file
+    * @return             The compiled schema
+    * @throws IOException
+    *                     If the schema cannot be read or compiled
+    */
+   protected abstract S compileSchema(File file) throws IOException;
+
+   /**
+    * Validates expanded JSON-LD to the given schema. The input is not changed.
+    *
+    * @param  expandedJson
+    *                      The expanded JSON-LD
+    * @param  schema
+    *                      The schema to use
+    * @return              true if valid, false will not occur, an exception is thrown
+    * @throws IOException
+    *                      If not valid, the message contains the errors
+    */
+   protected abstract boolean validateExpanded(List<Object> expandedJson, S schema) throws IOException;
+
+   /**
+    * Validates a given string to the given schema
+    *
+    * @param  jsonStr
+    *                     The string to validate
+    * @param  schema
+    *                     The schema to use
+    * @return             true if valid, false will not occur, an exception is thrown
+    * @throws IOException
+    *                     On I/O errors or if not valid
+    * @throws JsonLdError
+    *                     When JSON-LD has errors
+    */
+   private boolean validateJson(String jsonStr, S schema) throws IOException, JsonLdError {
+      Object jsonObj = JsonUtils.fromString(jsonStr);
+      return validateExpanded(JsonLdProcessor.expand(jsonObj), schema);
+   }
+
+   /**
+    * Gets the compiled schema of the given file in the schema folder. It is compiled on first use and again whenever
+    * the file has been modified or the schema folder has been changed in the configuration since.
+    *
+    * @param  compiledSchema
+    *                        The reference holding the compiled schema
+    * @param  fileName
+    *                        The file name of the schema
+    * @return                The compiled schema
+    * @throws IOException
+    *                        If the schema cannot be read or compiled
+    */
+   private S getSchema(AtomicReference<SchemaFile<S>> compiledSchema, String fileName) throws IOException {
+      final File file = new File(config.getJsonLdValidatorSchemaFolder(), fileName).getAbsoluteFile();
+      SchemaFile<S> current = compiledSchema.get();
+      if (current != null && current.isCompiledFrom(file)) {
+         return current.schema;
+      }
+      synchronized (compiledSchema) {
+         // Another thread may have compiled it meanwhile
+         current = compiledSchema.get();
+         if (current != null && current.isCompiledFrom(file)) {
+            return current.schema;
+         }
+         final long lastModified = file.lastModified();
+         current = new SchemaFile<>(file, lastModified, compileSchema(file));
+         compiledSchema.set(current);
+         LoggerFactory.getLogger(getClass()).info("Compiled JSON schema " + file + " with " + getEngine());
+         return current.schema;
+      }
+   }
+
+   /**
+    * A compiled schema together with the file it has been compiled from
+    *
+    * @param <S>
+    *            The type of the compiled schema
+    */
+   private static final class SchemaFile<S> {
+      /**
+       * The schema file
+       */
+      private final File file;
+      /**
+       * The modification time of the file when it was read
+       */
+      private final long lastModified;
+      /**
+       * The compiled schema
+       */
+      private final S schema;
+
+      /**
+       * Creates a new compiled schema
+       *
+       * @param file
+       *                     The schema file
+       * @param lastModified
+       *                     The modification time of the file when it was read
+       * @param schema
+       *                     The compiled schema
+       */
+      private SchemaFile(File file, long lastModified, S schema) {
+         this.file = file;
+         this.lastModified = lastModified;
+         this.schema = schema;
+      }
+
+      /**
+       * Checks whether the schema has been compiled from the current content of the given file
+       *
+       * @param  file
+       *              The schema file
+       * @return      true if the schema is up to date
+       */
+      private boolean isCompiledFrom(File file) {
+         return this.file.equals(file) && lastModified == file.lastModified();
+      }
+   }
+}
@@ -0,0 +1,125 @@
+package edu.kit.scc.dem.wapsrv.model.validators;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.jsonldjava.utils.JsonUtils;
+import com.networknt.schema.ExecutionContext;
+import com.networknt.schema.Format;
+import com.networknt.schema.JsonMetaSchema;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaException;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SchemaValidatorsConfig;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import com.networknt.schema.regex.JoniRegularExpressionFactory;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+
+/**
+ * Implements a input validator for JSON-LD that validates against the WADM schema with the networknt
+ * json-schema-validator library. It is used if configured, see {@link WapServerConfig#getJsonLdValidationEngine()}.
+ * <p>
+ * The schemas are read as draft v4, like the default engine does for schemas without $schema. Regular expressions
+ * are evaluated with the ECMA 262 semantics the JSON schema specification requires. The uri format accepts URI
+ * references like the default engine does, the library would only accept absolute URIs.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+@Component
+public class NetworkntJsonLdValidator extends AbstractJsonLdValidator<JsonSchema> {
+   /**
+    * The name of the engine in the configuration
+    */
+   public static final String ENGINE = "networknt";
+   /**
+    * The factory compiling the schemas
+    */
+   private static final JsonSchemaFactory SCHEMA_FACTORY = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V4,
+         builder -> builder.metaSchema(JsonMetaSchema.builder(JsonMetaSchema.getV4()).format(new UriFormat()).build()));
+   /**
+    * The options of the compiled schemas, format is asserted like by the default engine
+    */
+   private static final SchemaValidatorsConfig SCHEMA_CONFIG = SchemaValidatorsConfig.builder()
+         .regularExpressionFactory(JoniRegularExpressionFactory.getInstance()).formatAssertionsEnabled(true).build();
+   /**
+    * Reads the schemas and converts expanded JSON-LD into the tree validated by the library
+    */
+   private static final ObjectMapper MAPPER = new ObjectMapper();
+
+   /**
+    * Sets the WapServerConfig to use
+    *
+    * @param config
+    *               The config to use
+    */
+   @Autowired
+   public NetworkntJsonLdValidator(WapServerConfig config) {
+      super(config);
+   }
+
+   @Override
+   public String getEngine() {
+      return ENGINE;
+   }
+
+   @Override
+   protected JsonSchema compileSchema(File file) throws IOException {
+      try {
+         return SCHEMA_FACTORY.getSchema(MAPPER.readTree(file), SCHEMA_CONFIG);
+      } catch (JsonSchemaException e) {
+         throw new IOException(e.getMessage(), e);
+      }
+   }
+
+   @Override
+   protected boolean validateExpanded(List<Object> expandedJson, JsonSchema schema) throws IOException {
+      Set<ValidationMessage> messages = schema.validate(MAPPER.valueToTree(expandedJson));
+      if (messages.isEmpty()) {
+         return true;
+      }
+      ArrayNode jsonArray = JsonNodeFactory.instance.arrayNode();
+      for (ValidationMessage message : messages) {
+         ObjectNode error = jsonArray.addObject();
+         error.put("keyword", message.getType());
+         error.put("schema", message.getSchemaLocation().toString());
+         error.put("instance", message.getInstanceLocation().toString());
+         error.put("message", message.getMessage());
+      }
+      throw new IOException(JsonUtils.toPrettyString(jsonArray));
+   }
+
+   /**
+    * The uri format as checked by the default engine, any string {@link URI} can parse matches
+    */
+   private static final class UriFormat implements Format {
+      @Override
+      public String getName() {
+         return "uri";
+      }
+
+      @Override
+      public boolean matches(ExecutionContext executionContext, String value) {
+         try {
+            new URI(value);
+            return true;
+         } catch (URISyntaxException e) {
+            return false;
+         }
+      }
+   }
+}
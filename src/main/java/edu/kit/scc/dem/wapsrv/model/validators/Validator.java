@@ -1,5 +1,9 @@
 package edu.kit.scc.dem.wapsrv.model.validators;
 
+import java.io.IOException;
+import java.util.List;
+import com.github.jsonldjava.utils.JsonUtils;
+import edu.kit.scc.dem.wapsrv.exceptions.FormatException;
 import edu.kit.scc.dem.wapsrv.model.formats.Format;
 
 /**
@@ -7,7 +11,8 @@ import edu.kit.scc.dem.wapsrv.model.formats.Format;
  * An implementation is required if Annotation Validation is activated and annotations should support PUT/POST with the
  * implemented format.
  * <p>
- * Implementing subclasses must use at (at)Component annotation of Spring, otherwise they are not registered.
+ * Implementing subclasses must use at (at)Component annotation of Spring, otherwise they are not registered. The
+ * single instance created by Spring is used for all requests, implementations therefore have to be thread safe.
  * 
  * @author  Matthias Dressel
  * @author  Michael Hitzker
@@ -36,6 +41,60 @@ public interface Validator {
     */
    boolean validateContainer(String containerString);
 
+   /**
+    * Checks whether the validator works on the expanded form of JSON-LD. Such validators expand strings before
+    * validating them, input that has been expanded already should be given to
+    * {@link #validateAnnotation(List)} and {@link #validateContainer(List)} instead, so it is expanded only once.
+    * 
+    * @return true if the validator validates expanded JSON-LD
+    */
+   default boolean isExpansionNeeded() {
+      return false;
+   }
+
+   /**
+    * Validates an annotation in expanded JSON-LD against the Web Annotation Data Model - Schema. The input is not
+    * changed. By default it is serialized and given to {@link #validateAnnotation(String)}.
+    * 
+    * @param  expandedJsonLd
+    *                        The expanded JSON-LD of the annotation
+    * @return                True if a valid annotation, false otherwise
+    */
+   default boolean validateAnnotation(List<Object> expandedJsonLd) {
+      try {
+         return validateAnnotation(JsonUtils.toString(expandedJsonLd));
+      } catch (IOException e) {
+         throw new FormatException(e.getMessage());
+      }
+   }
+
+   /**
+    * Validates a container in expanded JSON-LD against the Web Annotation Data Model - Schema. The input is not
+    * changed. By default it is serialized and given to {@link #validateContainer(String)}.
+    * 
+    * @param  expandedJsonLd
+    *                        The expanded JSON-LD of the container
+    * @return                True if a valid AnnotationCollection, false otherwise
+    */
+   default boolean validateContainer(List<Object> expandedJsonLd) {
+      try {
+         return validateContainer(JsonUtils.toString(expandedJsonLd));
+      } catch (IOException e) {
+         throw new FormatException(e.getMessage());
+      }
+   }
+
+   /**
+    * Gets the name of the engine the validator uses. Several validators of the same format are told apart by their
+    * engines, the registry then uses the one configured. So far this is only supported for JSON-LD, see
+    * {@link edu.kit.scc.dem.wapsrv.app.WapServerConfig#getJsonLdValidationEngine()}.
+    * 
+    * @return The name of the engine, null if the validator is the only one of its format
+    */
+   default String getEngine() {
+      return null;
+   }
+
    /**
     * Gets the implemented format
     * 
@@ -1,12 +1,10 @@
 package edu.kit.scc.dem.wapsrv.model.validators;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -18,6 +16,12 @@ import edu.kit.scc.dem.wapsrv.model.formats.Format;
  * This is the registry for existing input validators.<br>
  * As long as the implemented validators use the (at)Component annotation of Spring, they are automatically registered
  * for usage here. The class is final so no subclasses can exist. A single instance is needed.
+ * <p>
+ * The validators are the singletons created by Spring. They are shared by all requests and therefore have to be
+ * thread safe.
+ * <p>
+ * There may be several JSON-LD validators using different engines, the one configured is used, see
+ * {@link WapServerConfig#getJsonLdValidationEngine()}.
  * 
  * @author  Matthias Dressel
  * @author  Michael Hitzker
@@ -35,17 +39,15 @@ public final class ValidatorRegistry {
    /**
     * Map of registered validators for given formats
     */
-   private final Map<Format, Class<? extends Validator>> format2Validator
-         = new Hashtable<Format, Class<? extends Validator>>();
+   private final Map<Format, Validator> format2Validator = new Hashtable<Format, Validator>();
    /**
-    * The logger to use
+    * Map of registered JSON-LD validators for their engines
     */
-   private final Logger logger = LoggerFactory.getLogger(ValidatorRegistry.class);
+   private final Map<String, Validator> engine2JsonLdValidator = new Hashtable<String, Validator>();
    /**
-    * The application configuration
+    * The configuration choosing the JSON-LD validation engine
     */
-   @Autowired
-   private WapServerConfig wapServerConfig;
+   private WapServerConfig config;
 
    /**
     * The constructor
@@ -70,9 +72,12 @@ public final class ValidatorRegistry {
     * 
     * @param validators
     *                   The found validators to register
+    * @param config
+    *                   The configuration choosing the JSON-LD validation engine
     */
    @Autowired
-   private void registerFormatters(List<Validator> validators) {
+   private void registerFormatters(List<Validator> validators, WapServerConfig config) {
+      this.config = config;
       for (Validator validator : validators) {
          registerValidator(validator);
       }
@@ -85,7 +90,13 @@ public final class ValidatorRegistry {
     *                  The validator to register
     */
    private void registerValidator(Validator validator) {
-      format2Validator.put(validator.getFormat(), validator.getClass());
+      if (validator.getFormat() == Format.JSON_LD && validator.getEngine() != null) {
+         engine2JsonLdValidator.put(validator.getEngine(), validator);
+         LoggerFactory.getLogger(getClass()).info("New validator registered : " + validator.getClass().getName()
+               + " for format : " + validator.getFormat() + " with engine : " + validator.getEngine());
+         return;
+      }
+      format2Validator.put(validator.getFormat(), validator);
       LoggerFactory.getLogger(getClass()).info(
             "New validator registered : " + validator.getClass().getName() + " for format : " + validator.getFormat());
    }
@@ -96,7 +107,11 @@ public final class ValidatorRegistry {
     * @return The registered formats
     */
    public Set<Format> getSupportedFormats() {
-      return format2Validator.keySet();
+      final Set<Format> formats = new HashSet<Format>(format2Validator.keySet());
+      if (!engine2JsonLdValidator.isEmpty()) {
+         formats.add(Format.JSON_LD);
+      }
+      return formats;
    }
 
    /**
@@ -107,34 +122,28 @@ public final class ValidatorRegistry {
     * @return        The validator implementing it, may be null
     */
    public Validator getValidator(Format format) {
-      Class<? extends Validator> validatorClass = format2Validator.get(format);
-      if (validatorClass == null) {
-         return null;
+      return getValidator(format, config.getJsonLdValidationEngine());
+   }
+
+   /**
+    * Gets a validator implementing a given format. For JSON-LD the one using the given engine is returned.
+    * 
+    * @param  format
+    *                                 The format
+    * @param  jsonLdEngine
+    *                                 The JSON-LD validation engine
+    * @return                         The validator implementing it, may be null
+    * @throws InternalServerException
+    *                                 If there are JSON-LD validators, but none using the engine
+    */
+   Validator getValidator(Format format, String jsonLdEngine) {
+      if (format != Format.JSON_LD || engine2JsonLdValidator.isEmpty()) {
+         return format2Validator.get(format);
       }
-      try {
-         // First check for the existence of an empty constructor
-         try {
-            Constructor<?> emptyConstructor = validatorClass.getConstructor(new Class<?>[] {});
-            Validator newInstance = (Validator) emptyConstructor.newInstance();
-            logger.info("Instantiated validator using the empty constructor");
-            return newInstance;
-         } catch (NoSuchMethodException e) {
-            // Empty constructor not found
-         }
-         // Look for one that needs the servers configuration
-         try {
-            Constructor<?> configConstructor = validatorClass.getConstructor(new Class<?>[] {WapServerConfig.class});
-            Validator newInstance = (Validator) configConstructor.newInstance(wapServerConfig);
-            logger.info("Instantiated validator using the WapServerConfig");
-            return newInstance;
-         } catch (NoSuchMethodException ex) {
-            // This one does not exist, too.
-         }
-         // Until additional types of constructors are implemented throw an exception
-         throw new InternalServerException("No usable constructor found for validator of format " + format);
-      } catch (SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException
-            | InvocationTargetException e) {
-         throw new InternalServerException(e.getMessage());
+      final Validator validator = engine2JsonLdValidator.get(jsonLdEngine);
+      if (validator == null) {
+         throw new InternalServerException("JSON-LD validation engine " + jsonLdEngine + " not instantiated");
       }
+      return validator;
    }
 }
@@ -1,6 +1,7 @@
 package edu.kit.scc.dem.wapsrv.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Interface to interact with the container repository
@@ -40,6 +41,21 @@ public interface ContainerRepository extends WapObjectRepository {
     */
    List<String> getAllObjectIrisOfSeq(String modelIri, String seqIri);
 
+   /**
+    * Streams all object iris of rdf:seq in sequence order. Implementations may read the sequence in batches while the
+    * stream is consumed, so large sequences are never held in memory as a whole. The sequence must not be changed
+    * before the stream has been consumed.
+    *
+    * @param  modelIri
+    *                  the graph/model iri
+    * @param  seqIri
+    *                  the sequence iri
+    * @return          a Stream of all the object iris of rdf:seq
+    */
+   default Stream<String> streamAllObjectIrisOfSeq(String modelIri, String seqIri) {
+      return getAllObjectIrisOfSeq(modelIri, seqIri).stream();
+   }
+
    /**
     * Removes all elements from the RDF:Seq for the given IRI
     *
@@ -1,7 +1,7 @@
 package edu.kit.scc.dem.wapsrv.repository;
 
 import org.apache.commons.rdf.api.Dataset;
-import edu.kit.scc.dem.wapsrv.exceptions.WapException;
+import edu.kit.scc.dem.wapsrv.exceptions.TransactionConflictException;
 import edu.kit.scc.dem.wapsrv.model.rdf.RdfTransactionExecuter;
 
 /**
@@ -24,7 +24,11 @@ public interface TransactionRepository{
     /**
      * Writing
      */
-    Write
+    Write,
+    /**
+     * Reading, promoted to writing by the first nested write transaction
+     */
+    ReadPromote
   }
 
   /**
@@ -55,25 +59,59 @@ public interface TransactionRepository{
   }
 
   /**
-   * Do RDF transaction.
+   * Perform a transaction that reads first and may write afterwards. The
+   * transaction is promoted to a write transaction by the first nested call to
+   * {@link #writeRdfTransaction(RdfTransactionExecuter)}, so checks done before
+   * still hold while writing. If a concurrent write committed in between, the
+   * whole transaction is repeated as a write transaction. The transaction
+   * function is a lambda expression: (Dataset) -&gt; {function;}
    *
-   * @param type The type
-   * @param transaction The transaction
+   * @param transaction the transaction function
    */
-  default void doRdfTransaction(TransactionRepository.Type type, RdfTransactionExecuter transaction){
-    //starting transaction synchronized in order to avoid duplicate transactions to be opened
-    synchronized(this){
-      boolean wasOpend = beginTransaction(type);
-      try{
-        transaction.execute(getTransactionDataset());
-      } catch(WapException e){
-        abortTransaction();
+  default void readPromoteRdfTransaction(RdfTransactionExecuter transaction){
+    final boolean isOutermost = getTransactionType() == null;
+    try{
+      doRdfTransaction(TransactionRepository.Type.ReadPromote, transaction);
+    } catch(TransactionConflictException e){
+      if(!isOutermost){
+        // only the outermost transaction can be repeated
         throw e;
       }
+      doRdfTransaction(TransactionRepository.Type.Write, transaction);
+    }
+  }
 
-      //end transaction only if not aborted before as abort should take care of closing the dataset
-      endTransaction(wasOpend);
+  /**
+   * Do RDF transaction. Transactions are bound to the calling thread, a call
+   * inside an already active transaction joins it. Concurrency control is left
+   * to the implementations of {@link #beginTransaction(Type)}, which may allow
+   * several read transactions in parallel.
+   *
+   * @param type The type
+   * @param transaction The transaction
+   */
+  default void doRdfTransaction(TransactionRepository.Type type, RdfTransactionExecuter transaction){
+    boolean wasOpend = beginTransaction(type);
+    try{
+      transaction.execute(getTransactionDataset());
+    } catch(RuntimeException e){
+      // WapExceptions included, never leave a transaction (and a write lock) behind on the thread
+      abortTransaction();
+      throw e;
     }
+
+    //end transaction only if not aborted before as abort should take care of closing the dataset
+    endTransaction(wasOpend);
+  }
+
+  /**
+   * Gets the type of the transaction context of the calling thread. A promoted
+   * transaction has the type {@link Type#Write}.
+   *
+   * @return The type, null if the thread is not in a transaction
+   */
+  default TransactionRepository.Type getTransactionType(){
+    return null;
   }
 
   /**
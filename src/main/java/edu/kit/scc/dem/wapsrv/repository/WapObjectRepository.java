@@ -1,8 +1,15 @@
 package edu.kit.scc.dem.wapsrv.repository;
 
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.Types;
+import edu.kit.scc.dem.wapsrv.exceptions.NotExistentException;
+import edu.kit.scc.dem.wapsrv.exceptions.ResourceDeletedException;
 import edu.kit.scc.dem.wapsrv.model.WapObject;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.WapVocab;
 
 /**
  * Provides the functions for all the necessary operations in the database that could not have been handled in RDF. The
@@ -29,6 +36,22 @@ public interface WapObjectRepository extends TransactionRepository {
     */
    void addElementToRdfSeq(String modelIri, String seqIri, String objIri);
 
+   /**
+    * Adds several elements to rdf:seq, in the given order.
+    *
+    * @param modelIri
+    *                 the graph/model IRI
+    * @param seqIri
+    *                 the sequence IRI
+    * @param objIris
+    *                 the IRIs of the objects to be put into the rdf:seq
+    */
+   default void addElementsToRdfSeq(String modelIri, String seqIri, List<String> objIris) {
+      for (String objIri : objIris) {
+         addElementToRdfSeq(modelIri, seqIri, objIri);
+      }
+   }
+
    /**
     * Removes the element from rdf:seq.
     *
@@ -75,4 +98,94 @@ public interface WapObjectRepository extends TransactionRepository {
     * @return     the WapObject
     */
    Dataset getWapObject(String iri);
+
+   /**
+    * Gets a read only view of the WapObject in the Database. Unlike {@link #getWapObject(String)} the data is not
+    * copied. The view is only valid until the end of the current transaction and must not be used afterwards. Changes
+    * to the view are kept in memory and never reach the database.
+    *
+    * @param  iri
+    *             the IRI of the WapObject to read
+    * @return     the view on the WapObject
+    */
+   default Dataset getWapObjectView(String iri) {
+      return getWapObject(iri);
+   }
+
+   /**
+    * Gets several WapObjects from the database in one pass. Every object is checked to exist and not to be deleted,
+    * then read like by {@link #getWapObjectView(String)}. It has to be called inside a transaction and the returned data
+    * sets must not be used after the transaction ended.
+    *
+    * @param  iris
+    *                                  the IRIs of the WapObjects to read
+    * @return                          the WapObjects in the order of the IRIs
+    * @throws NotExistentException
+    *                                  if one of the WapObjects does not exist
+    * @throws ResourceDeletedException
+    *                                  if one of the WapObjects is marked as deleted
+    */
+   default List<Dataset> getWapObjects(List<String> iris) {
+      List<Dataset> wapObjects = new ArrayList<>(iris.size());
+      readRdfTransaction(ds -> {
+         for (String iri : iris) {
+            String typeString = iri.endsWith("/") ? "container" : "annotation";
+            if (!containsWapObject(iri)) {
+               throw new NotExistentException("The requested " + typeString + " does not exist.");
+            }
+            if (isWapObjectDeleted(iri)) {
+               throw new ResourceDeletedException("The requested " + typeString + " has already been deleted.");
+            }
+            wapObjects.add(getWapObjectView(iri));
+         }
+      });
+      return wapObjects;
+   }
+
+   /**
+    * Checks whether the database contains the WapObject, deleted or not. Implementations may answer from an index
+    * without reading the database.
+    *
+    * @param  iri
+    *             the IRI of the WapObject
+    * @return     true if the WapObject exists
+    */
+   default boolean containsWapObject(String iri) {
+      boolean[] result = new boolean[1];
+      BlankNodeOrIRI node = getRdf().createIRI(iri);
+      readRdfTransaction(ds -> {
+         result[0] = ds.getGraph(node).get().contains(node, null, null);
+      });
+      return result[0];
+   }
+
+   /**
+    * Checks whether the WapObject is marked as deleted. Implementations may answer from an index without reading the
+    * database.
+    *
+    * @param  iri
+    *             the IRI of the WapObject
+    * @return     true if the WapObject is marked as deleted
+    */
+   default boolean isWapObjectDeleted(String iri) {
+      boolean[] result = new boolean[1];
+      BlankNodeOrIRI node = getRdf().createIRI(iri);
+      readRdfTransaction(ds -> {
+         result[0] = ds.getGraph(node).get().contains(node, WapVocab.deleted, null);
+      });
+      return result[0];
+   }
+
+   /**
+    * Marks the WapObject as deleted. The data of the WapObject is kept.
+    *
+    * @param iri
+    *            the IRI of the WapObject
+    */
+   default void markWapObjectDeleted(String iri) {
+      BlankNodeOrIRI node = getRdf().createIRI(iri);
+      writeRdfTransaction(ds -> {
+         ds.add(node, node, WapVocab.deleted, getRdf().createLiteral("true", Types.XSD_BOOLEAN));
+      });
+   }
 }
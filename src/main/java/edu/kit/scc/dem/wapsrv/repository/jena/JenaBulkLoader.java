@@ -0,0 +1,364 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.jena.commonsrdf.impl.JenaDataset;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.apache.jena.tdb2.loader.base.LoaderOps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import edu.kit.scc.dem.wapsrv.app.EtagFactory;
+import edu.kit.scc.dem.wapsrv.exceptions.InvalidContainerException;
+import edu.kit.scc.dem.wapsrv.exceptions.InvalidRequestException;
+import edu.kit.scc.dem.wapsrv.exceptions.MethodNotAllowedException;
+import edu.kit.scc.dem.wapsrv.exceptions.NotAnAnnotationException;
+import edu.kit.scc.dem.wapsrv.exceptions.ResourceExistsException;
+import edu.kit.scc.dem.wapsrv.exceptions.WapException;
+import edu.kit.scc.dem.wapsrv.model.Annotation;
+import edu.kit.scc.dem.wapsrv.model.Container;
+import edu.kit.scc.dem.wapsrv.model.WapObject;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfAnnotation;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfBackend;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfContainer;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfUtilities;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.AnnoVocab;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.DcTermsVocab;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.RdfVocab;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.WapVocab;
+
+/**
+ * Fills an empty TDB2 database with a dump while the server is offline. All quads go through the parallel bulk loader
+ * of TDB2 instead of one transaction per object.
+ * <p>
+ * Two kinds of dumps are supported:
+ * <ul>
+ * <li>N-Quads, e.g. a backup of the database. They are expected to be in the layout of {@link JenaRepository} already
+ * and are loaded as they are. Annotation sequences still stored as rdf:Seq are migrated on the next start.</li>
+ * <li>NDJSON, one JSON-LD annotation or container per line with the IRI it has on this server. Every object gets its
+ * own named graph with an ETag and a modified date, containers get a label if they have none. Objects are appended to
+ * the sequences of their parent container in the order of the lines, the root container is created like in
+ * {@link JenaDataBase#init(String, String)}. Lines are parsed in parallel, lines that cannot be loaded are logged and
+ * skipped. As on POST, annotations cannot be stored in the root container. Schema validation is not done.</li>
+ * </ul>
+ * The database has to be empty, the sequences are written without reading existing ones.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public class JenaBulkLoader {
+   /**
+    * The number of NDJSON lines parsed in parallel before they are written in order
+    */
+   private static final int PARSE_BATCH_SIZE = 10000;
+   private final Logger log = LoggerFactory.getLogger(this.getClass());
+   /**
+    * The path of the database
+    */
+   private final String dataBasePath;
+   /**
+    * The IRI of the root container
+    */
+   private final String rootContainerIri;
+   /**
+    * Creates the ETags of the loaded objects
+    */
+   private final EtagFactory etagFactory = new EtagFactory();
+
+   /**
+    * Creates a new bulk loader for the database at the given path
+    *
+    * @param dataBasePath
+    *                         The path of the database, created if it does not exist
+    * @param rootContainerIri
+    *                         The IRI of the root container
+    */
+   public JenaBulkLoader(String dataBasePath, String rootContainerIri) {
+      this.dataBasePath = dataBasePath;
+      this.rootContainerIri = rootContainerIri;
+   }
+
+   /**
+    * Checks whether the given file is an N-Quads dump, judged by its name
+    *
+    * @param  file
+    *              The file name
+    * @return      true if N-Quads, otherwise the file is treated as NDJSON
+    */
+   public static boolean isNQuads(String file) {
+      return Lang.NQUADS.equals(RDFLanguages.filenameToLang(file));
+   }
+
+   /**
+    * Loads N-Quads dumps in the layout of the repository
+    *
+    * @param  files
+    *                     The files to load, compressed files are supported
+    * @return             The number of quads loaded
+    * @throws IOException
+    *                     if the database is not empty
+    */
+   public long loadNQuads(List<String> files) throws IOException {
+      DatasetGraph dsg = connectEmptyDataBase();
+      DataLoader loader = LoaderFactory.parallelLoader(dsg, LoaderOps.outputToLog());
+      loader.startBulk();
+      try {
+         loader.load(files);
+         loader.finishBulk();
+      } catch (RuntimeException e) {
+         loader.finishException(e);
+         throw e;
+      } finally {
+         dsg.close();
+      }
+      log.info("Loaded {} quads.", loader.countQuads());
+      return loader.countQuads();
+   }
+
+   /**
+    * Loads NDJSON dumps of annotations and containers
+    *
+    * @param  files
+    *                         The files to load
+    * @param  rdfBackend
+    *                         The RDF backend used to parse the objects
+    * @param  profileRegistry
+    *                         The profile registry used to expand the JSON-LD
+    * @return                 The number of objects loaded
+    * @throws IOException
+    *                         if the database is not empty or a file cannot be read
+    */
+   public long loadObjects(List<String> files, RdfBackend rdfBackend, JsonLdProfileRegistry profileRegistry)
+         throws IOException {
+      DatasetGraph dsg = connectEmptyDataBase();
+      DataLoader loader = LoaderFactory.parallelLoader(dsg, LoaderOps.outputToLog());
+      loader.startBulk();
+      try {
+         StreamRDF output = loader.stream();
+         output.start();
+         ObjectWriter writer = new ObjectWriter(output, rdfBackend.getRdf());
+         writer.writeRoot();
+         for (String file : files) {
+            try (BufferedReader lines = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+               loadObjects(file, lines, writer, rdfBackend, profileRegistry);
+            }
+         }
+         writer.finish();
+         output.finish();
+         loader.finishBulk();
+         log.info("Loaded {} objects, {} lines failed.", writer.written, writer.failed);
+         return writer.written;
+      } catch (IOException | RuntimeException e) {
+         loader.finishException(e);
+         throw e;
+      } finally {
+         dsg.close();
+      }
+   }
+
+   private void loadObjects(String file, BufferedReader lines, ObjectWriter writer, RdfBackend rdfBackend,
+         JsonLdProfileRegistry profileRegistry) throws IOException {
+      long lineNumber = 0;
+      List<String> batch = new ArrayList<>(PARSE_BATCH_SIZE);
+      List<Long> batchLines = new ArrayList<>(PARSE_BATCH_SIZE);
+      String line;
+      do {
+         line = lines.readLine();
+         if (line != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+               batch.add(line);
+               batchLines.add(lineNumber);
+            }
+         }
+         if (batch.size() >= PARSE_BATCH_SIZE || line == null && !batch.isEmpty()) {
+            // Parsing is the expensive part, the objects are written in the order of the lines afterwards
+            List<Object> parsed = IntStream.range(0, batch.size()).parallel().mapToObj(n -> {
+               try {
+                  return (Object) parse(batch.get(n), rdfBackend, profileRegistry);
+               } catch (WapException e) {
+                  return e;
+               }
+            }).collect(Collectors.toList());
+            for (int n = 0; n < parsed.size(); n++) {
+               try {
+                  if (parsed.get(n) instanceof WapException) {
+                     throw (WapException) parsed.get(n);
+                  }
+                  writer.write((WapObject) parsed.get(n));
+               } catch (WapException e) {
+                  log.warn("{}:{} not loaded : {}", file, batchLines.get(n), e.getMessage());
+                  writer.failed++;
+               }
+            }
+            batch.clear();
+            batchLines.clear();
+         }
+      } while (line != null);
+   }
+
+   /**
+    * Parses a line holding an annotation or a container
+    *
+    * @param  line
+    *                         The JSON-LD of the object
+    * @param  rdfBackend
+    *                         The RDF backend
+    * @param  profileRegistry
+    *                         The profile registry
+    * @return                 The object
+    * @throws WapException
+    *                         if the line holds no single annotation or container with an IRI
+    */
+   private static WapObject parse(String line, RdfBackend rdfBackend, JsonLdProfileRegistry profileRegistry)
+         throws WapException {
+      Dataset dataset = rdfBackend.readFromJsonLd(profileRegistry.expandJsonLdTree(line));
+      long annotations = dataset.getGraph().stream(null, RdfVocab.type, AnnoVocab.annotation).count();
+      if (annotations > 1) {
+         throw new NotAnAnnotationException("Exactly one annotation per line expected, found " + annotations);
+      }
+      if (annotations == 1) {
+         Annotation annotation = new RdfAnnotation(dataset, rdfBackend);
+         if (!(annotation.getIri() instanceof IRI)) {
+            throw new NotAnAnnotationException("The Annotation has no IRI.");
+         }
+         if (!annotation.hasTarget()) {
+            throw new NotAnAnnotationException("The Annotation has no Target.");
+         }
+         return annotation;
+      }
+      Container container = new RdfContainer(dataset, rdfBackend, null);
+      if (!(container.getIri() instanceof IRI) || !container.getIriString().endsWith("/")) {
+         throw new InvalidContainerException("The container IRI has to end with /");
+      }
+      if (container.getLabel() == null) {
+         container.createDefaultLabel();
+      }
+      return container;
+   }
+
+   private DatasetGraph connectEmptyDataBase() throws IOException {
+      DatasetGraph dsg = TDB2Factory.connectDataset(dataBasePath).asDatasetGraph();
+      dsg.begin(ReadWrite.READ);
+      try {
+         if (!dsg.isEmpty()) {
+            throw new IOException("The database " + dataBasePath + " is not empty, bulk loading needs an empty one");
+         }
+      } finally {
+         dsg.end();
+      }
+      return dsg;
+   }
+
+   /**
+    * Writes the objects, their sequence entries and the root container to the loader
+    */
+   private final class ObjectWriter {
+      private final StreamRDF output;
+      private final RDF rdf;
+      private final JenaSequenceIndex.Builder annotationSeqs;
+      /**
+       * The number of containers in the container sequence by container IRI
+       */
+      private final Map<String, Integer> containerSeqSizes = new HashMap<>();
+      /**
+       * The IRIs of all loaded objects, like in the object index of the repository
+       */
+      private final Set<String> loaded = new HashSet<>();
+      /**
+       * The containers objects have been appended to
+       */
+      private final Set<String> parents = new HashSet<>();
+      private long written = 0;
+      private long failed = 0;
+
+      private ObjectWriter(StreamRDF output, RDF rdf) {
+         this.output = output;
+         this.rdf = rdf;
+         this.annotationSeqs = new JenaSequenceIndex.Builder(output);
+      }
+
+      private void writeRoot() {
+         Node graph = NodeFactory.createURI(rootContainerIri);
+         JenaDataBase.createRootModel(rootContainerIri).getGraph().find()
+               .forEachRemaining(triple -> output.quad(Quad.create(graph, triple)));
+         loaded.add(rootContainerIri);
+      }
+
+      private void write(WapObject object) throws WapException {
+         final String iri = object.getIriString();
+         final boolean isContainer = object instanceof Container;
+         if (!iri.startsWith(rootContainerIri) || iri.equals(rootContainerIri)) {
+            throw new InvalidRequestException("The IRI " + iri + " is not below the root container");
+         }
+         final String parent = WapObject.getParentContainerIriString(iri);
+         if (!isContainer && parent.equals(rootContainerIri)) {
+            throw new MethodNotAllowedException("Post annotation to the root container not allowed");
+         }
+         if (!loaded.add(iri)) {
+            throw new ResourceExistsException("The IRI " + iri + " has already been loaded");
+         }
+         // ETag and modified as written by the services
+         BlankNodeOrIRI node = object.getIri();
+         Graph graph = object.getDataset().getGraph();
+         graph.remove(node, WapVocab.etag, null);
+         graph.add(node, WapVocab.etag, rdf.createLiteral(etagFactory.generateEtag()));
+         graph.remove(node, DcTermsVocab.modified, null);
+         graph.add(node, DcTermsVocab.modified, RdfUtilities.rdfLiteralFromCalendar(Calendar.getInstance(), rdf));
+         Node graphNode = NodeFactory.createURI(iri);
+         ((JenaDataset) object.getDataset()).getDataset().getDefaultGraph().find()
+               .forEachRemaining(triple -> output.quad(Quad.create(graphNode, triple)));
+         parents.add(parent);
+         written++;
+         if (isContainer) {
+            int index = containerSeqSizes.merge(parent, 1, Integer::sum);
+            output.quad(Quad.create(NodeFactory.createURI(parent),
+                  Triple.create(NodeFactory.createURI(Container.toContainerSeqIriString(parent)),
+                        org.apache.jena.vocabulary.RDF.li(index).asNode(), graphNode)));
+         } else {
+            annotationSeqs.append(parent, Container.toAnnotationSeqIriString(parent), iri);
+         }
+      }
+
+      private void finish() {
+         annotationSeqs.finish();
+         for (String parent : parents) {
+            if (!loaded.contains(parent)) {
+               log.warn("The container {} is not part of the dump, its objects cannot be reached", parent);
+            }
+         }
+      }
+   }
+}
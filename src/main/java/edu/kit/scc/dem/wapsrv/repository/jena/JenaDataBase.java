@@ -84,16 +84,7 @@ public class JenaDataBase {
             || contSeq == null || annoSeq == null || !root.hasProperty(etagProperty)
             || !root.hasProperty(modifiedProperty) || !root.hasProperty(labelProperty)) {
          // Initiate database
-         Model modelNew = ModelFactory.createDefaultModel();
-         modelNew.createResource(rootName, objectBasicContainer);
-         modelNew.createResource(rootName, objectOrderedCollection);
-         modelNew.createSeq(Container.toContainerSeqIriString(rootName));
-         modelNew.createSeq(Container.toAnnotationSeqIriString(rootName));
-         modelNew.addLiteral(root, etagProperty, modelNew.createLiteral("initial-root-etag"));
-         Literal datetime = modelNew.createTypedLiteral(Calendar.getInstance());
-         modelNew.addLiteral(root, modifiedProperty, datetime);
-         modelNew.addLiteral(root, labelProperty, modelNew.createLiteral("The Root Container"));
-         dataBase.replaceNamedModel(rootName, modelNew);
+         dataBase.replaceNamedModel(rootName, createRootModel(rootName));
          LoggerFactory.getLogger(getClass()).info(
                "******after init******* Triples # in DB: " + dataBase.getUnionModel().listStatements().toList().size());
          model.listStatements().forEachRemaining(s -> {
@@ -105,6 +96,29 @@ public class JenaDataBase {
       dataBase.end();
    }
 
+   /**
+    * Creates the model of a new root container, the named graph it is stored in has the same IRI
+    *
+    * @param  rootName
+    *                  The IRI of the root container
+    * @return          The model
+    */
+   static Model createRootModel(String rootName) {
+      Model modelNew = ModelFactory.createDefaultModel();
+      Resource root = modelNew.createResource(rootName, modelNew.getResource(LdpVocab.basicContainer.getIRIString()));
+      modelNew.add(root, modelNew.getProperty(RdfVocab.type.getIRIString()),
+            modelNew.getResource(AsVocab.orderedCollection.getIRIString()));
+      modelNew.createSeq(Container.toContainerSeqIriString(rootName));
+      modelNew.createSeq(Container.toAnnotationSeqIriString(rootName));
+      modelNew.addLiteral(root, modelNew.getProperty(WapVocab.etag.getIRIString()),
+            modelNew.createLiteral("initial-root-etag"));
+      Literal datetime = modelNew.createTypedLiteral(Calendar.getInstance());
+      modelNew.addLiteral(root, modelNew.getProperty(DcTermsVocab.modified.getIRIString()), datetime);
+      modelNew.addLiteral(root, modelNew.getProperty(RdfSchemaVocab.label.getIRIString()),
+            modelNew.createLiteral("The Root Container"));
+      return modelNew;
+   }
+
    /**
     * Gets the database dataset.
     *
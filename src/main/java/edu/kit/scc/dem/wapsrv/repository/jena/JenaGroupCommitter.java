@@ -0,0 +1,221 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import edu.kit.scc.dem.wapsrv.exceptions.InternalServerException;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfTransactionExecuter;
+import edu.kit.scc.dem.wapsrv.repository.TransactionRepository;
+
+/**
+ * Executes the write transactions of concurrent requests together in one TDB2 write transaction.
+ * <p>
+ * Every commit of a TDB2 write transaction syncs the journal to disk. With many small concurrent writes this dominates
+ * the time needed per write, and writers queue behind each other. The group committer collects the writes submitted
+ * within a short window, up to a maximum number of writes, and executes them one after the other in a single write
+ * transaction on its own thread.
+ * <p>
+ * Every write still gets its own result. The submitting thread waits until the transaction containing its write has
+ * been committed, so a write is as durable on return as with a transaction of its own. If a write fails, the shared
+ * transaction is aborted, the failure is handed to the submitter of that write and the other writes of the batch are
+ * executed again without it. TDB2 has no savepoints, so the changes of the other writes cannot be kept apart from those
+ * of the failed one.
+ * <p>
+ * Writes submitted here therefore have to be repeatable. A repeated write sees the dataset as it was before its first
+ * execution, changes of the database and of the object index are rolled back with the aborted transaction. Anything
+ * else a write changes is not, so a write has to reset such state when it starts, only set values it would set again
+ * anyway and must not consume input it cannot read a second time, like a stream.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public class JenaGroupCommitter {
+   private final Logger log = LoggerFactory.getLogger(this.getClass());
+   /**
+    * The repository the writes are executed on
+    */
+   private final TransactionRepository repository;
+   /**
+    * The time to wait for further writes after the first one of a batch arrived, in nanoseconds
+    */
+   private final long windowInNs;
+   /**
+    * The maximum number of writes in one transaction
+    */
+   private final int maxOperations;
+   /**
+    * The writes not yet taken by the committer thread
+    */
+   private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+   /**
+    * The thread executing the batches
+    */
+   private final Thread committer;
+   /**
+    * Set once the group committer is closed
+    */
+   private volatile boolean closed;
+
+   /**
+    * Creates a new group committer and starts its thread
+    *
+    * @param repository
+    *                      The repository to execute the writes on
+    * @param windowInMs
+    *                      The time to wait for further writes after the first one of a batch arrived
+    * @param maxOperations
+    *                      The maximum number of writes in one transaction
+    */
+   public JenaGroupCommitter(TransactionRepository repository, long windowInMs, int maxOperations) {
+      this.repository = repository;
+      this.windowInNs = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowInMs));
+      this.maxOperations = Math.max(1, maxOperations);
+      committer = new Thread(this::run, "jena-group-commit");
+      committer.setDaemon(true);
+      committer.start();
+   }
+
+   /**
+    * Executes the write transaction together with other concurrent ones. Returns once the transaction containing the
+    * write has been committed. Exceptions thrown by the write are rethrown. The write may be executed more than once
+    * and has to be repeatable, see the description of the class.
+    *
+    * @param transaction
+    *                    The transaction function
+    */
+   public void execute(RdfTransactionExecuter transaction) {
+      if (closed) {
+         throw new InternalServerException("The group committer has been closed");
+      }
+      PendingWrite write = new PendingWrite(transaction);
+      queue.add(write);
+      try {
+         write.result.join();
+      } catch (CompletionException e) {
+         Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         }
+         if (cause instanceof Error) {
+            throw (Error) cause;
+         }
+         throw e;
+      }
+   }
+
+   /**
+    * Stops the committer thread. Writes already taken into a batch are finished, writes still waiting fail.
+    */
+   public void close() {
+      closed = true;
+      committer.interrupt();
+      try {
+         committer.join(TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      PendingWrite write;
+      while ((write = queue.poll()) != null) {
+         write.result.completeExceptionally(new InternalServerException("The group committer has been closed"));
+      }
+   }
+
+   private void run() {
+      while (!closed) {
+         try {
+            commit(nextBatch());
+         } catch (InterruptedException e) {
+            // closed, the loop condition ends the thread
+         } catch (RuntimeException e) {
+            log.error("Group commit failed unexpectedly.", e);
+         }
+      }
+   }
+
+   private Deque<PendingWrite> nextBatch() throws InterruptedException {
+      Deque<PendingWrite> batch = new ArrayDeque<>();
+      batch.add(queue.take());
+      long deadline = System.nanoTime() + windowInNs;
+      while (batch.size() < maxOperations) {
+         long remaining = deadline - System.nanoTime();
+         PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+         if (next == null) {
+            break;
+         }
+         batch.add(next);
+      }
+      return batch;
+   }
+
+   /**
+    * Executes the batch in one transaction. A failing write aborts the transaction and is removed from the batch, the
+    * remaining writes are executed again in a new transaction.
+    *
+    * @param batch
+    *              The writes to execute
+    */
+   private void commit(Deque<PendingWrite> batch) {
+      while (!batch.isEmpty()) {
+         List<PendingWrite> executed = new ArrayList<>(batch.size());
+         PendingWrite failed = null;
+         boolean wasOpened;
+         try {
+            wasOpened = repository.beginTransaction(TransactionRepository.Type.Write);
+         } catch (RuntimeException | Error e) {
+            batch.forEach(write -> write.result.completeExceptionally(e));
+            throw e;
+         }
+         while (failed == null && !batch.isEmpty()) {
+            PendingWrite write = batch.poll();
+            try {
+               write.transaction.execute(repository.getTransactionDataset());
+               executed.add(write);
+            } catch (RuntimeException | Error e) {
+               write.result.completeExceptionally(e);
+               failed = write;
+            }
+         }
+         if (failed != null) {
+            repository.abortTransaction();
+            // execute the writes of this batch again, without the failed one
+            for (int i = executed.size() - 1; i >= 0; i--) {
+               batch.addFirst(executed.get(i));
+            }
+            log.debug("Write in group commit failed, repeating the {} other writes.", batch.size());
+            continue;
+         }
+         try {
+            repository.endTransaction(wasOpened);
+         } catch (RuntimeException | Error e) {
+            executed.forEach(write -> write.result.completeExceptionally(e));
+            throw e;
+         }
+         log.trace("Group commit of {} writes.", executed.size());
+         executed.forEach(write -> write.result.complete(null));
+      }
+   }
+
+   /**
+    * A write waiting to be executed together with its result
+    */
+   private static class PendingWrite {
+      private final RdfTransactionExecuter transaction;
+      private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+      PendingWrite(RdfTransactionExecuter transaction) {
+         this.transaction = transaction;
+      }
+   }
+}
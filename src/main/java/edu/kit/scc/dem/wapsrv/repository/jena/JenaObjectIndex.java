@@ -0,0 +1,156 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.WapVocab;
+
+/**
+ * Keeps the IRIs of all existing and all deleted WapObjects in memory, so existence and tombstone checks need no access
+ * to the database.
+ * <p>
+ * The index is built from the database once and then kept up to date by the repository. Changes made inside a write
+ * transaction are recorded for the current thread only, they are visible to the thread at once and applied to the
+ * index once the transaction has been committed. An aborted transaction leaves the index untouched. Readers that began
+ * their transaction before a commit may therefore already see its changes in the index.
+ * <p>
+ * Only changes done through the repository are seen. Objects created or deleted through the SPARQL write endpoint are
+ * not known to the index until it is built again on the next start.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public class JenaObjectIndex implements JenaTransactionManager.TransactionListener {
+   private static final Node DELETED = NodeFactory.createURI(WapVocab.deleted.getIRIString());
+   private static final Node NEXT_KEY = NodeFactory.createURI(WapVocab.nextKey.getIRIString());
+   /**
+    * The IRIs of all objects in the database, including the deleted ones
+    */
+   private final Set<String> existing = ConcurrentHashMap.newKeySet();
+   /**
+    * The IRIs of the objects marked as deleted
+    */
+   private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+   /**
+    * The changes of the write transaction of the current thread, true for existing and false for deleted objects
+    */
+   private final ThreadLocal<Map<String, Boolean>> pending = new ThreadLocal<>();
+
+   /**
+    * Fills the index with the objects in the database. Has to be called inside a transaction.
+    *
+    * @param  dataBase
+    *                  The database
+    * @return          The number of objects indexed
+    */
+   public int build(Dataset dataBase) {
+      DatasetGraph dsg = dataBase.asDatasetGraph();
+      existing.clear();
+      deleted.clear();
+      Iterator<Node> graphNodes = dsg.listGraphNodes();
+      while (graphNodes.hasNext()) {
+         Node graphNode = graphNodes.next();
+         // Only graphs describing the object of the same IRI are objects, like the check in the services
+         // The graphs of the sequence index describe their sequence too, but are no objects
+         if (graphNode.isURI() && dsg.contains(graphNode, graphNode, Node.ANY, Node.ANY)
+               && !dsg.contains(graphNode, graphNode, NEXT_KEY, Node.ANY)) {
+            existing.add(graphNode.getURI());
+         }
+      }
+      Iterator<Quad> tombstones = dsg.find(Node.ANY, Node.ANY, DELETED, Node.ANY);
+      while (tombstones.hasNext()) {
+         Quad quad = tombstones.next();
+         if (quad.getSubject().isURI() && quad.getSubject().equals(quad.getGraph())) {
+            deleted.add(quad.getSubject().getURI());
+         }
+      }
+      return existing.size();
+   }
+
+   /**
+    * Checks whether the object exists in the database, deleted or not
+    *
+    * @param  iri
+    *             The IRI of the object
+    * @return     true if the object exists
+    */
+   public boolean contains(String iri) {
+      Map<String, Boolean> changes = pending.get();
+      if (changes != null && changes.containsKey(iri)) {
+         return true;
+      }
+      return existing.contains(iri);
+   }
+
+   /**
+    * Checks whether the object is marked as deleted
+    *
+    * @param  iri
+    *             The IRI of the object
+    * @return     true if the object is deleted
+    */
+   public boolean isDeleted(String iri) {
+      Map<String, Boolean> changes = pending.get();
+      if (changes != null && changes.containsKey(iri)) {
+         return !changes.get(iri);
+      }
+      return deleted.contains(iri);
+   }
+
+   /**
+    * Records that the object has been written by the current write transaction. A written object is not deleted.
+    *
+    * @param iri
+    *            The IRI of the object
+    */
+   public void written(String iri) {
+      changes().put(iri, Boolean.TRUE);
+   }
+
+   /**
+    * Records that the object has been marked as deleted by the current write transaction
+    *
+    * @param iri
+    *            The IRI of the object
+    */
+   public void markedDeleted(String iri) {
+      changes().put(iri, Boolean.FALSE);
+   }
+
+   @Override
+   public void transactionEnded(boolean committed) {
+      Map<String, Boolean> changes = pending.get();
+      pending.remove();
+      if (!committed || changes == null) {
+         return;
+      }
+      for (Map.Entry<String, Boolean> change : changes.entrySet()) {
+         existing.add(change.getKey());
+         if (change.getValue()) {
+            deleted.remove(change.getKey());
+         } else {
+            deleted.add(change.getKey());
+         }
+      }
+   }
+
+   private Map<String, Boolean> changes() {
+      Map<String, Boolean> changes = pending.get();
+      if (changes == null) {
+         changes = new HashMap<>();
+         pending.set(changes);
+      }
+      return changes;
+   }
+}
@@ -1,21 +1,37 @@
 package edu.kit.scc.dem.wapsrv.repository.jena;
 
 import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.RDF;
 import org.apache.jena.commonsrdf.JenaCommonsRDF;
 import org.apache.jena.commonsrdf.JenaRDF;
+import org.apache.jena.datatypes.TypeMapper;
 import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.irix.IRIException;
+import org.apache.jena.irix.IRIx;
 import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.riot.RiotException;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.sys.JenaSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import com.github.jsonldjava.core.JsonLdApi;
+import com.github.jsonldjava.core.JsonLdConsts;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.RDFDataset;
 import edu.kit.scc.dem.wapsrv.exceptions.FormatException;
 import edu.kit.scc.dem.wapsrv.exceptions.WapException;
 import edu.kit.scc.dem.wapsrv.model.formats.Format;
@@ -80,6 +96,22 @@ public class JenaRdfBackend implements RdfBackend {
       return writer.toString();
    }
 
+   @Override
+   public void writeOutput(Dataset dataset, Format format, OutputStream out) throws WapException {
+      Lang lang = JenaFormatMapper.map(format);
+      if (lang == null) {
+         throw new FormatException("Format " + format + " not supported in jena RDF backend");
+      }
+      Graph graph = JenaCommonsRDF.toJena(dataset.getGraph());
+      // Same output as getOutput, but the writers of jena write UTF-8 straight to the stream
+      if (format == Format.JSON_LD) {
+         RDFDataMgr.write(out, graph, RDFFormat.JSONLD_PRETTY);
+      } else {
+         RDFDataMgr.write(out, graph, lang);
+      }
+      // RDFDataMgr flushes, but does not close the stream
+   }
+
    @Override
    public Dataset readFromString(String serialization, final Format format) throws WapException {
       Lang lang = JenaFormatMapper.map(format);
@@ -100,6 +132,69 @@ public class JenaRdfBackend implements RdfBackend {
       return JenaCommonsRDF.fromJena(datasetGraph);
    }
 
+   @Override
+   public Dataset readFromJsonLd(List<Object> expandedJsonLd) throws WapException {
+      final RDFDataset rdfDataset;
+      try {
+         // JsonLdProcessor.toRDF would expand the input once more
+         rdfDataset = new JsonLdApi(expandedJsonLd, new JsonLdOptions()).toRDF();
+      } catch (JsonLdError e) {
+         throw new FormatException(e.getMessage(), e);
+      }
+      DatasetGraph datasetGraph = DatasetFactory.create().asDatasetGraph();
+      // Blank node labels are only unique inside the document, like the parser every label gets a new node
+      Map<String, Node> blankNodes = new HashMap<>();
+      for (String graphName : rdfDataset.graphNames()) {
+         Node graph = JsonLdConsts.DEFAULT.equals(graphName) ? Quad.defaultGraphIRI : toNode(graphName, blankNodes);
+         for (RDFDataset.Quad quad : rdfDataset.getQuads(graphName)) {
+            Node subject = toNode(quad.getSubject(), blankNodes);
+            Node predicate = toNode(quad.getPredicate(), blankNodes);
+            Node object = toNode(quad.getObject(), blankNodes);
+            // Like the parser, statements with relative IRIs are dropped
+            if (graph != null && subject != null && predicate != null && object != null) {
+               datasetGraph.add(graph, subject, predicate, object);
+            }
+         }
+      }
+      return JenaCommonsRDF.fromJena(datasetGraph);
+   }
+
+   /**
+    * Converts a node of the JSON-LD processor into a Jena node
+    * 
+    * @param  node
+    *                      The node
+    * @param  blankNodes
+    *                      The blank nodes created for the labels of the document so far
+    * @return              The Jena node, null for a relative IRI
+    * @throws FormatException
+    *                      If an IRI is not valid
+    */
+   private static Node toNode(RDFDataset.Node node, Map<String, Node> blankNodes) throws FormatException {
+      if (!node.isLiteral()) {
+         return toNode(node.getValue(), blankNodes);
+      }
+      if (node.getLanguage() != null) {
+         return NodeFactory.createLiteralLang(node.getValue(), node.getLanguage());
+      }
+      return NodeFactory.createLiteralDT(node.getValue(), TypeMapper.getInstance().getSafeTypeByName(node.getDatatype()));
+   }
+
+   private static Node toNode(String id, Map<String, Node> blankNodes) throws FormatException {
+      if (id.startsWith("_:")) {
+         return blankNodes.computeIfAbsent(id, label -> NodeFactory.createBlankNode());
+      }
+      try {
+         // The parser rejects invalid IRIs as well
+         if (IRIx.create(id).isRelative()) {
+            return null;
+         }
+      } catch (IRIException e) {
+         throw new FormatException("Invalid IRI : " + id, e);
+      }
+      return NodeFactory.createURI(id);
+   }
+
    @Override
    public boolean isValidInputFormat(Format format) {
       // we allow only JSON-LD for now
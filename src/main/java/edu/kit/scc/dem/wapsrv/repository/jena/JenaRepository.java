@@ -4,27 +4,30 @@ import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.rdf.api.RDF;
 import org.apache.jena.commonsrdf.JenaCommonsRDF;
 import org.apache.jena.commonsrdf.impl.JenaDataset;
 import org.apache.jena.commonsrdf.JenaRDF;
 import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.compose.Delta;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Seq;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
 import org.apache.jena.tdb2.DatabaseMgr;
 import org.springframework.beans.factory.annotation.Autowired;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
 import edu.kit.scc.dem.wapsrv.exceptions.NotExistentException;
 import edu.kit.scc.dem.wapsrv.model.WapObject;
 import edu.kit.scc.dem.wapsrv.model.rdf.RdfBackend;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfTransactionExecuter;
 import edu.kit.scc.dem.wapsrv.repository.CollectedRepository;
 import edu.kit.scc.dem.wapsrv.repository.TransactionRepository;
-import org.apache.jena.query.ReadWrite;
-import org.apache.jena.query.TxnType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Primary;
@@ -50,6 +53,22 @@ public class JenaRepository extends CollectedRepository {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
     private Dataset dataBase;
+    /**
+     * The transaction manager for the dataset
+     */
+    private JenaTransactionManager transactionManager;
+    /**
+     * The order key storage for the annotation sequences
+     */
+    private JenaSequenceIndex sequenceIndex;
+    /**
+     * Commits concurrent write transactions together, null if group commit is disabled
+     */
+    private JenaGroupCommitter groupCommitter;
+    /**
+     * The existing and deleted objects, null if the index is disabled
+     */
+    private JenaObjectIndex objectIndex;
     /**
      * Database
      */
@@ -83,9 +102,51 @@ public class JenaRepository extends CollectedRepository {
         }
         if (dataBaseSource != null) {
             setDataBase(dataBaseSource.getDataBase());
+            writeRdfTransaction(ds -> {
+                int migrated = sequenceIndex.migrate();
+                if (migrated > 0) {
+                    log.info("Migrated {} annotation sequences from rdf:Seq to the order key index.", migrated);
+                }
+            });
+            if (wapServerConfig.isObjectIndexEnabled()) {
+                JenaObjectIndex index = new JenaObjectIndex();
+                readRdfTransaction(ds -> {
+                    log.info("Indexed {} objects.", index.build(dataBase));
+                });
+                transactionManager.addTransactionListener(index);
+                objectIndex = index;
+            }
+            if (wapServerConfig.isGroupCommitEnabled()) {
+                groupCommitter = new JenaGroupCommitter(this, wapServerConfig.getGroupCommitWindowInMs(),
+                        wapServerConfig.getGroupCommitMaxOperations());
+                log.info("Group commit enabled.");
+            }
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (groupCommitter != null) {
+            groupCommitter.close();
         }
     }
 
+    /**
+     * Performs the write transaction. If group commit is enabled, a write transaction that is not nested in another
+     * transaction is committed together with concurrent ones. It is executed again if another write of its batch fails,
+     * so it has to be repeatable as described in {@link JenaGroupCommitter}.
+     *
+     * @param transaction the transaction function
+     */
+    @Override
+    public void writeRdfTransaction(RdfTransactionExecuter transaction) {
+        if (groupCommitter != null && transactionManager.getActiveType() == null) {
+            groupCommitter.execute(transaction);
+            return;
+        }
+        super.writeRdfTransaction(transaction);
+    }
+
     @Override
     public org.apache.commons.rdf.api.Dataset getWapObject(String iri) {
         org.apache.commons.rdf.api.Dataset retDs = rdfBackend.getRdf().createDataset();
@@ -100,6 +161,16 @@ public class JenaRepository extends CollectedRepository {
         return retDs;
     }
 
+    @Override
+    public org.apache.commons.rdf.api.Dataset getWapObjectView(String iri) {
+        if (!dataBase.containsNamedModel(iri)) {
+            throw new NotExistentException("the requested container does not exist");
+        }
+        // Reads go to the named graph, changes are only recorded by the delta
+        Graph view = new Delta(dataBase.getNamedModel(iri).getGraph());
+        return JenaCommonsRDF.fromJena(DatasetGraphFactory.wrap(view));
+    }
+
     @Override
     public String backupDatabase() {
         DatabaseMgr.backup(dataBase.asDatasetGraph());
@@ -124,58 +195,28 @@ public class JenaRepository extends CollectedRepository {
      */
     public void setDataBase(Dataset dataBase) {
         this.dataBase = dataBase;
+        this.transactionManager = new JenaTransactionManager(dataBase);
+        this.sequenceIndex = new JenaSequenceIndex(dataBase);
     }
 
     @Override
     public boolean beginTransaction(TransactionRepository.Type type) {
-        if (!dataBase.isInTransaction()) {
-            log.trace("Beginning {} transaction.", type);
-            dataBase.begin(translateType(type));
-            log.trace("{} transaction now active.", type);
-            return true;
-        }
-        return false;
+        return transactionManager.begin(type);
     }
 
     @Override
     public void abortTransaction() {
-        if (dataBase.isInTransaction()) {
-            log.trace("Aborting {} transaction.");
-            dataBase.abort();
-            log.trace("Transaction aborted.");
-            log.trace("Ending dataset.");
-            dataBase.end();
-            log.trace("Dataset ended.");
-        }
+        transactionManager.abort();
     }
 
     @Override
     public void endTransaction(boolean wasOpend) {
-        if (wasOpend) {
-            try {
-                if (dataBase.isInTransaction()) {
-                    log.trace("Committing dataset.");
-                    dataBase.commit();
-                    log.trace("Dataset committed.");
-                }
-            } finally {
-                log.trace("Ending dataset.");
-                dataBase.end();
-                log.trace("Dataset ended.");
-            }
-        }
+        transactionManager.end(wasOpend);
     }
 
-    private ReadWrite translateType(TransactionRepository.Type type) {
-        if (type.equals(TransactionRepository.Type.Read)) {
-            return ReadWrite.READ;
-            //return TxnType.READ;
-        }
-        if (type.equals(TransactionRepository.Type.Write)) {
-            return ReadWrite.WRITE;
-            //return TxnType.WRITE;
-        }
-        return null;
+    @Override
+    public TransactionRepository.Type getTransactionType() {
+        return transactionManager.getActiveType();
     }
 
     @Override
@@ -185,14 +226,35 @@ public class JenaRepository extends CollectedRepository {
 
     @Override
     public void addElementToRdfSeq(String modelIri, String seqIri, String objIri) {
+        if (JenaSequenceIndex.isIndexed(modelIri, seqIri)) {
+            sequenceIndex.append(modelIri, seqIri, objIri);
+            return;
+        }
         Model model = dataBase.getNamedModel(modelIri);
         Seq seq = model.getSeq(seqIri);
         Resource objectResource = model.getResource(objIri);
         seq.add(objectResource);
     }
 
+    @Override
+    public void addElementsToRdfSeq(String modelIri, String seqIri, List<String> objIris) {
+        if (JenaSequenceIndex.isIndexed(modelIri, seqIri)) {
+            sequenceIndex.appendAll(modelIri, seqIri, objIris);
+            return;
+        }
+        Model model = dataBase.getNamedModel(modelIri);
+        Seq seq = model.getSeq(seqIri);
+        for (String objIri : objIris) {
+            seq.add(model.getResource(objIri));
+        }
+    }
+
     @Override
     public void removeElementFromRdfSeq(String modelIri, String seqIri, String objIri) {
+        if (JenaSequenceIndex.isIndexed(modelIri, seqIri)) {
+            sequenceIndex.remove(modelIri, seqIri, objIri);
+            return;
+        }
         Model model = dataBase.getNamedModel(modelIri);
         Seq seq = model.getSeq(seqIri);
         Resource objectResource = model.getResource(objIri);
@@ -204,6 +266,9 @@ public class JenaRepository extends CollectedRepository {
 
     @Override
     public int countElementsInSeq(String modelIri, String seqIri) {
+        if (JenaSequenceIndex.isIndexed(modelIri, seqIri)) {
+            return sequenceIndex.count(modelIri, seqIri);
+        }
         Seq seq = dataBase.getNamedModel(modelIri).getSeq(seqIri);
         return seq.size();
     }
@@ -217,10 +282,40 @@ public class JenaRepository extends CollectedRepository {
         String iriString = wapObject.getIriString();
         dataBase.addNamedModel(iriString, jenaModel);
         // Model returnValue = dataBase.getNamedModel(iriString);
+        if (objectIndex != null) {
+            objectIndex.written(iriString);
+        }
+    }
+
+    @Override
+    public boolean containsWapObject(String iri) {
+        if (objectIndex != null) {
+            return objectIndex.contains(iri);
+        }
+        return super.containsWapObject(iri);
+    }
+
+    @Override
+    public boolean isWapObjectDeleted(String iri) {
+        if (objectIndex != null) {
+            return objectIndex.isDeleted(iri);
+        }
+        return super.isWapObjectDeleted(iri);
+    }
+
+    @Override
+    public void markWapObjectDeleted(String iri) {
+        super.markWapObjectDeleted(iri);
+        if (objectIndex != null) {
+            objectIndex.markedDeleted(iri);
+        }
     }
 
     @Override
     public List<String> getRangeOfObjectIrisFromSeq(String containerIri, String seqIri, int firstIndex, int lastIndex) {
+        if (JenaSequenceIndex.isIndexed(containerIri, seqIri)) {
+            return sequenceIndex.range(containerIri, seqIri, firstIndex, lastIndex);
+        }
         List<String> retValue = new ArrayList<>();
         Model containerModel = dataBase.getNamedModel(containerIri);
         Seq annoSeq = containerModel.getSeq(seqIri);
@@ -233,9 +328,15 @@ public class JenaRepository extends CollectedRepository {
 
     @Override
     public List<String> getAllObjectIrisOfSeq(String modelIri, String seqIri) {
-        Model containerModel = dataBase.getNamedModel(modelIri);
-        Seq annoSeq = containerModel.getSeq(seqIri);
-        return getRangeOfObjectIrisFromSeq(modelIri, seqIri, 1, annoSeq.size());
+        return getRangeOfObjectIrisFromSeq(modelIri, seqIri, 1, countElementsInSeq(modelIri, seqIri));
+    }
+
+    @Override
+    public Stream<String> streamAllObjectIrisOfSeq(String modelIri, String seqIri) {
+        if (JenaSequenceIndex.isIndexed(modelIri, seqIri)) {
+            return sequenceIndex.stream(modelIri, seqIri);
+        }
+        return getAllObjectIrisOfSeq(modelIri, seqIri).stream();
     }
 
     @Override
@@ -247,6 +348,10 @@ public class JenaRepository extends CollectedRepository {
 
     @Override
     public void emptySeq(String modelIri, String seqIri) {
+        if (JenaSequenceIndex.isIndexed(modelIri, seqIri)) {
+            sequenceIndex.clear(modelIri, seqIri);
+            return;
+        }
         Model model = dataBase.getNamedModel(modelIri);
         Resource subject = model.createResource(seqIri);
         model.removeAll(subject, null, null);
@@ -1,25 +1,34 @@
 package edu.kit.scc.dem.wapsrv.repository.jena;
 
+import edu.kit.scc.dem.wapsrv.dao.ISequenceCounterDao;
 import edu.kit.scc.dem.wapsrv.dao.ISequenceDao;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import jakarta.annotation.PostConstruct;
 import org.apache.commons.rdf.api.RDF;
 import org.apache.jena.commonsrdf.JenaCommonsRDF;
 import org.apache.jena.commonsrdf.JenaRDF;
 import org.apache.jena.commonsrdf.impl.JenaDataset;
 import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.compose.Delta;
 import org.apache.jena.query.Dataset;
-import org.apache.jena.query.ReadWrite;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
 import org.apache.jena.tdb2.DatabaseMgr;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
 import edu.kit.scc.dem.wapsrv.exceptions.NotExistentException;
 import edu.kit.scc.dem.wapsrv.model.WapObject;
+import edu.kit.scc.dem.wapsrv.model.ext.SequenceCounter;
 import edu.kit.scc.dem.wapsrv.model.ext.SequenceResource;
 import edu.kit.scc.dem.wapsrv.model.rdf.RdfBackend;
 import edu.kit.scc.dem.wapsrv.repository.CollectedRepository;
@@ -28,8 +37,7 @@ import java.util.Optional;
 import org.apache.jena.sparql.core.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Limit;
 
 /**
  * The Jena repository implementation. <br>
@@ -56,8 +64,34 @@ import org.springframework.data.domain.PageRequest;
 public class JenaRepository2 extends CollectedRepository{
 
   private final Logger log = LoggerFactory.getLogger(this.getClass());
+  /**
+   * The number of sequence resources read at once while streaming a sequence
+   */
+  private static final int STREAM_BATCH_SIZE = 1000;
+  /**
+   * The maximum number of keyset anchors kept per sequence
+   */
+  private static final int MAX_ANCHORS_PER_SEQUENCE = 10000;
+  /**
+   * Known positions of each sequence, mapping a position to the id of the
+   * sequence resource at this position (0 to the id 0). Ranges start seeking
+   * by id at the closest known position, so following the pages of a sequence
+   * does not scan all previous sequence resources again. Appending keeps the
+   * positions valid, removing an element invalidates those of its sequence.
+   * Readers only record positions while no write is active, so a removal
+   * never races with a reader recording an outdated position.
+   */
+  private final Map<String, NavigableMap<Integer, Long>> keysetAnchors = new ConcurrentHashMap<>();
 
   private Dataset dataBase;
+  /**
+   * The transaction manager for the dataset
+   */
+  private JenaTransactionManager transactionManager;
+  /**
+   * The existing and deleted objects, null if the index is disabled
+   */
+  private JenaObjectIndex objectIndex;
   /**
    * Database
    */
@@ -66,6 +100,11 @@ public class JenaRepository2 extends CollectedRepository{
 
   @Autowired
   private ISequenceDao iSequenceDao;
+  /**
+   * The element counters of the sequences
+   */
+  @Autowired
+  private ISequenceCounterDao iSequenceCounterDao;
   /**
    * The application configuration to use
    */
@@ -94,6 +133,14 @@ public class JenaRepository2 extends CollectedRepository{
     }
     if(dataBaseSource != null){
       setDataBase(dataBaseSource.getDataBase());
+      if(wapServerConfig.isObjectIndexEnabled()){
+        JenaObjectIndex index = new JenaObjectIndex();
+        readRdfTransaction(ds -> {
+          log.info("Indexed {} objects.", index.build(dataBase));
+        });
+        transactionManager.addTransactionListener(index);
+        objectIndex = index;
+      }
     }
   }
 
@@ -111,6 +158,16 @@ public class JenaRepository2 extends CollectedRepository{
     return retDs;
   }
 
+  @Override
+  public org.apache.commons.rdf.api.Dataset getWapObjectView(String iri){
+    if(!dataBase.containsNamedModel(iri)){
+      throw new NotExistentException("the requested container does not exist");
+    }
+    // Reads go to the named graph, changes are only recorded by the delta
+    Graph view = new Delta(dataBase.getNamedModel(iri).getGraph());
+    return JenaCommonsRDF.fromJena(DatasetGraphFactory.wrap(view));
+  }
+
   @Override
   public String backupDatabase(){
     DatabaseMgr.backup(dataBase.asDatasetGraph());
@@ -135,44 +192,28 @@ public class JenaRepository2 extends CollectedRepository{
    */
   public void setDataBase(Dataset dataBase){
     this.dataBase = dataBase;
+    // The sequence table has no snapshots, readers must not see the rows of a running write
+    this.transactionManager = new JenaTransactionManager(dataBase, true);
   }
 
   @Override
   public boolean beginTransaction(TransactionRepository.Type type){
-    if(!dataBase.isInTransaction()){
-      dataBase.begin(translateType(type));
-      return true;
-    }
-    return false;
+    return transactionManager.begin(type);
   }
 
   @Override
   public void abortTransaction(){
-    if(dataBase.isInTransaction()){
-      dataBase.abort();
-      dataBase.end();
-    }
+    transactionManager.abort();
   }
 
   @Override
   public void endTransaction(boolean wasOpend){
-    if(wasOpend & dataBase.isInTransaction()){
-        
-      if(dataBase.isInTransaction()){
-        dataBase.commit();
-      }
-      dataBase.end();
-    }
+    transactionManager.end(wasOpend);
   }
 
-  private ReadWrite translateType(TransactionRepository.Type type){
-    if(type.equals(TransactionRepository.Type.Read)){
-      return ReadWrite.READ;
-    }
-    if(type.equals(TransactionRepository.Type.Write)){
-      return ReadWrite.WRITE;
-    }
-    return null;
+  @Override
+  public TransactionRepository.Type getTransactionType(){
+    return transactionManager.getActiveType();
   }
 
   @Override
@@ -187,6 +228,7 @@ public class JenaRepository2 extends CollectedRepository{
     log.trace("Persisting sequence resource {}.", res);
     res = iSequenceDao.save(res);
     log.trace("Successfully persisted sequence resource. Received id {}.", res.getId());
+    updateCounter(seqIri, 1);
   }
 
   @Override
@@ -197,16 +239,37 @@ public class JenaRepository2 extends CollectedRepository{
       SequenceResource res = optRes.get();
       log.trace("Deleting resource {}.", res);
       iSequenceDao.delete(res);
+      keysetAnchors.remove(res.getSequenceIri());
       log.trace("Resource successfully deleted.");
+      updateCounter(res.getSequenceIri(), -1);
     }
   }
 
   @Override
   public int countElementsInSeq(String modelIri, String seqIri){
     log.trace("Entering countElementsInSeq({}, {}).", modelIri, seqIri);
-    int cnt = iSequenceDao.findBySequenceIriEquals(seqIri).size();
+    Optional<SequenceCounter> counter = iSequenceCounterDao.findById(seqIri);
+    // Sequences filled before counters were introduced are counted by the database until their next update
+    long cnt = counter.isPresent() ? counter.get().getElementCount() : iSequenceDao.countBySequenceIriEquals(seqIri);
     log.trace("Returning sequence size {}", cnt);
-    return cnt;
+    return (int) cnt;
+  }
+
+  /**
+   * Adds a delta to the counter of a sequence. A missing counter is created
+   * from the number of sequence resources, which already includes the change.
+   * Counters are only updated inside write transactions, so they are never
+   * created twice.
+   *
+   * @param seqIri The IRI of the sequence
+   * @param delta The value to add to the counter
+   */
+  private void updateCounter(String seqIri, long delta){
+    if(iSequenceCounterDao.addToElementCount(seqIri, delta) == 0){
+      long cnt = iSequenceDao.countBySequenceIriEquals(seqIri);
+      log.trace("Creating counter for sequence {} with size {}.", seqIri, cnt);
+      iSequenceCounterDao.save(SequenceCounter.create(seqIri, cnt));
+    }
   }
 
   @Override
@@ -217,21 +280,68 @@ public class JenaRepository2 extends CollectedRepository{
     Model jenaModel = org.apache.jena.rdf.model.ModelFactory.createModelForGraph(jenaGraph);
     String iriString = wapObject.getIriString();
     dataBase.addNamedModel(iriString, jenaModel);
+    if(objectIndex != null){
+      objectIndex.written(iriString);
+    }
+  }
+
+  @Override
+  public boolean containsWapObject(String iri){
+    if(objectIndex != null){
+      return objectIndex.contains(iri);
+    }
+    return super.containsWapObject(iri);
+  }
+
+  @Override
+  public boolean isWapObjectDeleted(String iri){
+    if(objectIndex != null){
+      return objectIndex.isDeleted(iri);
+    }
+    return super.isWapObjectDeleted(iri);
+  }
+
+  @Override
+  public void markWapObjectDeleted(String iri){
+    super.markWapObjectDeleted(iri);
+    if(objectIndex != null){
+      objectIndex.markedDeleted(iri);
+    }
   }
 
   @Override
   public List<String> getRangeOfObjectIrisFromSeq(String containerIri, String seqIri, int firstIndex, int lastIndex){
     log.trace("Entering getRangeOfObjectIrisFromSeq({}, {}, {}, {}).", containerIri, seqIri, firstIndex, lastIndex);
-
-    int pageSize = wapServerConfig.getPageSize();
-    int pageNr = firstIndex / pageSize;
-    log.debug("Converted firstIndex {} and lastIndex {} to page {} using pageSize {}.", firstIndex, lastIndex, pageNr, pageSize);
-    Page<SequenceResource> page = iSequenceDao.findBySequenceIriEquals(seqIri, PageRequest.of(pageNr, pageSize));
-    log.trace("Obtaining resource IRIs from page.");
+    // ATTENTION: the index of the sequence starts with 1 like in rdf:Seq
+    int offset = Math.max(firstIndex, 1) - 1;
+    long limit = (long) lastIndex - offset;
     List<String> retValue = new ArrayList<>();
-    page.getContent().forEach((r) -> {
+    if(limit <= 0){
+      return retValue;
+    }
+    NavigableMap<Integer, Long> anchors = getKeysetAnchors(seqIri);
+    Map.Entry<Integer, Long> anchor = anchors.floorEntry(offset);
+    long afterId = anchor.getValue();
+    int skip = offset - anchor.getKey();
+    if(skip > 0){
+      log.debug("Skipping {} resource(s) from known position {} to reach position {}.", skip, anchor.getKey(), offset);
+      List<Long> ids = iSequenceDao.findIdsAfter(seqIri, afterId, Limit.of(skip));
+      if(ids.size() < skip){
+        log.trace("Sequence has less than {} resource(s).", offset + 1);
+        return retValue;
+      }
+      afterId = ids.get(skip - 1);
+      putKeysetAnchor(anchors, offset, afterId);
+    }
+    List<SequenceResource> resources = iSequenceDao.findBySequenceIriEqualsAndIdGreaterThanOrderByIdAsc(seqIri,
+            afterId, Limit.of((int) Math.min(limit, Integer.MAX_VALUE)));
+    log.trace("Obtaining resource IRIs from {} resource(s).", resources.size());
+    resources.forEach((r) -> {
       retValue.add(r.getAnnotationIri());
     });
+    if(!resources.isEmpty()){
+      putKeysetAnchor(anchors, offset + resources.size(), resources.get(resources.size() - 1).getId());
+    }
     log.trace("Returning {} resource IRI(s).", retValue.size());
     return retValue;
   }
@@ -239,7 +349,40 @@ public class JenaRepository2 extends CollectedRepository{
   @Override
   public List<String> getAllObjectIrisOfSeq(String modelIri, String seqIri){
     log.trace("Entering getAllObjectIrisOfSeq({}, {},).", modelIri, seqIri);
-    return getRangeOfObjectIrisFromSeq(modelIri, seqIri, 0, Integer.MAX_VALUE);
+    try(Stream<String> iris = streamAllObjectIrisOfSeq(modelIri, seqIri)){
+      return iris.collect(Collectors.toList());
+    }
+  }
+
+  @Override
+  public Stream<String> streamAllObjectIrisOfSeq(String modelIri, String seqIri){
+    log.trace("Entering streamAllObjectIrisOfSeq({}, {},).", modelIri, seqIri);
+    // Batches are read by id, one after another while the stream is consumed
+    return Stream.iterate(nextBatch(seqIri, 0L), batch -> !batch.isEmpty(),
+            batch -> nextBatch(seqIri, batch.get(batch.size() - 1).getId()))
+            .flatMap(batch -> batch.stream().map(SequenceResource::getAnnotationIri));
+  }
+
+  private List<SequenceResource> nextBatch(String seqIri, long afterId){
+    log.trace("Reading next {} resource(s) of sequence {} after id {}.", STREAM_BATCH_SIZE, seqIri, afterId);
+    return iSequenceDao.findBySequenceIriEqualsAndIdGreaterThanOrderByIdAsc(seqIri, afterId,
+            Limit.of(STREAM_BATCH_SIZE));
+  }
+
+  private NavigableMap<Integer, Long> getKeysetAnchors(String seqIri){
+    return keysetAnchors.computeIfAbsent(seqIri, key -> {
+      NavigableMap<Integer, Long> anchors = new ConcurrentSkipListMap<>();
+      anchors.put(0, 0L);
+      return anchors;
+    });
+  }
+
+  private void putKeysetAnchor(NavigableMap<Integer, Long> anchors, int position, long id){
+    if(anchors.size() >= MAX_ANCHORS_PER_SEQUENCE){
+      // Keep the start, the next pages requested will add their anchors again
+      anchors.tailMap(0, false).clear();
+    }
+    anchors.put(position, id);
   }
 
   @Override
@@ -251,8 +394,9 @@ public class JenaRepository2 extends CollectedRepository{
   @Override
   public void emptySeq(String modelIri, String seqIri){
     log.trace("Entering emptySeq({}, {},).", modelIri, seqIri);
-    List<SequenceResource> res = iSequenceDao.findBySequenceIriEquals(seqIri);
-    log.trace("Removing {} resource IRI(s).", res.size());
-    iSequenceDao.deleteAll(res);
+    int cnt = iSequenceDao.deleteAllBySequenceIri(seqIri);
+    log.trace("Removed {} resource IRI(s).", cnt);
+    keysetAnchors.remove(seqIri);
+    iSequenceCounterDao.save(SequenceCounter.create(seqIri, 0));
   }
 }
@@ -0,0 +1,494 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Seq;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.vocabulary.RDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import edu.kit.scc.dem.wapsrv.model.Container;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.WapVocab;
+
+/**
+ * Stores the annotation sequences of containers using sparse order keys instead of an rdf:Seq.
+ * <p>
+ * An rdf:Seq has to be renumbered on every removal and searched linearly to find an element. Here every element gets an
+ * order key when it is appended. Keys are never reused, removing an element just leaves a gap. The elements of a
+ * sequence are stored in their own named graph, the IRI of the sequence:
+ * <ul>
+ * <li>&lt;seq/block&gt; rdf:_key &lt;element&gt; - the elements, grouped in blocks of consecutive keys</li>
+ * <li>&lt;seq/block&gt; wap:itemCount n - the number of elements left in a block</li>
+ * <li>&lt;element&gt; wap:orderKey key - the reverse index from an element to its key</li>
+ * <li>&lt;seq&gt; wap:nextKey key - the key the next appended element gets</li>
+ * </ul>
+ * The number of elements is stored as &lt;seq&gt; wap:itemCount n in the graph of the container, next to the rdf:Seq
+ * type triple, so containers can report their size without reading the sequence. Append, remove and count touch a
+ * constant number of triples. Range reads skip whole blocks by their element count and read keys directly in blocks
+ * without gaps, so they depend on the page size and the number of blocks, not the number of elements.
+ * <p>
+ * All methods have to be called inside a transaction on the dataset. Elements are expected to be unique in a sequence,
+ * which holds for annotation IRIs.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public class JenaSequenceIndex {
+   /**
+    * The default number of consecutive keys in a block
+    */
+   public static final int DEFAULT_BLOCK_SIZE = 1024;
+   private static final Node ITEM_COUNT = NodeFactory.createURI(WapVocab.itemCount.getIRIString());
+   private static final Node ORDER_KEY = NodeFactory.createURI(WapVocab.orderKey.getIRIString());
+   private static final Node NEXT_KEY = NodeFactory.createURI(WapVocab.nextKey.getIRIString());
+   private static final String MEMBERSHIP_PREFIX = RDF.getURI() + "_";
+   private final Logger log = LoggerFactory.getLogger(this.getClass());
+   /**
+    * The dataset the sequences are stored in
+    */
+   private final Dataset dataBase;
+   /**
+    * The number of consecutive keys in a block
+    */
+   private final int blockSize;
+
+   /**
+    * Creates a new sequence index on the given dataset
+    *
+    * @param dataBase
+    *                 The dataset
+    */
+   public JenaSequenceIndex(Dataset dataBase) {
+      this(dataBase, DEFAULT_BLOCK_SIZE);
+   }
+
+   /**
+    * Creates a new sequence index on the given dataset with a given block size
+    *
+    * @param dataBase
+    *                  The dataset
+    * @param blockSize
+    *                  The number of consecutive keys in a block
+    */
+   JenaSequenceIndex(Dataset dataBase, int blockSize) {
+      this.dataBase = dataBase;
+      this.blockSize = blockSize;
+   }
+
+   /**
+    * Checks whether the given sequence is stored by the index. This holds for the annotation sequences of containers,
+    * the subcontainer sequences stay rdf:Seq because they are part of the container representation.
+    *
+    * @param  modelIri
+    *                  The IRI of the container
+    * @param  seqIri
+    *                  The IRI of the sequence
+    * @return          true if the sequence is stored by the index
+    */
+   public static boolean isIndexed(String modelIri, String seqIri) {
+      return seqIri.equals(Container.toAnnotationSeqIriString(modelIri));
+   }
+
+   /**
+    * Appends an element to the end of the sequence
+    *
+    * @param modelIri
+    *                 The IRI of the container
+    * @param seqIri
+    *                 The IRI of the sequence
+    * @param objIri
+    *                 The IRI of the element
+    */
+   public void append(String modelIri, String seqIri, String objIri) {
+      DatasetGraph dsg = dataBase.asDatasetGraph();
+      Node graph = NodeFactory.createURI(seqIri);
+      long key = getLong(graph, graph, NEXT_KEY, 1);
+      Node block = toBlockNode(seqIri, toBlock(key));
+      Node element = NodeFactory.createURI(objIri);
+      dsg.add(graph, block, toMembershipNode(key), element);
+      dsg.add(graph, element, ORDER_KEY, toLiteral(key));
+      setLong(graph, block, ITEM_COUNT, getLong(graph, block, ITEM_COUNT, 0) + 1);
+      setLong(graph, graph, NEXT_KEY, key + 1);
+      Node model = NodeFactory.createURI(modelIri);
+      setLong(model, graph, ITEM_COUNT, getLong(model, graph, ITEM_COUNT, 0) + 1);
+   }
+
+   /**
+    * Appends elements to the end of the sequence in the given order. The counters are read and written once for all
+    * of them, not once per element as with {@link #append(String, String, String)}.
+    *
+    * @param modelIri
+    *                 The IRI of the container
+    * @param seqIri
+    *                 The IRI of the sequence
+    * @param objIris
+    *                 The IRIs of the elements
+    */
+   public void appendAll(String modelIri, String seqIri, List<String> objIris) {
+      if (objIris.isEmpty()) {
+         return;
+      }
+      DatasetGraph dsg = dataBase.asDatasetGraph();
+      Node graph = NodeFactory.createURI(seqIri);
+      long key = getLong(graph, graph, NEXT_KEY, 1);
+      long block = toBlock(key);
+      Node blockNode = toBlockNode(seqIri, block);
+      long blockCount = getLong(graph, blockNode, ITEM_COUNT, 0);
+      for (String objIri : objIris) {
+         if (toBlock(key) != block) {
+            setLong(graph, blockNode, ITEM_COUNT, blockCount);
+            block = toBlock(key);
+            blockNode = toBlockNode(seqIri, block);
+            blockCount = getLong(graph, blockNode, ITEM_COUNT, 0);
+         }
+         Node element = NodeFactory.createURI(objIri);
+         dsg.add(graph, blockNode, toMembershipNode(key), element);
+         dsg.add(graph, element, ORDER_KEY, toLiteral(key));
+         blockCount++;
+         key++;
+      }
+      setLong(graph, blockNode, ITEM_COUNT, blockCount);
+      setLong(graph, graph, NEXT_KEY, key);
+      Node model = NodeFactory.createURI(modelIri);
+      setLong(model, graph, ITEM_COUNT, getLong(model, graph, ITEM_COUNT, 0) + objIris.size());
+   }
+
+   /**
+    * Removes an element from the sequence, nothing happens if it is not contained
+    *
+    * @param modelIri
+    *                 The IRI of the container
+    * @param seqIri
+    *                 The IRI of the sequence
+    * @param objIri
+    *                 The IRI of the element
+    */
+   public void remove(String modelIri, String seqIri, String objIri) {
+      DatasetGraph dsg = dataBase.asDatasetGraph();
+      Node graph = NodeFactory.createURI(seqIri);
+      Node element = NodeFactory.createURI(objIri);
+      long key = getLong(graph, element, ORDER_KEY, -1);
+      if (key < 0) {
+         return;
+      }
+      Node block = toBlockNode(seqIri, toBlock(key));
+      dsg.delete(graph, block, toMembershipNode(key), element);
+      dsg.deleteAny(graph, element, ORDER_KEY, Node.ANY);
+      setLong(graph, block, ITEM_COUNT, getLong(graph, block, ITEM_COUNT, 1) - 1);
+      Node model = NodeFactory.createURI(modelIri);
+      setLong(model, graph, ITEM_COUNT, getLong(model, graph, ITEM_COUNT, 1) - 1);
+   }
+
+   /**
+    * Counts the elements in the sequence
+    *
+    * @param  modelIri
+    *                  The IRI of the container
+    * @param  seqIri
+    *                  The IRI of the sequence
+    * @return          The number of elements
+    */
+   public int count(String modelIri, String seqIri) {
+      return (int) getLong(NodeFactory.createURI(modelIri), NodeFactory.createURI(seqIri), ITEM_COUNT, 0);
+   }
+
+   /**
+    * Gets a range of elements of the sequence, the index of the first element is 1. Indices behind the end of the
+    * sequence are ignored.
+    *
+    * @param  modelIri
+    *                    The IRI of the container
+    * @param  seqIri
+    *                    The IRI of the sequence
+    * @param  firstIndex
+    *                    The index of the first element (inclusive)
+    * @param  lastIndex
+    *                    The index of the last element (inclusive)
+    * @return            The IRIs of the elements in sequence order
+    */
+   public List<String> range(String modelIri, String seqIri, int firstIndex, int lastIndex) {
+      List<String> retValue = new ArrayList<>();
+      int first = Math.max(firstIndex, 1);
+      int last = Math.min(lastIndex, count(modelIri, seqIri));
+      if (first > last) {
+         return retValue;
+      }
+      Node graph = NodeFactory.createURI(seqIri);
+      long usedKeys = getLong(graph, graph, NEXT_KEY, 1) - 1;
+      long blocks = (usedKeys + blockSize - 1) / blockSize;
+      // Skip whole blocks before the first index
+      long skip = first - 1;
+      long block = 0;
+      long blockCount = 0;
+      for (; block < blocks; block++) {
+         blockCount = getLong(graph, toBlockNode(seqIri, block), ITEM_COUNT, 0);
+         if (skip < blockCount) {
+            break;
+         }
+         skip -= blockCount;
+      }
+      int remaining = last - first + 1;
+      // The count of the first block has been read while skipping
+      boolean isCountKnown = true;
+      for (; block < blocks && remaining > 0; block++) {
+         Node blockNode = toBlockNode(seqIri, block);
+         if (!isCountKnown) {
+            blockCount = getLong(graph, blockNode, ITEM_COUNT, 0);
+         }
+         isCountKnown = false;
+         long firstKey = block * blockSize + 1;
+         long keysInBlock = Math.min(blockSize, usedKeys - block * blockSize);
+         if (blockCount == keysInBlock) {
+            // No gaps, the keys can be addressed directly
+            for (long key = firstKey + skip; key < firstKey + keysInBlock && remaining > 0; key++) {
+               retValue.add(getElement(graph, blockNode, key));
+               remaining--;
+            }
+         } else {
+            for (String element : getBlockElements(graph, blockNode, skip, remaining)) {
+               retValue.add(element);
+               remaining--;
+            }
+         }
+         skip = 0;
+      }
+      return retValue;
+   }
+
+   /**
+    * Streams all elements of the sequence in sequence order. The blocks are read one after another while the stream is
+    * consumed.
+    *
+    * @param  modelIri
+    *                  The IRI of the container
+    * @param  seqIri
+    *                  The IRI of the sequence
+    * @return          The IRIs of the elements in sequence order
+    */
+   public Stream<String> stream(String modelIri, String seqIri) {
+      Node graph = NodeFactory.createURI(seqIri);
+      long usedKeys = getLong(graph, graph, NEXT_KEY, 1) - 1;
+      long blocks = (usedKeys + blockSize - 1) / blockSize;
+      return LongStream.range(0, blocks).boxed()
+            .flatMap(block -> getBlockElements(graph, toBlockNode(seqIri, block), 0, Integer.MAX_VALUE).stream());
+   }
+
+   /**
+    * Removes all elements from the sequence
+    *
+    * @param modelIri
+    *                 The IRI of the container
+    * @param seqIri
+    *                 The IRI of the sequence
+    */
+   public void clear(String modelIri, String seqIri) {
+      DatasetGraph dsg = dataBase.asDatasetGraph();
+      Node graph = NodeFactory.createURI(seqIri);
+      dsg.deleteAny(graph, Node.ANY, Node.ANY, Node.ANY);
+      setLong(NodeFactory.createURI(modelIri), graph, ITEM_COUNT, 0);
+   }
+
+   /**
+    * Moves the elements of all annotation sequences still stored as rdf:Seq in their container into the index. Has to
+    * be called in a write transaction.
+    *
+    * @return The number of sequences migrated
+    */
+   public int migrate() {
+      DatasetGraph dsg = dataBase.asDatasetGraph();
+      List<Quad> seqTypes = Iter.toList(dsg.find(Node.ANY, Node.ANY, RDF.type.asNode(), RDF.Seq.asNode()));
+      int migrated = 0;
+      for (Quad seqType : seqTypes) {
+         if (!seqType.getGraph().isURI() || !seqType.getSubject().isURI()) {
+            continue;
+         }
+         String modelIri = seqType.getGraph().getURI();
+         String seqIri = seqType.getSubject().getURI();
+         if (!isIndexed(modelIri, seqIri)) {
+            continue;
+         }
+         Model model = dataBase.getNamedModel(modelIri);
+         Seq seq = model.getSeq(seqIri);
+         int size = seq.size();
+         if (size == 0) {
+            continue;
+         }
+         List<String> elements = new ArrayList<>(size);
+         for (int i = 1; i <= size; i++) {
+            RDFNode element = seq.getObject(i);
+            if (element.isURIResource()) {
+               elements.add(element.asResource().getURI());
+            }
+         }
+         // Keep only the type triple (and an existing count) of the old sequence
+         Resource seqResource = model.getResource(seqIri);
+         for (int i = 1; i <= size; i++) {
+            model.removeAll(seqResource, RDF.li(i), null);
+         }
+         for (String element : elements) {
+            append(modelIri, seqIri, element);
+         }
+         log.info("Migrated rdf:Seq '{}' with {} elements to the order key index.", seqIri, elements.size());
+         migrated++;
+      }
+      return migrated;
+   }
+
+   private String getElement(Node graph, Node block, long key) {
+      Iterator<Quad> iter = dataBase.asDatasetGraph().find(graph, block, toMembershipNode(key), Node.ANY);
+      return iter.next().getObject().getURI();
+   }
+
+   private List<String> getBlockElements(Node graph, Node block, long skip, int maxCount) {
+      List<Quad> entries = new ArrayList<>();
+      dataBase.asDatasetGraph().find(graph, block, Node.ANY, Node.ANY).forEachRemaining(quad -> {
+         if (quad.getPredicate().getURI().startsWith(MEMBERSHIP_PREFIX)) {
+            entries.add(quad);
+         }
+      });
+      entries.sort(Comparator.comparingLong((Quad quad) -> toKey(quad.getPredicate())));
+      List<String> retValue = new ArrayList<>();
+      for (int i = (int) skip; i < entries.size() && retValue.size() < maxCount; i++) {
+         retValue.add(entries.get(i).getObject().getURI());
+      }
+      return retValue;
+   }
+
+   private long getLong(Node graph, Node subject, Node predicate, long defaultValue) {
+      Iterator<Quad> iter = dataBase.asDatasetGraph().find(graph, subject, predicate, Node.ANY);
+      if (!iter.hasNext()) {
+         return defaultValue;
+      }
+      return Long.parseLong(iter.next().getObject().getLiteralLexicalForm());
+   }
+
+   private void setLong(Node graph, Node subject, Node predicate, long value) {
+      DatasetGraph dsg = dataBase.asDatasetGraph();
+      dsg.deleteAny(graph, subject, predicate, Node.ANY);
+      dsg.add(graph, subject, predicate, toLiteral(value));
+   }
+
+   private long toBlock(long key) {
+      return (key - 1) / blockSize;
+   }
+
+   private static Node toBlockNode(String seqIri, long block) {
+      return NodeFactory.createURI(seqIri + "/" + block);
+   }
+
+   private static Node toMembershipNode(long key) {
+      return NodeFactory.createURI(MEMBERSHIP_PREFIX + key);
+   }
+
+   private static long toKey(Node membershipNode) {
+      return Long.parseLong(membershipNode.getURI().substring(MEMBERSHIP_PREFIX.length()));
+   }
+
+   private static Node toLiteral(long value) {
+      return NodeFactory.createLiteralDT(String.valueOf(value), XSDDatatype.XSDlong);
+   }
+
+   /**
+    * Writes new sequences as quads to a stream, for loaders that fill an empty database without transactions. The
+    * elements get the same keys and blocks as with {@link JenaSequenceIndex#append(String, String, String)}. Only the
+    * number of elements of every sequence is kept in memory, the counters are written by {@link #finish()} as the
+    * blocks of a new sequence have no gaps.
+    */
+   public static final class Builder {
+      /**
+       * The stream the quads are written to
+       */
+      private final StreamRDF output;
+      /**
+       * The number of consecutive keys in a block
+       */
+      private final int blockSize;
+      /**
+       * The IRIs of the containers by the IRIs of their sequences
+       */
+      private final Map<String, String> models = new LinkedHashMap<>();
+      /**
+       * The number of elements appended by the IRIs of the sequences
+       */
+      private final Map<String, Long> counts = new LinkedHashMap<>();
+
+      /**
+       * Creates a new builder writing to the given stream
+       *
+       * @param output
+       *               The stream
+       */
+      public Builder(StreamRDF output) {
+         this(output, DEFAULT_BLOCK_SIZE);
+      }
+
+      /**
+       * Creates a new builder writing to the given stream with a given block size
+       *
+       * @param output
+       *                  The stream
+       * @param blockSize
+       *                  The number of consecutive keys in a block
+       */
+      Builder(StreamRDF output, int blockSize) {
+         this.output = output;
+         this.blockSize = blockSize;
+      }
+
+      /**
+       * Appends an element to the end of the sequence
+       *
+       * @param modelIri
+       *                 The IRI of the container
+       * @param seqIri
+       *                 The IRI of the sequence
+       * @param objIri
+       *                 The IRI of the element
+       */
+      public void append(String modelIri, String seqIri, String objIri) {
+         models.putIfAbsent(seqIri, modelIri);
+         long key = counts.merge(seqIri, 1L, Long::sum);
+         Node graph = NodeFactory.createURI(seqIri);
+         Node element = NodeFactory.createURI(objIri);
+         output.quad(Quad.create(graph, toBlockNode(seqIri, (key - 1) / blockSize), toMembershipNode(key), element));
+         output.quad(Quad.create(graph, element, ORDER_KEY, toLiteral(key)));
+      }
+
+      /**
+       * Writes the counters of all sequences built
+       */
+      public void finish() {
+         for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            String seqIri = entry.getKey();
+            long usedKeys = entry.getValue();
+            Node graph = NodeFactory.createURI(seqIri);
+            for (long block = 0; block * blockSize < usedKeys; block++) {
+               output.quad(Quad.create(graph, toBlockNode(seqIri, block), ITEM_COUNT,
+                     toLiteral(Math.min(blockSize, usedKeys - block * blockSize))));
+            }
+            output.quad(Quad.create(graph, graph, NEXT_KEY, toLiteral(usedKeys + 1)));
+            output.quad(Quad.create(NodeFactory.createURI(models.get(seqIri)), graph, ITEM_COUNT, toLiteral(usedKeys)));
+         }
+      }
+   }
+}
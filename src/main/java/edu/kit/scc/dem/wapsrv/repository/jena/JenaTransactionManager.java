@@ -0,0 +1,270 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.TxnType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import edu.kit.scc.dem.wapsrv.exceptions.TransactionConflictException;
+import edu.kit.scc.dem.wapsrv.repository.TransactionRepository;
+
+/**
+ * Manages the transactions of the Jena repositories on their TDB2 dataset.
+ * <p>
+ * TDB2 provides MVCC, so any number of READ transactions can run in parallel with the single active WRITE transaction.
+ * Transactions are therefore not serialized globally. Only WRITE transactions are serialized, using a fair lock.
+ * <p>
+ * Stores updated next to TDB2 have no such snapshots, like the sequence table of {@link JenaRepository2}. Readers
+ * would see its rows change while their TDB2 snapshot stays the same. A manager created with exclusive reads keeps
+ * READ transactions apart from the WRITE transaction instead: they share a read lock that waits for the writer. As a
+ * read lock cannot be upgraded, READ_PROMOTE transactions take the write lock when they begin in this mode.
+ * <p>
+ * Jena transactions are bound to the calling thread. A call that finds its thread already inside a transaction joins
+ * it. Only the call that began the transaction commits or ends it. This is the nesting behavior the services rely on.
+ * <p>
+ * A READ_PROMOTE transaction reads like a READ transaction and is promoted to a WRITE transaction by the first nested
+ * WRITE call. This lets a service check the database and write depending on the result without releasing the
+ * transaction in between. Promotion fails with a {@link TransactionConflictException} if another WRITE transaction
+ * committed after the READ_PROMOTE transaction began, because the checks may no longer hold.
+ * <p>
+ * {@link TransactionListener}s are told when the outermost transaction of a thread ends, before a waiting writer can
+ * begin. This lets in-memory structures apply the changes of a write transaction only once it has been committed.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public class JenaTransactionManager {
+   private final Logger log = LoggerFactory.getLogger(this.getClass());
+   /**
+    * The dataset the transactions are performed on
+    */
+   private final Dataset dataBase;
+   /**
+    * Whether READ transactions exclude the WRITE transaction
+    */
+   private final boolean exclusiveReads;
+   /**
+    * The lock serializing the WRITE transactions. Its read lock is taken by READ transactions with exclusive reads
+    * only.
+    */
+   private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+   /**
+    * Serializes the WRITE transactions
+    */
+   private final ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+   /**
+    * The type of the transaction context of the current thread, null if none is active. A promoted READ_PROMOTE
+    * transaction has the type WRITE.
+    */
+   private final ThreadLocal<TransactionRepository.Type> activeType = new ThreadLocal<>();
+   /**
+    * The listeners told about the end of transactions
+    */
+   private final List<TransactionListener> listeners = new CopyOnWriteArrayList<>();
+
+   /**
+    * Listener for the end of the outermost transaction of a thread
+    */
+   public interface TransactionListener {
+      /**
+       * Called on the thread of the transaction after it ended
+       *
+       * @param committed
+       *                  true if the transaction has been committed, false if it has been aborted
+       */
+      void transactionEnded(boolean committed);
+   }
+
+   /**
+    * Creates a new transaction manager for the given dataset
+    *
+    * @param dataBase
+    *                 The dataset to manage the transactions for
+    */
+   public JenaTransactionManager(Dataset dataBase) {
+      this(dataBase, false);
+   }
+
+   /**
+    * Creates a new transaction manager for the given dataset
+    *
+    * @param dataBase
+    *                       The dataset to manage the transactions for
+    * @param exclusiveReads
+    *                       true if READ transactions have to wait for the WRITE transaction and the other way round
+    */
+   public JenaTransactionManager(Dataset dataBase, boolean exclusiveReads) {
+      this.dataBase = dataBase;
+      this.exclusiveReads = exclusiveReads;
+   }
+
+   /**
+    * Begins a transaction of the given type if the current thread is not already in a transaction. WRITE transactions
+    * wait until no other WRITE transaction is active, READ and READ_PROMOTE transactions start at once. With exclusive
+    * reads, WRITE and READ_PROMOTE transactions wait for the active READ transactions as well and READ transactions
+    * wait for the WRITE transaction. A WRITE call inside a READ_PROMOTE transaction promotes it.
+    *
+    * @param  type
+    *                                      The type of the transaction
+    * @return                              true if a new transaction has been begun, false if the call joined the
+    *                                      active one
+    * @throws TransactionConflictException
+    *                                      if the promotion failed because of a concurrent write
+    */
+   public boolean begin(TransactionRepository.Type type) {
+      if (dataBase.isInTransaction()) {
+         if (type == TransactionRepository.Type.Write
+               && activeType.get() == TransactionRepository.Type.ReadPromote) {
+            promote();
+         }
+         return false;
+      }
+      boolean isWrite = type == TransactionRepository.Type.Write
+            || exclusiveReads && type == TransactionRepository.Type.ReadPromote;
+      if (isWrite) {
+         log.trace("Waiting for the write lock.");
+         writeLock.lock();
+      } else if (exclusiveReads) {
+         log.trace("Waiting for the read lock.");
+         lock.readLock().lock();
+      }
+      try {
+         log.trace("Beginning {} transaction.", type);
+         dataBase.begin(translateType(type));
+      } catch (RuntimeException e) {
+         unlock();
+         throw e;
+      }
+      activeType.set(type);
+      log.trace("{} transaction now active.", type);
+      return true;
+   }
+
+   /**
+    * Aborts the transaction of the current thread, if there is one, and ends it. Nested calls abort the outermost
+    * transaction, later calls to {@link #end(boolean)} do nothing then.
+    */
+   public void abort() {
+      if (!dataBase.isInTransaction()) {
+         return;
+      }
+      try {
+         log.trace("Aborting transaction.");
+         dataBase.abort();
+      } finally {
+         dataBase.end();
+         notifyListeners(false);
+         release();
+         log.trace("Transaction aborted.");
+      }
+   }
+
+   /**
+    * Commits and ends the transaction of the current thread if it was begun by the caller
+    *
+    * @param wasOpened
+    *                  The value returned by the matching call to {@link #begin(TransactionRepository.Type)}
+    */
+   public void end(boolean wasOpened) {
+      if (!wasOpened || !dataBase.isInTransaction()) {
+         return;
+      }
+      boolean committed = false;
+      try {
+         log.trace("Committing transaction.");
+         dataBase.commit();
+         committed = true;
+      } finally {
+         dataBase.end();
+         notifyListeners(committed);
+         release();
+         log.trace("Transaction ended.");
+      }
+   }
+
+   /**
+    * Adds a listener told about the end of every outermost transaction
+    *
+    * @param listener
+    *                 The listener to add
+    */
+   public void addTransactionListener(TransactionListener listener) {
+      listeners.add(listener);
+   }
+
+   /**
+    * Gets the type of the transaction the current thread is in
+    *
+    * @return The transaction type, null if not in a transaction
+    */
+   public TransactionRepository.Type getActiveType() {
+      return activeType.get();
+   }
+
+   /**
+    * Checks whether a WRITE transaction is active at the moment
+    *
+    * @return true if any thread holds a WRITE transaction
+    */
+   public boolean isWriteActive() {
+      return lock.isWriteLocked();
+   }
+
+   private void promote() {
+      // With exclusive reads, the write lock is held since the transaction began
+      boolean locked = !writeLock.isHeldByCurrentThread();
+      if (locked) {
+         log.trace("Waiting for the write lock to promote.");
+         writeLock.lock();
+      }
+      boolean promoted = false;
+      try {
+         promoted = dataBase.promote();
+      } finally {
+         if (!promoted && locked) {
+            writeLock.unlock();
+         }
+      }
+      if (!promoted) {
+         throw new TransactionConflictException("Another write transaction committed first");
+      }
+      activeType.set(TransactionRepository.Type.Write);
+      log.trace("Transaction promoted.");
+   }
+
+   private void notifyListeners(boolean committed) {
+      for (TransactionListener listener : listeners) {
+         listener.transactionEnded(committed);
+      }
+   }
+
+   private void release() {
+      activeType.remove();
+      unlock();
+   }
+
+   private void unlock() {
+      if (writeLock.isHeldByCurrentThread()) {
+         writeLock.unlock();
+      } else if (lock.getReadHoldCount() > 0) {
+         lock.readLock().unlock();
+      }
+   }
+
+   private static TxnType translateType(TransactionRepository.Type type) {
+      switch (type) {
+         case Write:
+            return TxnType.WRITE;
+         case ReadPromote:
+            return TxnType.READ_PROMOTE;
+         default:
+            return TxnType.READ;
+      }
+   }
+}
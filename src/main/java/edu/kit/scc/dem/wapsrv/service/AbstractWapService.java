@@ -5,13 +5,18 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.apache.commons.rdf.api.BlankNodeOrIRI;
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Literal;
-import org.apache.commons.rdf.simple.Types;
+import org.apache.commons.rdf.api.Triple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +36,7 @@ import edu.kit.scc.dem.wapsrv.model.FormattableObject;
 import edu.kit.scc.dem.wapsrv.model.ModelFactory;
 import edu.kit.scc.dem.wapsrv.model.WapObject;
 import edu.kit.scc.dem.wapsrv.model.formats.Format;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfTransactionExecuter;
 import edu.kit.scc.dem.wapsrv.model.rdf.RdfUtilities;
 import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.DcTermsVocab;
 import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.WapVocab;
@@ -49,6 +55,15 @@ import edu.kit.scc.dem.wapsrv.repository.WapObjectRepository;
  * @version 1.1
  */
 public abstract class AbstractWapService implements WapService {
+   /**
+    * The number of objects after which the progress of a bulk delete is reported
+    */
+   private static final int BULK_DELETE_PROGRESS_INTERVAL = 10000;
+   /**
+    * The ETag updates deferred to the end of the coalescing write transaction the current thread is in, null if it is
+    * in none. Only the last ETag per object is written.
+    */
+   private static final ThreadLocal<Map<BlankNodeOrIRI, String>> pendingEtags = new ThreadLocal<>();
    /**
     * The model factory, autowired
     */
@@ -75,6 +90,11 @@ public abstract class AbstractWapService implements WapService {
     */
    @Autowired
    private ValidatorRegistry validatorRegistry;
+   /**
+    * The cache of rendered objects, autowired
+    */
+   @Autowired
+   protected RenderedBodyCache renderedBodyCache;
 
    /**
     * Gets the model factory
@@ -190,7 +210,48 @@ public abstract class AbstractWapService implements WapService {
       } else {
          throw new InternalServerException("We should check schema validity of anything other than anno/container");
       }
-      System.out.println("Validating annotation " + (System.currentTimeMillis() - before) + " ms");
+      log.debug("Validating {} took {} ms", type, System.currentTimeMillis() - before);
+   }
+
+   /**
+    * Checks already expanded JSON-LD for validity according to WADM schemas, see
+    * {@link #checkSchemaValidity(String, Format, FormattableObject.Type)}. Validators working on expanded JSON-LD get
+    * it as it is, see {@link Validator#isExpansionNeeded()}, others get it serialized.
+    * 
+    * @param  expandedJsonLd
+    *                                  The expanded JSON-LD of the annotation/container
+    * @param  type
+    *                                  The type of the JSON-LD, Annotation or Container
+    * @throws InternalServerException
+    *                                  If validator could not be instantiated
+    * @throws NotAnAnnotationException
+    *                                  If type annotation and invalid
+    * @throws NotAContainerException
+    *                                  If type container and invalid
+    */
+   protected void checkSchemaValidity(List<Object> expandedJsonLd, FormattableObject.Type type) {
+      if (!getWapServerConfig().isValidationEnabled() || type == FormattableObject.Type.CONTAINER) {
+         return;
+      }
+      final Validator validator = getValidatorRegistry().getValidator(Format.JSON_LD);
+      if (validator != null && validator.isExpansionNeeded()) {
+         // No need to serialize, the validator would only parse and expand it again
+         if (type == FormattableObject.Type.ANNOTATION) {
+            if (!validator.validateAnnotation(expandedJsonLd)) {
+               throw new NotAnAnnotationException();
+            }
+         } else {
+            throw new InternalServerException("We should check schema validity of anything other than anno/container");
+         }
+         return;
+      }
+      final String serializedString;
+      try {
+         serializedString = JsonUtils.toPrettyString(expandedJsonLd);
+      } catch (IOException e) {
+         throw new FormatException("Exception serializing JSON-LD : " + e.getMessage());
+      }
+      checkSchemaValidity(serializedString, Format.JSON_LD, type);
    }
 
    /**
@@ -216,8 +277,15 @@ public abstract class AbstractWapService implements WapService {
       }
    }
 
+   /**
+    * This methods asserts that only valid ids are used by replacing them if needed. Unlike
+    * {@link #assertValidIds(String)} the given JSON-LD is changed in place.
+    * 
+    * @param jsonList
+    *                 The parsed JSON-LD
+    */
    @SuppressWarnings("rawtypes")
-   private void assertValidIds(List jsonList) {
+   protected void assertValidIds(List jsonList) {
       for (Object member : jsonList) {
          if (member instanceof List) {
             assertValidIds((List) member);
@@ -304,13 +372,11 @@ public abstract class AbstractWapService implements WapService {
     */
    public void deleteObject(String iri, String parentSeqIri) {
       log.info("deleting object '" + iri + "'");
-      BlankNodeOrIRI node = repository.getRdf().createIRI(iri);
-      Literal trueLiteral = repository.getRdf().createLiteral("true", Types.XSD_BOOLEAN);
       String parentContainerIriString = WapObject.getParentContainerIriString(iri);
       BlankNodeOrIRI parentNode = repository.getRdf().createIRI(parentContainerIriString);
       repository.writeRdfTransaction(ds -> {
-         Graph graph = ds.getGraph(node).get();
-         graph.add(node, WapVocab.deleted, trueLiteral);
+         repository.markWapObjectDeleted(iri);
+         renderedBodyCache.invalidate(iri);
          repository.removeElementFromRdfSeq(parentContainerIriString, parentSeqIri, iri);
          updateEtag(parentNode, etagFactory.generateEtag());
       });
@@ -325,16 +391,35 @@ public abstract class AbstractWapService implements WapService {
     *                the IRI list
     */
    public void deleteObjectBulk(List<String> iriList) {
+      deleteObjectBulk(iriList::stream);
+   }
+
+   /**
+    * Delete WapObjects as Bulk. This function only marks every WapObject in the stream as "deleted" but does not
+    * remove it from its parent containers annotation/subcontainer rdf:seq. All tombstones are written in a single
+    * write transaction, the progress is logged for large bulks. A new stream is requested whenever the transaction is
+    * executed, since a group commit may execute it again. Every stream is closed once it has been consumed.
+    *
+    * @param iris
+    *             supplies the IRIs, consumed one after another
+    */
+   public void deleteObjectBulk(Supplier<Stream<String>> iris) {
       log.info("bulk deleting of objects.");
-      Literal trueLiteral = repository.getRdf().createLiteral("true", Types.XSD_BOOLEAN);
-      for (String iri : iriList) {
-         BlankNodeOrIRI node = repository.getRdf().createIRI(iri);
-         repository.writeRdfTransaction(ds -> {
-            log.info("bulk deleting annotation: '" + iri + "'");
-            ds.add(node, node, WapVocab.deleted, trueLiteral);
-         });
-      }
-      log.info("bulk deleting of objects done.");
+      long[] deleted = new long[1];
+      repository.writeRdfTransaction(ds -> {
+         deleted[0] = 0;
+         try (Stream<String> iriStream = iris.get()) {
+            iriStream.forEach(iri -> {
+               log.trace("bulk deleting annotation: '" + iri + "'");
+               repository.markWapObjectDeleted(iri);
+               renderedBodyCache.invalidate(iri);
+               if (++deleted[0] % BULK_DELETE_PROGRESS_INTERVAL == 0) {
+                  log.info("bulk deleted " + deleted[0] + " objects so far.");
+               }
+            });
+         }
+      });
+      log.info("bulk deleting of " + deleted[0] + " objects done.");
    }
 
    /**
@@ -347,16 +432,15 @@ public abstract class AbstractWapService implements WapService {
     *                     the new etag for the WapObject
     */
    public void updateEtag(BlankNodeOrIRI node, String generateEtag) {
+      Map<BlankNodeOrIRI, String> pending = pendingEtags.get();
+      if (pending != null) {
+         log.trace("deferring etag update for: '" + node.ntriplesString() + "' to the end of the transaction");
+         pending.put(node, generateEtag);
+         return;
+      }
       log.info("updating etag for: '" + node.ntriplesString() + "' with given etag: '" + generateEtag + "'");
-      Literal etagLiteral = repository.getRdf().createLiteral(generateEtag);
-      Literal modifiedLiteral = RdfUtilities.rdfLiteralFromCalendar(Calendar.getInstance(), repository.getRdf());
       repository.writeRdfTransaction(ds -> {
-         Graph graph = ds.getGraph(node).get();
-         graph.remove(node, WapVocab.etag, null);
-         graph.add(node, WapVocab.etag, etagLiteral);
-         // Update the Modified
-         graph.remove(node, DcTermsVocab.modified, null);
-         graph.add(node, DcTermsVocab.modified, modifiedLiteral);
+         writeEtag(ds, node, generateEtag);
       });
       log.info("updated etag for: '" + node.ntriplesString() + "'");
    }
@@ -382,9 +466,9 @@ public abstract class AbstractWapService implements WapService {
     *                  the WapObject to be put in the database.
     */
    protected void writeWapObjectToDb(WapObject wapObject) {
-      log.info("writeing WapObject to DB: '" + wapObject.getIriString() + "'");
+      log.debug("Writing WapObject to DB: '{}'", wapObject.getIriString());
       String etag = wapObject.getEtag();
-      String iriString = wapObject.getIriString();
+      BlankNodeOrIRI node = repository.getRdf().createIRI(wapObject.getIriString());
       repository.writeRdfTransaction(ds -> {
          repository.writeObjectToDatabase(wapObject);
          // Add ETag
@@ -393,10 +477,65 @@ public abstract class AbstractWapService implements WapService {
             newEtag = etagFactory.generateEtag();
             wapObject.setEtag(newEtag);
          }
-         // Update ETag of this object
-         updateEtag(iriString, newEtag);
+         // ETag and modified of the object are written together with it, not deferred
+         writeEtag(ds, node, newEtag);
       });
-      log.info("writeing WapObject: '" + wapObject.getIriString() + "' successfull.");
+      log.debug("Writing WapObject: '{}' successful.", wapObject.getIriString());
+   }
+
+   /**
+    * Performs a write transaction in which ETag updates are coalesced. Calls to {@link #updateEtag(BlankNodeOrIRI,
+    * String)} inside the transaction are deferred, each changed object gets its ETag and modified date written once at
+    * the end of the transaction. Until then the old ETag is read from the database. A call inside another coalescing
+    * transaction joins it.
+    *
+    * @param transaction
+    *                    the transaction function
+    */
+   protected void coalescingWriteTransaction(RdfTransactionExecuter transaction) {
+      repository.writeRdfTransaction(ds -> {
+         if (pendingEtags.get() != null) {
+            transaction.execute(ds);
+            return;
+         }
+         Map<BlankNodeOrIRI, String> pending = new LinkedHashMap<>();
+         pendingEtags.set(pending);
+         try {
+            transaction.execute(ds);
+         } finally {
+            pendingEtags.remove();
+         }
+         for (Map.Entry<BlankNodeOrIRI, String> entry : pending.entrySet()) {
+            log.info("updating etag for: '" + entry.getKey().ntriplesString() + "' with given etag: '"
+                  + entry.getValue() + "'");
+            writeEtag(ds, entry.getKey(), entry.getValue());
+         }
+      });
+   }
+
+   /**
+    * Replaces the ETag and the modified date of the object. Has to be called inside a write transaction.
+    *
+    * @param ds
+    *             the transaction dataset
+    * @param node
+    *             the IRI of the WapObject
+    * @param etag
+    *             the new etag for the WapObject
+    */
+   private void writeEtag(Dataset ds, BlankNodeOrIRI node, String etag) {
+      Literal etagLiteral = repository.getRdf().createLiteral(etag);
+      Literal modifiedLiteral = RdfUtilities.rdfLiteralFromCalendar(Calendar.getInstance(), repository.getRdf());
+      Graph graph = ds.getGraph(node).get();
+      graph.remove(node, WapVocab.etag, null);
+      graph.add(node, WapVocab.etag, etagLiteral);
+      // Update the Modified
+      graph.remove(node, DcTermsVocab.modified, null);
+      graph.add(node, DcTermsVocab.modified, modifiedLiteral);
+      // Bodies rendered with the old ETag are never served again
+      if (node instanceof IRI) {
+         renderedBodyCache.invalidate(((IRI) node).getIRIString());
+      }
    }
 
    /**
@@ -409,14 +548,13 @@ public abstract class AbstractWapService implements WapService {
     */
    public void checkExistsAndNotDeleted(String objectIri) {
       String typeString = objectIri.endsWith("/") ? "container" : "annotation";
-      repository.readRdfTransaction(ds -> {
-         if (!containsIri(objectIri)) {
-            throw new NotExistentException("The requested " + typeString + " does not exist.");
-         }
-         if (isIriDeleted(objectIri)) {
-            throw new ResourceDeletedException("The requested " + typeString + " has already been deleted.");
-         }
-      });
+      // No transaction needed here, the repository may answer both checks without reading the database
+      if (!containsIri(objectIri)) {
+         throw new NotExistentException("The requested " + typeString + " does not exist.");
+      }
+      if (isIriDeleted(objectIri)) {
+         throw new ResourceDeletedException("The requested " + typeString + " has already been deleted.");
+      }
    }
 
    /**
@@ -428,14 +566,9 @@ public abstract class AbstractWapService implements WapService {
     */
    public boolean containsIri(String iri) {
       log.info("checking if exists: '" + iri + "'");
-      Boolean[] result = new Boolean[1];
-      BlankNodeOrIRI node = repository.getRdf().createIRI(iri);
-      repository.readRdfTransaction(ds -> {
-         Graph graph = ds.getGraph(node).get();
-         result[0] = graph.contains(node, null, null);
-      });
-      log.info("check exists result for: '" + iri + "' is: '" + result[0] + "'");
-      return result[0];
+      boolean result = repository.containsWapObject(iri);
+      log.info("check exists result for: '" + iri + "' is: '" + result + "'");
+      return result;
    }
 
    /**
@@ -447,14 +580,9 @@ public abstract class AbstractWapService implements WapService {
     */
    public boolean isIriDeleted(String iri) {
       log.info("checking if deleted: '" + iri + "'");
-      Boolean[] result = new Boolean[1];
-      BlankNodeOrIRI node = repository.getRdf().createIRI(iri);
-      repository.readRdfTransaction(ds -> {
-         Graph graph = ds.getGraph(node).get();
-         result[0] = graph.contains(node, WapVocab.deleted, null);
-      });
-      log.info("check deleted result for: '" + iri + "' is: '" + result[0] + "'");
-      return result[0];
+      boolean result = repository.isWapObjectDeleted(iri);
+      log.info("check deleted result for: '" + iri + "' is: '" + result + "'");
+      return result;
    }
 
    /**
@@ -477,4 +605,52 @@ public abstract class AbstractWapService implements WapService {
       log.info("Get Annotation finished: '" + iri + "'");
       return modelFactory.createAnnotation(retDs[0]);
    }
+
+   /**
+    * Gets the Annotation as a read only view on the database, without copying it. It has to be called inside a
+    * transaction and the annotation must not be used after the transaction ended. First it will be checked if the IRI
+    * exists and is not deleted.
+    *
+    * @param  iri
+    *                      the IRI for the Annotation
+    * @return              the requested annotation, valid until the end of the current transaction
+    * @throws WapException
+    *                      the Exceptions from @see #checkExistsAndNotDeleted(String)
+    */
+   protected Annotation getAnnotationView(String iri) throws WapException {
+      log.trace("Get Annotation view from DB: '" + iri + "'");
+      Annotation[] annotation = new Annotation[1];
+      repository.readRdfTransaction(ds -> {
+         checkExistsAndNotDeleted(iri);
+         annotation[0] = modelFactory.createAnnotation(repository.getWapObjectView(iri));
+      });
+      return annotation[0];
+   }
+
+   /**
+    * Gets the ETag stored for the WapObject without reading the rest of it. First it will be checked if the IRI exists
+    * and is not deleted.
+    *
+    * @param  iri
+    *                      the IRI of the WapObject
+    * @return              the ETag in the database, null if the object has none
+    * @throws WapException
+    *                      the Exceptions from @see #checkExistsAndNotDeleted(String)
+    */
+   @Override
+   public String getEtag(String iri) throws WapException {
+      BlankNodeOrIRI node = repository.getRdf().createIRI(iri);
+      String[] etag = new String[1];
+      repository.readRdfTransaction(ds -> {
+         checkExistsAndNotDeleted(iri);
+         Optional<Graph> graph = ds.getGraph(node);
+         if (graph.isPresent()) {
+            Optional<? extends Triple> etagTriple = graph.get().stream(node, WapVocab.etag, null).findFirst();
+            if (etagTriple.isPresent()) {
+               etag[0] = RdfUtilities.nStringToString(etagTriple.get().getObject().ntriplesString());
+            }
+         }
+      });
+      return etag[0];
+   }
 }
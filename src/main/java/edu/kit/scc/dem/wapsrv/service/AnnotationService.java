@@ -1,9 +1,11 @@
 package edu.kit.scc.dem.wapsrv.service;
 
+import java.io.BufferedReader;
 import edu.kit.scc.dem.wapsrv.exceptions.WapException;
 import edu.kit.scc.dem.wapsrv.model.Annotation;
 import edu.kit.scc.dem.wapsrv.model.AnnotationList;
 import edu.kit.scc.dem.wapsrv.model.formats.Format;
+import edu.kit.scc.dem.wapsrv.model.formats.Formatter;
 
 /**
  * The annotation interface to act as the bridge between the storage layer in the repositories and the REST request
@@ -64,6 +66,22 @@ public interface AnnotationService extends WapService {
     */
    AnnotationList postAnnotation(String containerIri, String rawAnnotation, Format format) throws WapException;
 
+   /**
+    * Imports new Annotations into the container denoted by the given containerIri. Every line holds one JSON-LD
+    * Annotation, empty lines are skipped. The Annotations are checked like in
+    * {@link #postAnnotation(String, String, Format)} and stored in chunks, each in one transaction. A line that fails is
+    * reported in the result and does not stop the import of the following lines.
+    * 
+    * @param  containerIri
+    *                       The IRI of the container
+    * @param  lines
+    *                       The JSON-LD Annotations, one per line
+    * @return               The number of imported Annotations and the lines that failed
+    * @throws WapException
+    *                       If the container does not allow the import or the lines cannot be read
+    */
+   BulkImportResult importAnnotations(String containerIri, BufferedReader lines) throws WapException;
+
    /**
     * Deletes the {@link Annotation} denoted by the given IRI if ETags match
     * 
@@ -75,4 +93,38 @@ public interface AnnotationService extends WapService {
     *                      In case any errors occurred
     */
    void deleteAnnotation(String iri, String etag) throws WapException;
+
+   /**
+    * Gets the Annotation denoted by the given IRI rendered with the given formatter.
+    * <p>
+    * Implementations may return a body rendered before, as long as the annotation has not changed since.
+    * 
+    * @param  iri
+    *                      The IRI of the annotation
+    * @param  formatter
+    *                      The formatter to render the annotation with
+    * @return              The rendered annotation together with its ETag
+    * @throws WapException
+    *                      In case any errors occurred
+    */
+   default RenderedBody getRenderedAnnotation(String iri, Formatter formatter) throws WapException {
+      Annotation annotation = getAnnotation(iri);
+      return new RenderedBody(annotation.getEtag(), formatter.format(annotation));
+   }
+
+   /**
+    * Gets the Annotation denoted by the given IRI as rendered before with the given formatter, without reading or
+    * rendering it.
+    * 
+    * @param  iri
+    *                   The IRI of the annotation
+    * @param  etag
+    *                   The current ETag of the annotation
+    * @param  formatter
+    *                   The formatter the annotation has to be rendered with
+    * @return           The rendered annotation, null if it is not available without rendering
+    */
+   default String getCachedRenderedAnnotation(String iri, String etag, Formatter formatter) {
+      return null;
+   }
 }
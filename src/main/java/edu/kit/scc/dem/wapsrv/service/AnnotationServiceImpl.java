@@ -1,5 +1,9 @@
 package edu.kit.scc.dem.wapsrv.service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.apache.commons.rdf.api.BlankNodeOrIRI;
@@ -20,6 +24,7 @@ import edu.kit.scc.dem.wapsrv.model.Container;
 import edu.kit.scc.dem.wapsrv.model.FormattableObject;
 import edu.kit.scc.dem.wapsrv.model.WapObject;
 import edu.kit.scc.dem.wapsrv.model.formats.Format;
+import edu.kit.scc.dem.wapsrv.model.formats.Formatter;
 import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
 import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.AnnoVocab;
 import edu.kit.scc.dem.wapsrv.repository.AnnotationRepository;
@@ -74,54 +79,57 @@ public class AnnotationServiceImpl extends AbstractWapService implements Annotat
   @Override
   public Annotation putAnnotation(final String iri, final String etag, String rawAnnotation, Format format)
           throws WapException{
-    // If format is JSON_LD, expand it
-    String annotationString = null;
-    if(format == Format.JSON_LD){
-      annotationString = jsonLdProfileRegistry.expandJsonLd(rawAnnotation);
-    } else{
-      annotationString = rawAnnotation;
-    }
-    // Check if the annotation exists and is not deleted
-    checkExistsAndNotDeleted(iri);
-    // put can now again be validated after invalid blank node iris _:b....
-    // are not copied to via anymore
-    checkSchemaValidity(annotationString, format, FormattableObject.Type.ANNOTATION);
-    // if code is reached, everything was fine
-    Annotation existingAnnotation = getAnnotation(iri);
-    if(!existingAnnotation.getEtag().equals(etag)){
-      throw new EtagDoesntMatchException(
-              "ETag mismatch : provided ETag : " + etag + " , DB ETag : " + existingAnnotation.getEtagQuoted());
-    }
-    Annotation newAnnotation = getModelFactory().createAnnotation(annotationString, format);
-    if(!iri.equals(newAnnotation.getIriString())){
-      throw new UnallowedPropertyChangeException("The IRI cannot change with a PUT requests");
-    }
-    /**
-     * Servers SHOULD reject update requests that modify the values of the canonical or via properties,
-     * if they have been already set
-     */
-    // Check if no forbidden field has been changed canonical (there is only one)
-    if(existingAnnotation.hasProperty(AnnoVocab.canonical) && !existingAnnotation.isPropertyEqual(newAnnotation, AnnoVocab.canonical)){
-      throw new UnallowedPropertyChangeException("canonical property cannot change");
-    }
-    // Check via (there may be more)
-    if(existingAnnotation.hasProperty(AnnoVocab.via) && !existingAnnotation.isPropertyWithMultipleValuesEqual(newAnnotation, AnnoVocab.via)){
-      throw new UnallowedPropertyChangeException("via properties cannot change");
-    }
-    String oldEtag = etag;
-    // Just to clarify this. The annotation has already a new one set.
-    BlankNodeOrIRI node = repository.getRdf().createIRI(iri);
-    repository.writeRdfTransaction(ds -> {
+    // If format is JSON_LD, expand it. The expanded tree is used as it is, without serializing it again.
+    final List<Object> expandedAnnotation
+            = format == Format.JSON_LD ? jsonLdProfileRegistry.expandJsonLdTree(rawAnnotation) : null;
+    final Annotation[] returnAnnotation = new Annotation[1];
+    // Checks and update in one transaction, it is promoted to a write transaction only to replace the annotation.
+    // There is no window anymore in which another request could change the annotation between check and write.
+    repository.readPromoteRdfTransaction(ds -> {
+      // Check if the annotation exists and is not deleted
       checkExistsAndNotDeleted(iri);
-      checkEtag(iri, oldEtag);
-      ds.remove(Optional.of(node), null, null, null);
-      writeWapObjectToDb(newAnnotation);
-      // New ETag for parent container
-      updateEtag(WapObject.getParentContainerIriString(iri), etagFactory.generateEtag());
+      // put can now again be validated after invalid blank node iris _:b....
+      // are not copied to via anymore
+      if(expandedAnnotation != null){
+        checkSchemaValidity(expandedAnnotation, FormattableObject.Type.ANNOTATION);
+      } else{
+        checkSchemaValidity(rawAnnotation, format, FormattableObject.Type.ANNOTATION);
+      }
+      // if code is reached, everything was fine
+      // Only used for the checks inside this transaction
+      Annotation existingAnnotation = getAnnotationView(iri);
+      if(!existingAnnotation.getEtag().equals(etag)){
+        throw new EtagDoesntMatchException(
+                "ETag mismatch : provided ETag : " + etag + " , DB ETag : " + existingAnnotation.getEtagQuoted());
+      }
+      Annotation newAnnotation = expandedAnnotation != null ? getModelFactory().createAnnotation(expandedAnnotation)
+              : getModelFactory().createAnnotation(rawAnnotation, format);
+      if(!iri.equals(newAnnotation.getIriString())){
+        throw new UnallowedPropertyChangeException("The IRI cannot change with a PUT requests");
+      }
+      /**
+       * Servers SHOULD reject update requests that modify the values of the canonical or via properties,
+       * if they have been already set
+       */
+      // Check if no forbidden field has been changed canonical (there is only one)
+      if(existingAnnotation.hasProperty(AnnoVocab.canonical) && !existingAnnotation.isPropertyEqual(newAnnotation, AnnoVocab.canonical)){
+        throw new UnallowedPropertyChangeException("canonical property cannot change");
+      }
+      // Check via (there may be more)
+      if(existingAnnotation.hasProperty(AnnoVocab.via) && !existingAnnotation.isPropertyWithMultipleValuesEqual(newAnnotation, AnnoVocab.via)){
+        throw new UnallowedPropertyChangeException("via properties cannot change");
+      }
+      BlankNodeOrIRI node = repository.getRdf().createIRI(iri);
+      coalescingWriteTransaction(writeDs -> {
+        writeDs.remove(Optional.of(node), null, null, null);
+        writeWapObjectToDb(newAnnotation);
+        // New ETag for parent container
+        updateEtag(WapObject.getParentContainerIriString(iri), etagFactory.generateEtag());
+      });
+      returnAnnotation[0] = getAnnotation(iri);
     });
-    Annotation returnAnnotation = getAnnotation(iri);
     // If no exception has been thrown ETag matched and annotation was updated
-    return returnAnnotation;
+    return returnAnnotation[0];
   }
 
   @Override
@@ -145,26 +153,157 @@ public class AnnotationServiceImpl extends AbstractWapService implements Annotat
     }
     // Check if the container exists and is not deleted.
     checkExistsAndNotDeleted(containerIri);
-    // If format is JSON_LD, expand it.
-    String annotationString = null;
+    AnnotationList list = parseAnnotations(rawAnnotation, format);
+    list.setContainerIri(containerIri);
+    if(list.size() > 1 && !getWapServerConfig().isMultipleAnnotationPostAllowed()){
+      throw new MethodNotAllowedException("Multiple annotation posting is disabled");
+    }
+    for(Annotation annotation : list.getAnnotations()){
+      prepareNewAnnotation(annotation, containerIri);
+    }
+    String newContainerEtag = etagFactory.generateEtag();
+    // Store container IRI for later use
+    list.setContainerIri(list.iterator().next().getContainerIri());
+    // The container ETag is written once, not for every annotation added
+    coalescingWriteTransaction((ds) -> {
+      for(Annotation a : list){
+        addAnnotation(a);
+      }
+      updateEtag(list.getContainerIri(), newContainerEtag);
+      list.setContainerEtag(newContainerEtag);
+    });
+    return list;
+  }
+
+  @Override
+  public BulkImportResult importAnnotations(final String containerIri, BufferedReader lines) throws WapException{
+    if(getWapServerConfig().isRootWapUrl(containerIri)){
+      throw new MethodNotAllowedException("Post annotation to the root container not allowed");
+    }
+    checkExistsAndNotDeleted(containerIri);
+    final int chunkSize = Math.max(1, getWapServerConfig().getBulkImportChunkSize());
+    final BulkImportResult result = new BulkImportResult();
+    final List<Annotation> chunk = new ArrayList<>(chunkSize);
+    final List<Long> chunkLines = new ArrayList<>(chunkSize);
+    long lineNumber = 0;
+    try{
+      String line;
+      while((line = lines.readLine()) != null){
+        lineNumber++;
+        if(line.isBlank()){
+          continue;
+        }
+        try{
+          AnnotationList list = parseAnnotations(line, Format.JSON_LD);
+          if(list.size() != 1){
+            throw new NotAnAnnotationException("Exactly one annotation per line expected, found " + list.size());
+          }
+          Annotation annotation = list.getAnnotations().get(0);
+          prepareNewAnnotation(annotation, containerIri);
+          chunk.add(annotation);
+          chunkLines.add(lineNumber);
+        } catch(RuntimeException ex){
+          // Not only WapExceptions, a line the RDF parser chokes on must not end the import either
+          result.addError(lineNumber, getErrorMessage(ex));
+        }
+        if(chunk.size() >= chunkSize){
+          storeChunk(containerIri, chunk, chunkLines, result);
+        }
+      }
+    } catch(IOException ex){
+      // Everything read so far is still stored, the client learns where reading stopped
+      result.addError(lineNumber + 1, "Could not read the request body : " + ex.getMessage());
+    }
+    storeChunk(containerIri, chunk, chunkLines, result);
+    return result;
+  }
+
+  /**
+   * Stores a chunk of a bulk import in one transaction. The annotations get
+   * their sequence entries in one batch and the container ETag is written
+   * once. If the chunk cannot be stored for whatever reason, all its lines are
+   * reported as failed and the import goes on with the next chunk.
+   *
+   * @param containerIri The IRI of the container
+   * @param chunk The prepared annotations, cleared afterwards
+   * @param chunkLines The line numbers of the annotations, cleared afterwards
+   * @param result The result to add the outcome to
+   */
+  private void storeChunk(String containerIri, List<Annotation> chunk, List<Long> chunkLines,
+          BulkImportResult result){
+    if(chunk.isEmpty()){
+      return;
+    }
+    final List<String> iris = new ArrayList<>(chunk.size());
+    try{
+      coalescingWriteTransaction(ds -> {
+        // The container may have been deleted while the previous chunks were imported
+        checkExistsAndNotDeleted(containerIri);
+        iris.clear();
+        for(Annotation annotation : chunk){
+          // The IRIs are new random UUIDs, no need to look them up like in addAnnotation
+          writeWapObjectToDb(annotation);
+          iris.add(annotation.getIriString());
+        }
+        repository.addElementsToRdfSeq(containerIri, Container.toAnnotationSeqIriString(containerIri), iris);
+        updateEtag(containerIri, etagFactory.generateEtag());
+      });
+      result.addImported(chunk.size());
+    } catch(RuntimeException ex){
+      // The transaction has been aborted, nothing of the chunk is stored
+      final String message = getErrorMessage(ex);
+      for(long line : chunkLines){
+        result.addError(line, message);
+      }
+    }
+    chunk.clear();
+    chunkLines.clear();
+  }
+
+  /**
+   * Gets the message reported for a line of a bulk import that failed
+   *
+   * @param ex The exception the line failed with
+   * @return The message of the exception, its class name if it has none
+   */
+  private static String getErrorMessage(RuntimeException ex){
+    return ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+  }
+
+  /**
+   * Expands, checks and parses posted annotations
+   *
+   * @param rawAnnotation A String representation of the annotation(s)
+   * @param format The data format used
+   * @return The parsed annotations
+   * @throws WapException if the annotations are not valid
+   */
+  private AnnotationList parseAnnotations(String rawAnnotation, Format format) throws WapException{
+    // If format is JSON_LD, expand it. The expanded tree is checked and converted to RDF without serializing it again.
     if(format == Format.JSON_LD){
-      annotationString = jsonLdProfileRegistry.expandJsonLd(rawAnnotation);
+      List<Object> expandedAnnotations = jsonLdProfileRegistry.expandJsonLdTree(rawAnnotation);
       try{
-        annotationString = assertValidIds(annotationString);
+        assertValidIds(expandedAnnotations);
       } catch(FormatException ex){
         throw new NotAnAnnotationException(ex.getMessage());
       }
-    } else{
-      annotationString = rawAnnotation;
+      checkSchemaValidity(expandedAnnotations, FormattableObject.Type.ANNOTATION);
+      // If code is reached, everything was fine.
+      return getModelFactory().createAnnotationList(expandedAnnotations);
     }
-    checkSchemaValidity(annotationString, format, FormattableObject.Type.ANNOTATION);
+    checkSchemaValidity(rawAnnotation, format, FormattableObject.Type.ANNOTATION);
     // If code is reached, everything was fine.
-    AnnotationList list = getModelFactory().createAnnotationList(annotationString, format);
-    list.setContainerIri(containerIri);
-    if(list.size() > 1 && !getWapServerConfig().isMultipleAnnotationPostAllowed()){
-      throw new MethodNotAllowedException("Multiple annotation posting is disabled");
-    }
-    for(Annotation annotation : list.getAnnotations()){
+    return getModelFactory().createAnnotationList(rawAnnotation, format);
+  }
+
+  /**
+   * Checks a posted annotation and gives it its new IRI in the container
+   *
+   * @param annotation The posted annotation
+   * @param containerIri The IRI of the container
+   * @throws NotAnAnnotationException if the annotation has no IRI or target
+   */
+  private void prepareNewAnnotation(Annotation annotation, String containerIri) throws NotAnAnnotationException{
       // Validity checks only assure that field values are in the expected format, but they do not ensure
       // existence. Therefore it must be ensured that these basic values exist here. This is always done.
       if(annotation.getIri() == null){
@@ -182,18 +321,6 @@ public class AnnotationServiceImpl extends AbstractWapService implements Annotat
       annotation.setCreated();
       // Update last modified - automatically done with ETag update annotation.updateModified();
       // ETag will be generated on changes in the repository. annotation.setEtag(generateEtag());
-    }
-    String newContainerEtag = etagFactory.generateEtag();
-    // Store container IRI for later use
-    list.setContainerIri(list.iterator().next().getContainerIri());
-    repository.writeRdfTransaction((ds) -> {
-      for(Annotation a : list){
-        addAnnotation(a);
-      }
-      updateEtag(list.getContainerIri(), newContainerEtag);
-      list.setContainerEtag(newContainerEtag);
-    });
-    return list;
   }
 
   @Override
@@ -215,4 +342,27 @@ public class AnnotationServiceImpl extends AbstractWapService implements Annotat
     //   });
     return a;
   }
+
+  // Only looks up the rendered body cache, the annotation is neither read nor rendered
+  @Override
+  public String getCachedRenderedAnnotation(String iri, String etag, Formatter formatter){
+    return renderedBodyCache.get(iri, etag, formatter);
+  }
+
+  @Override
+  public RenderedBody getRenderedAnnotation(String iri, Formatter formatter) throws WapException{
+    if(!renderedBodyCache.isEnabled()){
+      return AnnotationService.super.getRenderedAnnotation(iri, formatter);
+    }
+    String storedEtag = getEtag(iri);
+    String body = renderedBodyCache.get(iri, storedEtag, formatter);
+    if(body != null){
+      return new RenderedBody(storedEtag, body);
+    }
+    long generation = renderedBodyCache.getGeneration();
+    Annotation annotation = getAnnotation(iri);
+    body = formatter.format(annotation);
+    renderedBodyCache.put(iri, annotation.getEtag(), formatter, body, generation);
+    return new RenderedBody(annotation.getEtag(), body);
+  }
 }
@@ -0,0 +1,103 @@
+package edu.kit.scc.dem.wapsrv.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk import: the number of imported annotations and the lines that could not be imported
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public final class BulkImportResult {
+   /**
+    * The number of imported annotations
+    */
+   private long imported;
+   /**
+    * The lines that could not be imported, in the order they were read
+    */
+   private final List<LineError> errors = new ArrayList<>();
+
+   /**
+    * Adds imported annotations
+    *
+    * @param count
+    *              The number of annotations imported
+    */
+   void addImported(int count) {
+      imported += count;
+   }
+
+   /**
+    * Adds a line that could not be imported
+    *
+    * @param line
+    *                The line number, starting at 1
+    * @param message
+    *                The reason
+    */
+   void addError(long line, String message) {
+      errors.add(new LineError(line, message));
+   }
+
+   /**
+    * Gets the number of imported annotations
+    *
+    * @return The number of imported annotations
+    */
+   public long getImported() {
+      return imported;
+   }
+
+   /**
+    * Gets the lines that could not be imported
+    *
+    * @return The errors in the order of the lines
+    */
+   public List<LineError> getErrors() {
+      return Collections.unmodifiableList(errors);
+   }
+
+   /**
+    * A line that could not be imported
+    */
+   public static final class LineError {
+      /**
+       * The line number, starting at 1
+       */
+      private final long line;
+      /**
+       * The reason
+       */
+      private final String message;
+
+      LineError(long line, String message) {
+         this.line = line;
+         this.message = message;
+      }
+
+      /**
+       * Gets the line number
+       *
+       * @return The line number, starting at 1
+       */
+      public long getLine() {
+         return line;
+      }
+
+      /**
+       * Gets the reason the line could not be imported
+       *
+       * @return The reason
+       */
+      public String getMessage() {
+         return message;
+      }
+   }
+}
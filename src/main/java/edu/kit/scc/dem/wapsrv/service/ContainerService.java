@@ -78,4 +78,16 @@ public interface ContainerService extends WapService {
     *                             In case any errors occurred
     */
    Page getPage(String containerIri, int containerPreference, int pageNr) throws WapException;
+
+   /**
+    * Checks that the Page with the given number of the Container denoted by the given IRI exists, without reading it.
+    * 
+    * @param  containerIri
+    *                      The IRI of the container
+    * @param  pageNr
+    *                      The number of the page
+    * @throws WapException
+    *                      In case any errors occurred, e.g. the container or the page does not exist
+    */
+   void checkPageExists(String containerIri, int pageNr) throws WapException;
 }
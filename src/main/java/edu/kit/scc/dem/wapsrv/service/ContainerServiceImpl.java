@@ -22,7 +22,6 @@ import edu.kit.scc.dem.wapsrv.exceptions.NotExistentException;
 import edu.kit.scc.dem.wapsrv.exceptions.ResourceDeletedException;
 import edu.kit.scc.dem.wapsrv.exceptions.ResourceExistsException;
 import edu.kit.scc.dem.wapsrv.exceptions.WapException;
-import edu.kit.scc.dem.wapsrv.model.Annotation;
 import edu.kit.scc.dem.wapsrv.model.Container;
 import edu.kit.scc.dem.wapsrv.model.ContainerPreference;
 import edu.kit.scc.dem.wapsrv.model.FormattableObject;
@@ -77,9 +76,11 @@ public class ContainerServiceImpl extends AbstractWapService implements Containe
         throw new ContainerNotEmptyException("The container has subcontainers and cannot be deleted");
       }
       deleteObject(iri, Container.toContainerSeqIriString(WapObject.getParentContainerIriString(iri)));
-      List<String> annoIris = repository.getAllObjectIrisOfSeq(iri, Container.toAnnotationSeqIriString(iri));
-      log.info("deleting " + annoIris.size() + " annotations form Container: '" + iri + "'");
-      deleteObjectBulk(annoIris);
+      String annoSeqIri = Container.toAnnotationSeqIriString(iri);
+      log.info("deleting " + repository.countElementsInSeq(iri, annoSeqIri) + " annotations form Container: '" + iri
+              + "'");
+      // The IRIs are streamed, a large container is never held in memory as a whole
+      deleteObjectBulk(() -> repository.streamAllObjectIrisOfSeq(iri, annoSeqIri));
       repository.emptySeq(iri, Container.toAnnotationSeqIriString(iri));
     });
     log.info("deleting of Container: '" + iri + "' was finished with success");
@@ -138,32 +139,41 @@ public class ContainerServiceImpl extends AbstractWapService implements Containe
     }
     checkSchemaValidity(rawContainer, format, FormattableObject.Type.CONTAINER);
     // If code is reached, everything was fine.
+    final String containerName = newName;
+    final Container[] container = new Container[1];
+    // Checks and creation in one transaction, it is promoted to a write transaction only to store the container.
+    // There is no window anymore in which another request could create the same container in between.
+    repository.readPromoteRdfTransaction(ds -> {
+      container[0] = createContainer(baseContainerIri, containerName, rawContainer, format, overwriteIfDeleted);
+    });
+    log.info("Post Container for: '" + container[0].getIriString() + "' successful.");
+    // If no exception, everything is fine.
+    return container[0];
+  }
+
+  private Container createContainer(String baseContainerIri, String newName, String rawContainer, Format format,
+          boolean overwriteIfDeleted){
     // check the parent container
     checkExistsAndNotDeleted(baseContainerIri);
-    // If format is JSON_LD, expand it.
-    String containerString = null;
+    // If format is JSON_LD, expand it. The expanded tree is converted to RDF without serializing it again.
+    List<Object> expandedContainer = null;
     if(format == Format.JSON_LD){
       log.info("expanding JSONLD");
-      containerString = jsonLdProfileRegistry.expandJsonLd(rawContainer);
+      expandedContainer = jsonLdProfileRegistry.expandJsonLdTree(rawContainer);
       try{
-        containerString = assertValidIds(containerString);
+        assertValidIds(expandedContainer);
       } catch(FormatException ex){
         log.warn("some ids in the JSONLD file are not valid.");
         throw new NotAContainerException(ex.getMessage());
       }
-    } else{
-      containerString = rawContainer;
     }
     final String containerIri = baseContainerIri + newName + "/";
+    final boolean recreate;
     if(containsIri(containerIri)){
       if(isIriDeleted(containerIri)){
         if(overwriteIfDeleted){
           // Slug was given, we may overwrite deleted containers, go on
-          log.info("Slug used to recreate deleted container: '" + containerIri + "'. Deleting old data.");
-          repository.writeRdfTransaction(ds -> {
-            Optional<BlankNodeOrIRI> node = Optional.of(repository.getRdf().createIRI(containerIri));
-            ds.remove(node, null, null, null);
-          });
+          recreate = true;
         } else{
           throw new ResourceDeletedException(
                   "A container with that IRI once existed " + "and is now deleted. Recreation is forbidden.");
@@ -171,8 +181,12 @@ public class ContainerServiceImpl extends AbstractWapService implements Containe
       } else{
         throw new ResourceExistsException("A container with that IRI already exists");
       }
+    } else{
+      recreate = false;
     }
-    Container container = getModelFactory().createContainer(containerString, format, containerIri);
+    Container container = expandedContainer != null
+            ? getModelFactory().createContainer(expandedContainer, containerIri)
+            : getModelFactory().createContainer(rawContainer, format, containerIri);
     // No exception ==> everything fine
     // To backup the container IRI provided is not needed because it is not documented in the
     // specification.
@@ -187,10 +201,11 @@ public class ContainerServiceImpl extends AbstractWapService implements Containe
         container.createDefaultLabel();
       }
     }
-    repository.writeRdfTransaction(ds -> {
-      if(containsIri(container.getIriString())){
-        throw new ResourceExistsException(
-                "A container with the IRI: '" + container.getIriString() + "' already exists in the Database.");
+    coalescingWriteTransaction(ds -> {
+      if(recreate){
+        log.info("Slug used to recreate deleted container: '" + containerIri + "'. Deleting old data.");
+        Optional<BlankNodeOrIRI> node = Optional.of(repository.getRdf().createIRI(containerIri));
+        ds.remove(node, null, null, null);
       }
       writeWapObjectToDb(container);
       repository.addElementToRdfSeq(baseContainerIri, Container.toContainerSeqIriString(baseContainerIri),
@@ -198,8 +213,6 @@ public class ContainerServiceImpl extends AbstractWapService implements Containe
       // Update ETag of parent
       updateEtag(baseContainerIri, etagFactory.generateEtag());
     });
-    log.info("Post Container for: '" + containerIri + "' successful.");
-    // If no exception, everything is fine.
     return container;
   }
 
@@ -210,6 +223,18 @@ public class ContainerServiceImpl extends AbstractWapService implements Containe
     return getPage(containerIri, pageNr, preferIrisOnly, false);
   }
 
+  @Override
+  public void checkPageExists(String containerIri, int pageNr) throws WapException{
+    int pageSize = wapServerConfig.getPageSize();
+    repository.readRdfTransaction(ds -> {
+      checkExistsAndNotDeleted(containerIri);
+      int annoTotalCount = repository.countElementsInSeq(containerIri, Container.toAnnotationSeqIriString(containerIri));
+      if((pageNr * pageSize) + 1 > annoTotalCount){
+        throw new NotExistentException(ErrorMessageRegistry.PAGE_NOT_EXISTENT + " : " + pageNr + " in container " + containerIri);
+      }
+    });
+  }
+
   private Page getPage(String containerIri, int pageNr, boolean preferIrisOnly, boolean isEmbedded)
           throws WapException{
     log.info("Get Page of Container: '" + containerIri + "' page Nr: '" + pageNr + "'");
@@ -255,14 +280,15 @@ public class ContainerServiceImpl extends AbstractWapService implements Containe
       String containerIriPage = page[0].getContainerIri();
       List<String> annoIris = repository.getRangeOfObjectIrisFromSeq(containerIriPage,
               Container.toAnnotationSeqIriString(containerIriPage), firstAnnotationIndex, lastAnnotationIndex);
-      annoIris.forEach(iri -> {
-        if(preferIrisOnly){
-          page[0].addAnnotationIri(iri);
-        } else{
-          Annotation annotation = getAnnotation(iri);
-          page[0].addAnnotation(annotation);
+      if(preferIrisOnly){
+        annoIris.forEach(iri -> page[0].addAnnotationIri(iri));
+      } else{
+        // All annotations are checked and read in one pass. They are copied into the page, no need to copy them
+        // from the database before.
+        for(Dataset annotationDs : repository.getWapObjects(annoIris)){
+          page[0].addAnnotation(modelFactory.createAnnotation(annotationDs));
         }
-      });
+      }
       page[0].closeAdding();
     });
     log.info("Get Page for Container: '" + containerIri + "' successful.");
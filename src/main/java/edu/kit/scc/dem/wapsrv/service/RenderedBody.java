@@ -0,0 +1,62 @@
+package edu.kit.scc.dem.wapsrv.service;
+
+/**
+ * A WapObject rendered in a response format together with the ETag it had when it was rendered
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+public final class RenderedBody {
+   /**
+    * The ETag of the rendered object
+    */
+   private final String etag;
+   /**
+    * The rendered object
+    */
+   private final String body;
+
+   /**
+    * Creates a new rendered body
+    *
+    * @param etag
+    *             The ETag of the rendered object
+    * @param body
+    *             The rendered object
+    */
+   public RenderedBody(String etag, String body) {
+      this.etag = etag;
+      this.body = body;
+   }
+
+   /**
+    * Gets the ETag of the rendered object
+    *
+    * @return The ETag
+    */
+   public String getEtag() {
+      return etag;
+   }
+
+   /**
+    * Gets the ETag of the rendered object in quotes, as used in HTTP headers
+    *
+    * @return The quoted ETag
+    */
+   public String getEtagQuoted() {
+      return "\"" + etag + "\"";
+   }
+
+   /**
+    * Gets the rendered object
+    *
+    * @return The body
+    */
+   public String getBody() {
+      return body;
+   }
+}
@@ -0,0 +1,244 @@
+package edu.kit.scc.dem.wapsrv.service;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.model.formats.Format;
+import edu.kit.scc.dem.wapsrv.model.formats.Formatter;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
+
+/**
+ * Caches the response bodies of rendered WapObjects.
+ * <p>
+ * Rendering a WapObject copies it from the database, writes it as RDF and, for JSON-LD, frames and compacts it again.
+ * Objects are usually read far more often than they change, so the final bodies are kept. An entry is identified by the
+ * IRI and the ETag of the object and by the format and the profiles of the formatter. As every change of an object
+ * changes its ETag, an entry can never be outdated. Entries of changed objects are still removed at once via
+ * {@link #invalidate(String)} to free the memory, all entries are removed when the JSON-LD profiles are updated.
+ * <p>
+ * The cache is bounded by the approximate memory its entries need, the least recently used entries are evicted first.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+@Component
+public class RenderedBodyCache {
+   /**
+    * The approximate memory needed by an entry in addition to its strings, in bytes
+    */
+   private static final long ENTRY_OVERHEAD = 256;
+   private final Logger log = LoggerFactory.getLogger(this.getClass());
+   /**
+    * The application configuration, autowired
+    */
+   @Autowired
+   private WapServerConfig wapServerConfig;
+   /**
+    * The JSON-LD profile registry, autowired
+    */
+   @Autowired
+   private JsonLdProfileRegistry profileRegistry;
+   /**
+    * The maximum memory used by the entries in bytes, 0 if the cache is disabled
+    */
+   private long maxSize;
+   /**
+    * The memory used by the entries in bytes
+    */
+   private long size;
+   /**
+    * Incremented whenever the whole cache is cleared, bodies rendered before are not added anymore
+    */
+   private long generation;
+   /**
+    * The entries in access order, the least recently used first
+    */
+   private final LinkedHashMap<Key, String> bodies = new LinkedHashMap<>(16, 0.75f, true);
+   /**
+    * The keys of the entries of every object
+    */
+   private final Map<String, Set<Key>> keysByIri = new HashMap<>();
+
+   @PostConstruct
+   private void init() {
+      maxSize = Math.max(0, wapServerConfig.getRenderedBodyCacheSizeInMb()) * 1024 * 1024;
+      if (maxSize > 0) {
+         profileRegistry.addUpdateListener(this::clear);
+         log.info("Rendered body cache enabled with " + wapServerConfig.getRenderedBodyCacheSizeInMb() + " MB.");
+      }
+   }
+
+   /**
+    * Checks whether the cache is enabled
+    *
+    * @return true if bodies are cached
+    */
+   public boolean isEnabled() {
+      return maxSize > 0;
+   }
+
+   /**
+    * Gets the generation of the cache. It has to be read before rendering a body and passed to
+    * {@link #put(String, String, Formatter, String, long)}.
+    *
+    * @return The generation
+    */
+   public synchronized long getGeneration() {
+      return generation;
+   }
+
+   /**
+    * Gets the cached body
+    *
+    * @param  iri
+    *                   The IRI of the object
+    * @param  etag
+    *                   The ETag the object has in the database
+    * @param  formatter
+    *                   The formatter the body has to be rendered with
+    * @return           The body, null if not cached
+    */
+   public synchronized String get(String iri, String etag, Formatter formatter) {
+      if (!isEnabled() || etag == null) {
+         return null;
+      }
+      return bodies.get(new Key(iri, etag, formatter.getFormat(), formatter.getProfiles()));
+   }
+
+   /**
+    * Adds a rendered body to the cache. The body is not added if the cache has been cleared since the generation has
+    * been read or if it is too large.
+    *
+    * @param iri
+    *                   The IRI of the object
+    * @param etag
+    *                   The ETag the object had when it was rendered
+    * @param formatter
+    *                   The formatter the body has been rendered with
+    * @param body
+    *                   The body
+    * @param generation
+    *                   The generation read before rendering
+    */
+   public synchronized void put(String iri, String etag, Formatter formatter, String body, long generation) {
+      if (!isEnabled() || etag == null || generation != this.generation) {
+         return;
+      }
+      Key key = new Key(iri, etag, formatter.getFormat(), formatter.getProfiles());
+      long weight = weight(key, body);
+      if (weight > maxSize) {
+         return;
+      }
+      String old = bodies.put(key, body);
+      if (old != null) {
+         size -= weight(key, old);
+      }
+      size += weight;
+      keysByIri.computeIfAbsent(iri, k -> new HashSet<>()).add(key);
+      Iterator<Map.Entry<Key, String>> eldest = bodies.entrySet().iterator();
+      while (size > maxSize && eldest.hasNext()) {
+         Map.Entry<Key, String> entry = eldest.next();
+         eldest.remove();
+         size -= weight(entry.getKey(), entry.getValue());
+         removeKey(entry.getKey());
+      }
+   }
+
+   /**
+    * Removes all cached bodies of the object
+    *
+    * @param iri
+    *            The IRI of the object
+    */
+   public synchronized void invalidate(String iri) {
+      if (!isEnabled()) {
+         return;
+      }
+      Set<Key> keys = keysByIri.remove(iri);
+      if (keys == null) {
+         return;
+      }
+      for (Key key : keys) {
+         String body = bodies.remove(key);
+         if (body != null) {
+            size -= weight(key, body);
+         }
+      }
+   }
+
+   /**
+    * Removes all cached bodies
+    */
+   public synchronized void clear() {
+      bodies.clear();
+      keysByIri.clear();
+      size = 0;
+      generation++;
+      log.debug("Rendered body cache cleared.");
+   }
+
+   private void removeKey(Key key) {
+      Set<Key> keys = keysByIri.get(key.iri);
+      if (keys != null) {
+         keys.remove(key);
+         if (keys.isEmpty()) {
+            keysByIri.remove(key.iri);
+         }
+      }
+   }
+
+   private static long weight(Key key, String body) {
+      // Strings need about two bytes per character
+      return ENTRY_OVERHEAD + 2L * (body.length() + key.iri.length() + key.etag.length());
+   }
+
+   /**
+    * The identity of a cached body
+    */
+   static final class Key {
+      private final String iri;
+      private final String etag;
+      private final Format format;
+      private final Set<URI> profiles;
+
+      Key(String iri, String etag, Format format, Set<URI> profiles) {
+         this.iri = iri;
+         this.etag = etag;
+         this.format = format;
+         this.profiles = profiles;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj) {
+            return true;
+         }
+         if (!(obj instanceof Key)) {
+            return false;
+         }
+         Key other = (Key) obj;
+         return Objects.equals(iri, other.iri) && Objects.equals(etag, other.etag) && format == other.format
+               && Objects.equals(profiles, other.profiles);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hash(iri, etag, format, profiles);
+      }
+   }
+}
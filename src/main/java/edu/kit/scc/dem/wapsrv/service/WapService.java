@@ -34,4 +34,15 @@ public interface WapService {
     *                      In case any errors occurred
     */
    Annotation getAnnotation(String iri) throws WapException;
+
+   /**
+    * Gets the current ETag of the WapObject denoted by the given IRI, without reading or building the object itself
+    * 
+    * @param  iri
+    *                      The IRI of the WapObject
+    * @return              The ETag of the WapObject, without quotes
+    * @throws WapException
+    *                      In case any errors occurred, e.g. the object does not exist or has been deleted
+    */
+   String getEtag(String iri) throws WapException;
 }
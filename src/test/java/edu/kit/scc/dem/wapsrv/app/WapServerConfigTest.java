@@ -12,6 +12,9 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdFormatter;
+import edu.kit.scc.dem.wapsrv.model.validators.NetworkntJsonLdValidator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
 
 /**
@@ -299,6 +302,93 @@ class WapServerConfigTest {
         // not possible to set hostname = null without reflections
     }
 
+    /**
+     * Tests that checkConfig() rejects unknown engines
+     */
+    @Test
+    final void testCheckConfigEngines() {
+        if (defaultConfFile.equals(WapServerConfig.getWapServerConfigFile())) {
+            fail("Cannot maniuplate real one, no test config file selected");
+        }
+        byte[] beforeBytes = null;
+        try {
+            beforeBytes = Files.readAllBytes(WapServerConfig.getWapServerConfigFile().toPath());
+            Properties props = WapServerConfig.getDefaultProperties();
+            props.put(ConfigurationKeys.JsonLdFormattingEngine.toString(), "Graph");
+            storePropsInternal(props);
+            assertTrue(WapServerConfig.checkConfig(), "Engines are case insensitive");
+            props.put(ConfigurationKeys.JsonLdFormattingEngine.toString(), "frameing");
+            storePropsInternal(props);
+            assertFalse(WapServerConfig.checkConfig(), "Unknown formatting engine accepted");
+            props.put(ConfigurationKeys.JsonLdFormattingEngine.toString(), "Graph");
+            props.put(ConfigurationKeys.JsonLdValidationEngine.toString(), "Networknt");
+            storePropsInternal(props);
+            assertTrue(WapServerConfig.checkConfig(), "Engines are case insensitive");
+            props.put(ConfigurationKeys.JsonLdValidationEngine.toString(), "compiled");
+            storePropsInternal(props);
+            assertFalse(WapServerConfig.checkConfig(), "Unknown validation engine accepted");
+        } catch (IOException e) {
+            fail("Error writing config : " + e.getMessage());
+        } finally {
+            try {
+                FileOutputStream out = new FileOutputStream(WapServerConfig.getWapServerConfigFile());
+                out.write(beforeBytes);
+                out.close();
+            } catch (IOException e) {
+                fail("Error resetting config : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Tests that updateConfig(Properties) rejects unknown formatting engines
+     */
+    @Test
+    final void testUpdateConfigFormattingEngine() {
+        Properties props = WapServerConfig.getDefaultProperties();
+        props.setProperty(ConfigurationKeys.JsonLdFormattingEngine.toString(), "Graph");
+        objWapServerConfig.updateConfig(props);
+        assertEquals(JsonLdFormatter.GRAPH_ENGINE, objWapServerConfig.getJsonLdFormattingEngine());
+        props.setProperty(ConfigurationKeys.JsonLdFormattingEngine.toString(), "frameing");
+        props.setProperty(ConfigurationKeys.PageSize.toString(), "7");
+        assertThrows(IllegalArgumentException.class, () -> objWapServerConfig.updateConfig(props));
+        // Nothing is updated
+        assertEquals(JsonLdFormatter.GRAPH_ENGINE, objWapServerConfig.getJsonLdFormattingEngine());
+        assertNotEquals(7, objWapServerConfig.getPageSize());
+    }
+
+    /**
+     * Tests that updateConfig(Properties) rejects unknown validation engines
+     */
+    @Test
+    final void testUpdateConfigValidationEngine() {
+        Properties props = WapServerConfig.getDefaultProperties();
+        props.setProperty(ConfigurationKeys.JsonLdValidationEngine.toString(), "Networknt");
+        objWapServerConfig.updateConfig(props);
+        assertEquals(NetworkntJsonLdValidator.ENGINE, objWapServerConfig.getJsonLdValidationEngine());
+        props.setProperty(ConfigurationKeys.JsonLdValidationEngine.toString(), "compiled");
+        props.setProperty(ConfigurationKeys.PageSize.toString(), "7");
+        assertThrows(IllegalArgumentException.class, () -> objWapServerConfig.updateConfig(props));
+        // Nothing is updated
+        assertEquals(NetworkntJsonLdValidator.ENGINE, objWapServerConfig.getJsonLdValidationEngine());
+        assertNotEquals(7, objWapServerConfig.getPageSize());
+    }
+
+    /**
+     * Tests that the executor writing streamed response bodies is bounded
+     */
+    @Test
+    final void testResponseStreamingExecutor() {
+        Properties props = WapServerConfig.getDefaultProperties();
+        props.setProperty(ConfigurationKeys.ResponseStreamingThreads.toString(), "3");
+        objWapServerConfig.updateConfig(props);
+        ThreadPoolTaskExecutor executor = objWapServerConfig.responseStreamingExecutor();
+        assertEquals(3, executor.getCorePoolSize());
+        assertEquals(3, executor.getMaxPoolSize());
+        assertTrue(executor.getQueueCapacity() > 0 && executor.getQueueCapacity() < Integer.MAX_VALUE,
+                "The queue must be bounded");
+    }
+
     /**
      * Tests public static WapServerConfig getInstance()
      */
@@ -1,11 +1,21 @@
 package edu.kit.scc.dem.wapsrv.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.List;
 import io.specto.hoverfly.junit5.HoverflyExtension;
 import io.specto.hoverfly.junit5.api.HoverflySimulate;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
 import org.apache.commons.rdf.api.BlankNodeOrIRI;
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.IRI;
@@ -34,6 +44,7 @@ import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
 import edu.kit.scc.dem.wapsrv.model.formats.TurtleFormatter;
 import edu.kit.scc.dem.wapsrv.service.AnnotationService;
 import edu.kit.scc.dem.wapsrv.service.AnnotationServiceMock;
+import edu.kit.scc.dem.wapsrv.service.BulkImportResult;
 import static edu.kit.scc.dem.wapsrv.controller.ControllerTestHelper.*;
 
 /**
@@ -95,6 +106,53 @@ class AnnotationControllerTest extends BasicWapControllerTest {
       testGetHeadOptionsAnnotation(HttpMethod.OPTIONS.toString());
    }
 
+   /**
+    * Test head annotation takes Content-Length from an already rendered annotation.
+    */
+   @Test
+   final void testHeadAnnotationRenderedBefore() {
+      final String iri = makeUrl(WapServerConfig.WAP_ENDPOINT + "container1/anno1");
+      when(service.getEtag(iri)).thenReturn("etag1");
+      when(service.getCachedRenderedAnnotation(eq(iri), eq("etag1"), any())).thenReturn("annotationBody");
+      clearInvocations(service);
+      ResponseEntity<?> response = controller.headAnnotation(new HttpServletRequestAdapter(iri,
+            HttpMethod.HEAD.toString(), createParamsMap(null), TurtleFormatter.TURTLE_STRING), null);
+      assertEquals(AnnotationConstants.GET_ANNOTATION_SUCCESS_CODE, response.getStatusCode().value());
+      assertNull(response.getBody());
+      assertEquals("annotationBody".length(), response.getHeaders().getContentLength());
+      assertEquals("\"etag1\"", response.getHeaders().getETag());
+      verify(service, never()).getRenderedAnnotation(any(), any());
+      verify(service, never()).getAnnotation(any());
+   }
+
+   /**
+    * Test conditional get annotation with If-None-Match.
+    */
+   @Test
+   final void testConditionalGetAnnotation() {
+      final String iri = makeUrl(WapServerConfig.WAP_ENDPOINT + "container1/anno1");
+      when(service.getEtag(iri)).thenReturn("etag1");
+      when(service.getAnnotation(iri)).thenReturn(createAnnotation());
+      clearInvocations(service);
+      // The client holds the current annotation
+      HttpHeaders headers = new HttpHeaders();
+      headers.setIfNoneMatch("W/\"etag1\"");
+      ResponseEntity<?> response = controller.getAnnotation(new HttpServletRequestAdapter(iri,
+            HttpMethod.GET.toString(), createParamsMap(null), TurtleFormatter.TURTLE_STRING), headers);
+      assertEquals(304, response.getStatusCode().value());
+      assertEquals("\"etag1\"", response.getHeaders().getETag());
+      assertNull(response.getBody());
+      verify(service, never()).getRenderedAnnotation(any(), any());
+      verify(service, never()).getAnnotation(any());
+      // The client holds an outdated annotation
+      headers = new HttpHeaders();
+      headers.setIfNoneMatch("\"etag0\"");
+      response = controller.getAnnotation(new HttpServletRequestAdapter(iri, HttpMethod.GET.toString(),
+            createParamsMap(null), TurtleFormatter.TURTLE_STRING), headers);
+      assertEquals(AnnotationConstants.GET_ANNOTATION_SUCCESS_CODE, response.getStatusCode().value());
+      assertEquals("annotationBody", response.getBody());
+   }
+
    /**
     * Test get annotation.
     */
@@ -146,6 +204,7 @@ class AnnotationControllerTest extends BasicWapControllerTest {
       final String iri = makeUrl(WapServerConfig.WAP_ENDPOINT + "container1/anno1");
       // get an annotation
       when(service.getAnnotation(iri)).thenReturn(createAnnotation());
+      when(service.getEtag(iri)).thenReturn("etag1");
       switch (method) {
       case "GET":
          response = controller.getAnnotation(new HttpServletRequestAdapter(iri, HttpMethod.GET.toString(),
@@ -183,10 +242,10 @@ class AnnotationControllerTest extends BasicWapControllerTest {
          if (!response.getHeaders().get("Content-Type").get(0).startsWith(TurtleFormatter.TURTLE_STRING)) {
             fail("Unexpected format of answer : " + response.getHeaders().get("Content-Type").get(0));
          }
-         assertNotNull(response.getBody());
-         // The head request should not have a body. But our response needs one so spring / jetty
-         // can determine the correct content length. They remove it from the final answer
-         assertNotNull(response.getHeaders().getETag());
+         // HEAD is answered without rendering the body, the annotation has not been rendered before
+         assertNull(response.getBody());
+         assertEquals(-1, response.getHeaders().getContentLength());
+         assertEquals("\"etag1\"", response.getHeaders().getETag());
          break;
       case "OPTIONS":
          assertNull(response.getHeaders().getContentType());
@@ -343,6 +402,62 @@ class AnnotationControllerTest extends BasicWapControllerTest {
       });
    }
 
+   /**
+    * Test import annotations.
+    */
+   @Test
+   final void testImportAnnotations() {
+      final String iri = makeUrl(WapServerConfig.WAP_ENDPOINT + "container1/");
+      final byte[] body = "{}\n{}\n".getBytes(StandardCharsets.UTF_8);
+      when(service.importAnnotations(eq(iri), any())).thenReturn(new BulkImportResult());
+      ResponseEntity<?> response = controller.importAnnotations(
+            new HttpServletRequestAdapter(iri, HttpMethod.POST.toString(), createParamsMap(null),
+                  AnnotationConstants.IMPORT_ANNOTATIONS_CONTENT_TYPE) {
+               @Override
+               public ServletInputStream getInputStream() throws IOException {
+                  final ByteArrayInputStream in = new ByteArrayInputStream(body);
+                  return new ServletInputStream() {
+                     @Override
+                     public int read() {
+                        return in.read();
+                     }
+
+                     @Override
+                     public boolean isFinished() {
+                        return in.available() == 0;
+                     }
+
+                     @Override
+                     public boolean isReady() {
+                        return true;
+                     }
+
+                     @Override
+                     public void setReadListener(ReadListener readListener) {
+                        // Not used in blocking reads
+                     }
+                  };
+               }
+            }, new HttpHeaders());
+      assertEquals(AnnotationConstants.IMPORT_ANNOTATIONS_SUCCESS_CODE, response.getStatusCode().value());
+      assertEquals("application/json", response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+      final String report = (String) response.getBody();
+      assertTrue(report.contains("\"imported\" : 0"), report);
+      assertTrue(report.contains("\"failed\" : 0"), report);
+   }
+
+   /**
+    * Test import annotations with params
+    */
+   @Test
+   final void testImportAnnotationsWithParams() {
+      final String iri = makeUrl(WapServerConfig.WAP_ENDPOINT + "container1/");
+      checkException(IllegalHttpParameterException.class, ErrorMessageRegistry.ANNOTATION_NO_PARAMETERS_ALLOWED, () -> {
+         controller.importAnnotations(new HttpServletRequestAdapter(iri, HttpMethod.POST.toString(),
+               createParamsMap("iris=0"), AnnotationConstants.IMPORT_ANNOTATIONS_CONTENT_TYPE), new HttpHeaders());
+      });
+   }
+
    /**
     * Test post annotation without content type
     */
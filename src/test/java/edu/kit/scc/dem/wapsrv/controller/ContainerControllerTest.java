@@ -368,6 +368,7 @@ class ContainerControllerTest extends BasicWapControllerTest {
       when(service.isValidInputFormat(Format.TURTLE)).thenReturn(true);
       // Add a container
       when(service.getContainer(Mockito.any(), Mockito.any())).thenReturn(createContainer(iri));
+      when(service.getEtag(iri)).thenReturn("etag1");
       ResponseEntity<?> response = null;
       if (toRootContainer) {
          switch (method) {
@@ -427,7 +428,7 @@ class ContainerControllerTest extends BasicWapControllerTest {
          if (!response.getHeaders().get("Content-Type").get(0).startsWith(TurtleFormatter.TURTLE_STRING)) {
             fail("Unexpected format of answer : " + response.getHeaders().get("Content-Type").get(0));
          }
-         assertEquals("containerBody", response.getBody());
+         assertEquals("containerBody", readBody(response));
          assertNotNull(response.getHeaders().getETag());
          break;
       case "HEAD":
@@ -435,10 +436,10 @@ class ContainerControllerTest extends BasicWapControllerTest {
          if (!response.getHeaders().get("Content-Type").get(0).startsWith(TurtleFormatter.TURTLE_STRING)) {
             fail("Unexpected format of answer : " + response.getHeaders().get("Content-Type").get(0));
          }
-         assertNotNull(response.getBody());
-         // The head request should not have a body. But our response needs one so spring / jetty
-         // can determine the correct content length. They remove it from the final answer
-         assertNotNull(response.getHeaders().getETag());
+         // HEAD is answered without rendering the body, the length is therefore unknown
+         assertNull(response.getBody());
+         assertEquals(-1, response.getHeaders().getContentLength());
+         assertEquals("\"etag1\"", response.getHeaders().getETag());
          break;
       case "OPTIONS":
          assertNull(response.getHeaders().getContentType());
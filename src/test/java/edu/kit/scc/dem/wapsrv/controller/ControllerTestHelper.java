@@ -1,6 +1,9 @@
 package edu.kit.scc.dem.wapsrv.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
@@ -13,6 +16,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Helper class for Controller Tests
@@ -126,6 +130,27 @@ public final class ControllerTestHelper {
       return map;
    }
 
+   /**
+    * Gets the body of a response as String. Streamed bodies are written to memory first.
+    * 
+    * @param  response
+    *                  The response
+    * @return          The body, null if the response has none
+    */
+   public static String readBody(ResponseEntity<?> response) {
+      Object body = response.getBody();
+      if (body instanceof StreamingResponseBody streamingBody) {
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         try {
+            streamingBody.writeTo(out);
+         } catch (IOException e) {
+            fail("Writing the streamed body failed : " + e.getMessage());
+         }
+         return out.toString(StandardCharsets.UTF_8);
+      }
+      return (String) body;
+   }
+
    /**
     * Checks an exception of a expected type is thrown and that it has the expected message
     * 
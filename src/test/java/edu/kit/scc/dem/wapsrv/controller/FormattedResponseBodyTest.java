@@ -0,0 +1,93 @@
+package edu.kit.scc.dem.wapsrv.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import edu.kit.scc.dem.wapsrv.exceptions.FormatException;
+import edu.kit.scc.dem.wapsrv.model.Page;
+import edu.kit.scc.dem.wapsrv.model.formats.Formatter;
+
+/**
+ * Tests the class FormattedResponseBody
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+class FormattedResponseBodyTest {
+   /**
+    * Test that the formatted object is written to the response.
+    *
+    * @throws IOException
+    *                     if writing fails
+    */
+   @Test
+   final void testWriteTo() throws IOException {
+      Page page = mock(Page.class);
+      Formatter formatter = createFormatter(page, "{\"type\": \"AnnotationPage\"}", null);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      new FormattedResponseBody(formatter, page).writeTo(out);
+      assertEquals("{\"type\": \"AnnotationPage\"}", out.toString(StandardCharsets.UTF_8));
+   }
+
+   /**
+    * Test that an error before anything has been written is thrown as it is, so that it is answered like on any other
+    * request.
+    */
+   @Test
+   final void testWriteToFailsBeforeBody() {
+      Page page = mock(Page.class);
+      FormatException error = new FormatException("Cannot format");
+      Formatter formatter = createFormatter(page, "", error);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      FormatException actual = assertThrows(FormatException.class, () -> {
+         new FormattedResponseBody(formatter, page).writeTo(out);
+      });
+      assertSame(error, actual);
+      assertEquals(0, out.size());
+   }
+
+   /**
+    * Test that an error after part of the body has been written is not left to the WAP exception handler, which could
+    * only complete the truncated response.
+    */
+   @Test
+   final void testWriteToFailsPartway() {
+      Page page = mock(Page.class);
+      FormatException error = new FormatException("Cannot format the second annotation");
+      Formatter formatter = createFormatter(page, "{\"type\": \"AnnotationPage\", \"items\": [", error);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      IOException actual = assertThrows(IOException.class, () -> {
+         new FormattedResponseBody(formatter, page).writeTo(out);
+      });
+      assertSame(error, actual.getCause());
+      assertEquals("{\"type\": \"AnnotationPage\", \"items\": [", out.toString(StandardCharsets.UTF_8));
+   }
+
+   private static Formatter createFormatter(Page page, String output, RuntimeException error) {
+      Formatter formatter = mock(Formatter.class);
+      try {
+         doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write(output.getBytes(StandardCharsets.UTF_8));
+            if (error != null) {
+               throw error;
+            }
+            return null;
+         }).when(formatter).format(eq(page), any(OutputStream.class));
+      } catch (IOException e) {
+         fail(e);
+      }
+      return formatter;
+   }
+}
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -95,6 +96,37 @@ class PageControllerTest extends BasicWapControllerTest {
       testValidPage(method.toString());
    }
 
+   /**
+    * Test pages get weak ETags and conditional get page with If-None-Match.
+    */
+   @Test
+   final void testConditionalGetPage() {
+      final String url = makeUrl(WapServerConfig.WAP_ENDPOINT + "container1/");
+      final int iris = ContainerPreference.PREFER_CONTAINED_IRIS;
+      final int pageNr = 1;
+      when(containerServiceMock.getEtag(url)).thenReturn("etag1");
+      when(containerServiceMock.getPage(url, iris, pageNr)).thenReturn(createPage());
+      ResponseEntity<?> response = controller.getPage(new HttpServletRequestAdapter(url, HttpMethod.GET.toString(),
+            createParamsMap(null), TurtleFormatter.TURTLE_STRING), new HttpHeaders(), iris, pageNr);
+      assertEquals(PageConstants.GET_PAGE_SUCCESS_CODE, response.getStatusCode().value());
+      final String pageEtag = response.getHeaders().getETag();
+      assertEquals("W/\"etag1-" + iris + "-" + pageNr + "\"", pageEtag);
+      // The client holds the current page
+      HttpHeaders headers = new HttpHeaders();
+      headers.setIfNoneMatch(pageEtag);
+      response = controller.getPage(new HttpServletRequestAdapter(url, HttpMethod.GET.toString(),
+            createParamsMap(null), TurtleFormatter.TURTLE_STRING), headers, iris, pageNr);
+      assertEquals(304, response.getStatusCode().value());
+      assertNull(response.getBody());
+      // Another page of the same container is not the same
+      headers = new HttpHeaders();
+      headers.setIfNoneMatch(pageEtag);
+      when(containerServiceMock.getPage(url, iris, pageNr + 1)).thenReturn(createPage());
+      response = controller.getPage(new HttpServletRequestAdapter(url, HttpMethod.GET.toString(),
+            createParamsMap(null), TurtleFormatter.TURTLE_STRING), headers, iris, pageNr + 1);
+      assertEquals(PageConstants.GET_PAGE_SUCCESS_CODE, response.getStatusCode().value());
+   }
+
    private void testValidPage(final String method) {
       ResponseEntity<?> response = null;
       final String url = makeUrl(WapServerConfig.WAP_ENDPOINT + "container1/");
@@ -133,15 +165,15 @@ class PageControllerTest extends BasicWapControllerTest {
          if (!response.getHeaders().get("Content-Type").get(0).startsWith(TurtleFormatter.TURTLE_STRING)) {
             fail("Unexpected format of answer : " + response.getHeaders().get("Content-Type").get(0));
          }
-         assertEquals("pageBody", response.getBody());
+         assertEquals("pageBody", readBody(response));
          break;
       case "HEAD":
          if (!response.getHeaders().get("Content-Type").get(0).startsWith(TurtleFormatter.TURTLE_STRING)) {
             fail("Unexpected format of answer : " + response.getHeaders().get("Content-Type").get(0));
          }
-         assertNotNull(response.getBody());
-         // The head request should not have a body. But our response needs one so spring / jetty
-         // can determine the correct content length. They remove it from the final answer
+         // HEAD is answered without reading and rendering the page, the length is therefore unknown
+         assertNull(response.getBody());
+         assertEquals(-1, response.getHeaders().getContentLength());
          break;
       case "OPTIONS":
          assertNull(response.getHeaders().getContentType());
@@ -0,0 +1,33 @@
+package edu.kit.scc.dem.wapsrv.exceptions;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the class TransactionConflictException
+ * 
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+class TransactionConflictExceptionTest {
+   private static final Set<String> PARAMSTRINGLIST = WapExceptionTest.PARAMSTRINGLIST;
+
+   /**
+    * Test transaction conflict exception.
+    */
+   @Test
+   final void testTransactionConflictException() {
+      TransactionConflictException actual;
+      // test for all Strings in paramStringList
+      for (String paramString : PARAMSTRINGLIST) {
+         actual = null;
+         actual = new TransactionConflictException(paramString);
+         assertNotNull(actual, "Constrution did fail for String: " + paramString);
+      }
+   }
+}
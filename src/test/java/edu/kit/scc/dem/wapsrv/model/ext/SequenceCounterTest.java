@@ -0,0 +1,54 @@
+package edu.kit.scc.dem.wapsrv.model.ext;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the class SequenceCounter
+ *
+ * @author Matthias Dressel
+ * @author Michael Hitzker
+ * @author Markus Hoefler
+ * @author Andreas Loeffler
+ * @author Timo Schmidt
+ * @version 1.1
+ */
+class SequenceCounterTest{
+  private static final String SEQ_IRI = "http://www.example.org/wap/container1/#annotations";
+
+  /**
+   * Test create.
+   */
+  @Test
+  final void testCreate(){
+    SequenceCounter counter = SequenceCounter.create(SEQ_IRI, 42);
+    assertEquals(SEQ_IRI, counter.getSequenceIri());
+    assertEquals(42, counter.getElementCount());
+    counter.setElementCount(0);
+    assertEquals(0, counter.getElementCount());
+  }
+
+  /**
+   * Test the counter survives serialization.
+   *
+   * @throws IOException if serialization fails
+   * @throws ClassNotFoundException if the class cannot be found on deserialization
+   */
+  @Test
+  final void testSerialization() throws IOException, ClassNotFoundException{
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try(ObjectOutputStream out = new ObjectOutputStream(bytes)){
+      out.writeObject(SequenceCounter.create(SEQ_IRI, 42));
+    }
+    try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))){
+      SequenceCounter counter = (SequenceCounter) in.readObject();
+      assertEquals(SEQ_IRI, counter.getSequenceIri());
+      assertEquals(42, counter.getElementCount());
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package edu.kit.scc.dem.wapsrv.model.formats;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import io.specto.hoverfly.junit5.HoverflyExtension;
+import io.specto.hoverfly.junit5.api.HoverflySimulate;
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import com.github.jsonldjava.utils.JsonUtils;
+import edu.kit.scc.dem.wapsrv.app.ConfigurationKeys;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.exceptions.WapException;
+import edu.kit.scc.dem.wapsrv.model.Annotation;
+import edu.kit.scc.dem.wapsrv.model.FormattableObject.Type;
+import edu.kit.scc.dem.wapsrv.model.ModelFactory;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfBackend;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfModelFactory;
+import edu.kit.scc.dem.wapsrv.repository.jena.JenaRdfBackend;
+import edu.kit.scc.dem.wapsrv.testscommon.TestDataStore;
+
+/**
+ * Tests the class GraphFramer. The graph engine has to produce the same JSON-LD as the JSON-LD processor. Arrays
+ * other than @list values are compared regardless of their order, as the order of multiple values depends on the
+ * order in which the RDF backend writes the triples.
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {JenaRdfBackend.class, RdfModelFactory.class, WapServerConfig.class, FormatRegistry.class,
+      JsonLdProfileRegistry.class, JsonLdFormatter.class})
+@ExtendWith(HoverflyExtension.class)
+@HoverflySimulate(source = @HoverflySimulate.Source(value = "w3c_simulation.json", type = HoverflySimulate.SourceType.DEFAULT_PATH))
+@ActiveProfiles("test")
+class GraphFramerTest {
+   private static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+   private static final String OA = "http://www.w3.org/ns/oa#";
+   @Autowired
+   private ModelFactory modelFactory;
+   @Autowired
+   private RdfBackend rdfBackend;
+   @Autowired
+   private JsonLdProfileRegistry profileRegistry;
+   @Autowired
+   private WapServerConfig config;
+
+   /**
+    * Restores the default formatting engine
+    */
+   @AfterEach
+   final void resetEngine() {
+      setEngine(WapServerConfig.getDefaultProperties()
+            .getProperty(ConfigurationKeys.JsonLdFormattingEngine.toString()));
+   }
+
+   private void setEngine(String engine) {
+      Properties props = WapServerConfig.getDefaultProperties();
+      props.setProperty(ConfigurationKeys.JsonLdFormattingEngine.toString(), engine);
+      config.updateConfig(props);
+   }
+
+   private String format(Annotation annotation) {
+      JsonLdFormatter formatter = new JsonLdFormatter();
+      formatter.setProfileRegistry(profileRegistry);
+      formatter.setAcceptPart(null, Type.ANNOTATION);
+      return formatter.format(annotation);
+   }
+
+   /**
+    * Test that both engines format all test annotations the same way.
+    */
+   @Test
+   final void testGraphEngineMatchesJsonLdProcessor() throws IOException {
+      List<Annotation> annotations = new ArrayList<>();
+      for (String raw : TestDataStore.readAnnotations()) {
+         try {
+            annotations.add(modelFactory.createAnnotation(profileRegistry.expandJsonLd(raw), Format.JSON_LD));
+         } catch (WapException e) {
+            // Not every example is a single annotation
+         }
+      }
+      assertFalse(annotations.isEmpty(), "No test annotations");
+      setEngine("framing");
+      List<String> expected = new ArrayList<>();
+      for (Annotation annotation : annotations) {
+         expected.add(format(annotation));
+      }
+      setEngine(JsonLdFormatter.GRAPH_ENGINE);
+      int framed = 0;
+      for (int n = 0; n < annotations.size(); n++) {
+         Annotation annotation = annotations.get(n);
+         if (profileRegistry.getGraphFramer(Type.ANNOTATION).frame(annotation.getDataset().getGraph()) != null) {
+            framed++;
+         }
+         String actual = format(annotation);
+         assertTrue(jsonEquals(JsonUtils.fromString(expected.get(n)), JsonUtils.fromString(actual)),
+               "Graph engine output differs.\nExpected: " + expected.get(n) + "\nActual: " + actual);
+      }
+      assertTrue(framed > 0, "No annotation framed by the graph engine");
+   }
+
+   /**
+    * Test that the frame delivered with the server is supported.
+    */
+   @Test
+   final void testCreate() {
+      assertNotNull(profileRegistry.getGraphFramer(Type.ANNOTATION));
+      assertNull(GraphFramer.create("not a frame", profileRegistry.getJsonLdOptions()));
+      assertNull(GraphFramer.create(Map.of("@context", JsonLdFormatter.DEFAULT_PROFILE.toString(), "type",
+            "Annotation", "body", Map.of("@explicit", true)), profileRegistry.getJsonLdOptions()));
+   }
+
+   /**
+    * Test that graphs depending on details of the JSON-LD processor are left to it.
+    */
+   @Test
+   final void testUnsupportedGraphs() {
+      GraphFramer framer = profileRegistry.getGraphFramer(Type.ANNOTATION);
+      RDF rdf = rdfBackend.getRdf();
+      IRI type = rdf.createIRI(RDF_TYPE);
+      IRI annotationType = rdf.createIRI(OA + "Annotation");
+      IRI hasBody = rdf.createIRI(OA + "hasBody");
+      IRI anno1 = rdf.createIRI("http://example.org/anno1");
+      Graph graph = rdf.createGraph();
+      graph.add(anno1, type, annotationType);
+      graph.add(anno1, hasBody, rdf.createIRI("http://example.org/body1"));
+      assertNotNull(framer.frame(graph));
+      // A blank node without properties would keep the label of the processor
+      BlankNode emptyBody = rdf.createBlankNode();
+      graph.add(anno1, hasBody, emptyBody);
+      assertNull(framer.frame(graph));
+      graph.remove(anno1, hasBody, emptyBody);
+      // Two annotations
+      IRI anno2 = rdf.createIRI("http://example.org/anno2");
+      graph.add(anno2, type, annotationType);
+      assertNull(framer.frame(graph));
+      graph.remove(anno2, type, annotationType);
+      // A node embedded twice
+      BlankNode body = rdf.createBlankNode();
+      graph.add(body, rdf.createIRI("http://www.w3.org/1999/02/22-rdf-syntax-ns#value"),
+            rdf.createLiteral("text"));
+      graph.add(anno1, hasBody, body);
+      assertNotNull(framer.frame(graph));
+      graph.add(anno1, rdf.createIRI(OA + "hasTarget"), body);
+      assertNull(framer.frame(graph));
+   }
+
+   /**
+    * Compares two parsed JSON trees, arrays outside of @list regardless of their order
+    *
+    * @param  expected
+    *                  The expected tree
+    * @param  actual
+    *                  The actual tree
+    * @return          true if equal
+    */
+   @SuppressWarnings("unchecked")
+   private static boolean jsonEquals(Object expected, Object actual) {
+      if (expected instanceof Map && actual instanceof Map) {
+         Map<String, Object> expectedMap = (Map<String, Object>) expected;
+         Map<String, Object> actualMap = (Map<String, Object>) actual;
+         if (!expectedMap.keySet().equals(actualMap.keySet())) {
+            return false;
+         }
+         for (Map.Entry<String, Object> entry : expectedMap.entrySet()) {
+            Object actualValue = actualMap.get(entry.getKey());
+            if ("@list".equals(entry.getKey()) || "items".equals(entry.getKey())) {
+               if (!orderedEquals(entry.getValue(), actualValue)) {
+                  return false;
+               }
+            } else if (!jsonEquals(entry.getValue(), actualValue)) {
+               return false;
+            }
+         }
+         return true;
+      } else if (expected instanceof List && actual instanceof List) {
+         List<Object> remaining = new ArrayList<>((List<Object>) actual);
+         if (remaining.size() != ((List<Object>) expected).size()) {
+            return false;
+         }
+         for (Object item : (List<Object>) expected) {
+            boolean found = false;
+            for (int n = 0; n < remaining.size() && !found; n++) {
+               if (jsonEquals(item, remaining.get(n))) {
+                  remaining.remove(n);
+                  found = true;
+               }
+            }
+            if (!found) {
+               return false;
+            }
+         }
+         return true;
+      }
+      return expected == null ? actual == null : expected.equals(actual);
+   }
+
+   @SuppressWarnings("unchecked")
+   private static boolean orderedEquals(Object expected, Object actual) {
+      if (expected instanceof List && actual instanceof List) {
+         List<Object> expectedList = (List<Object>) expected;
+         List<Object> actualList = (List<Object>) actual;
+         if (expectedList.size() != actualList.size()) {
+            return false;
+         }
+         for (int n = 0; n < expectedList.size(); n++) {
+            if (!jsonEquals(expectedList.get(n), actualList.get(n))) {
+               return false;
+            }
+         }
+         return true;
+      }
+      return jsonEquals(expected, actual);
+   }
+}
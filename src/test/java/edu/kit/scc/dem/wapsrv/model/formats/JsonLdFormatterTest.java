@@ -1,7 +1,30 @@
 package edu.kit.scc.dem.wapsrv.model.formats;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import io.specto.hoverfly.junit5.HoverflyExtension;
+import io.specto.hoverfly.junit5.api.HoverflySimulate;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import com.github.jsonldjava.utils.JsonUtils;
+import edu.kit.scc.dem.wapsrv.app.ConfigurationKeys;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.model.Annotation;
+import edu.kit.scc.dem.wapsrv.model.FormattableObject.Type;
+import edu.kit.scc.dem.wapsrv.model.ModelFactory;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfModelFactory;
+import edu.kit.scc.dem.wapsrv.repository.jena.JenaRdfBackend;
+import edu.kit.scc.dem.wapsrv.testscommon.TestDataStore;
 
 /**
  * Tests the class JsonLdFormatter
@@ -13,8 +36,42 @@ import org.junit.jupiter.api.Test;
  * @author  Timo Schmidt
  * @version 1.1
  */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {JenaRdfBackend.class, RdfModelFactory.class, WapServerConfig.class, FormatRegistry.class,
+      JsonLdProfileRegistry.class, JsonLdFormatter.class})
+@ExtendWith(HoverflyExtension.class)
+@HoverflySimulate(source = @HoverflySimulate.Source(value = "w3c_simulation.json", type = HoverflySimulate.SourceType.DEFAULT_PATH))
+@ActiveProfiles("test")
 class JsonLdFormatterTest {
    private static JsonLdFormatter objJsonLdFormatter = new JsonLdFormatter();
+   @Autowired
+   private ModelFactory modelFactory;
+   @Autowired
+   private JsonLdProfileRegistry profileRegistry;
+   @Autowired
+   private WapServerConfig config;
+
+   /**
+    * Restores the default configuration
+    */
+   @AfterEach
+   final void resetConfig() {
+      updateConfig(WapServerConfig.getDefaultProperties());
+   }
+
+   private void setPrettyPrinting(boolean prettyPrinting) {
+      Properties props = WapServerConfig.getDefaultProperties();
+      props.setProperty(ConfigurationKeys.JsonLdPrettyPrinting.toString(), String.valueOf(prettyPrinting));
+      updateConfig(props);
+   }
+
+   private void updateConfig(Properties props) {
+      config.updateConfig(props);
+      // The formatter reads the configuration of the last context created, which may be another one
+      if (WapServerConfig.getInstance() != config) {
+         WapServerConfig.getInstance().updateConfig(props);
+      }
+   }
 
    /**
     * Test JSON-LD formatter.
@@ -46,6 +103,51 @@ class JsonLdFormatterTest {
       // DOTEST write the test for this method
    }
 
+   /**
+    * Test format with and without pretty printing, to a String and to a stream.
+    *
+    * @throws IOException
+    *                     if the output cannot be parsed
+    */
+   @Test
+   final void testFormatPrettyPrinting() throws IOException {
+      Annotation annotation
+            = modelFactory.createAnnotation(profileRegistry.expandJsonLd(TestDataStore.getAnnotation()), Format.JSON_LD);
+      JsonLdFormatter formatter = new JsonLdFormatter();
+      formatter.setProfileRegistry(profileRegistry);
+      formatter.setAcceptPart(null, Type.ANNOTATION);
+      setPrettyPrinting(true);
+      String pretty = formatter.format(annotation);
+      assertTrue(pretty.contains("\n"), "Pretty printed output expected");
+      setPrettyPrinting(false);
+      String compact = formatter.format(annotation);
+      assertFalse(compact.contains("\n"), "Compact output expected");
+      assertEquals(JsonUtils.fromString(pretty), JsonUtils.fromString(compact));
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      formatter.format(annotation, out);
+      assertEquals(compact, out.toString(StandardCharsets.UTF_8));
+   }
+
+   /**
+    * Test remove blank node IDs.
+    *
+    * @throws IOException
+    *                     if the test JSON cannot be parsed
+    */
+   @Test
+   final void testRemoveBlankNodeIds() throws IOException {
+      Object jsonObject = JsonUtils.fromString("{\"@context\": {\"ex\": {\"@id\": \"_:b2\"}, \"id\": \"_:b3\"}, "
+            + "\"id\": \"_:b0\", \"body\": [{\"@id\": \"_:b1\", \"value\": \"text\"}], "
+            + "\"target\": {\"id\": \"http://example.org/target\"}}");
+      Object expected = JsonUtils.fromString("{\"@context\": {\"ex\": {\"@id\": \"_:b2\"}, \"id\": \"_:b3\"}, "
+            + "\"body\": [{\"value\": \"text\"}], \"target\": {\"id\": \"http://example.org/target\"}}");
+      JsonLdFormatter.removeBlankNodeIds(jsonObject);
+      assertEquals(expected, jsonObject, "Blank node IDs only have to be removed outside of the context");
+      List<Object> list = List.of(Map.of("name", "_:b0"));
+      JsonLdFormatter.removeBlankNodeIds(list);
+      assertEquals(List.of(Map.of("name", "_:b0")), list, "Only IDs are blank node IDs");
+   }
+
    /**
     * Test set accept part.
     */
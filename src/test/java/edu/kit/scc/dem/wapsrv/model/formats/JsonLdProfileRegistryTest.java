@@ -8,7 +8,9 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import io.specto.hoverfly.junit5.HoverflyExtension;
 import io.specto.hoverfly.junit5.api.HoverflySimulate;
 import org.junit.jupiter.api.AfterEach;
@@ -18,6 +20,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.utils.JsonUtils;
 import edu.kit.scc.dem.wapsrv.app.ConfigurationKeys;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
 import edu.kit.scc.dem.wapsrv.exceptions.InternalServerException;
@@ -368,6 +373,63 @@ class JsonLdProfileRegistryTest {
         }
     }
 
+    /**
+     * Test get parsed frames
+     */
+    @Test
+    final void testGetFrame() {
+        JsonLdProfileRegistry instance = getJsonLdProfileRegistry();
+        for (Type type : Type.values()) {
+            Object frame = instance.getFrame(type);
+            assertTrue(frame instanceof Map);
+            // Every call gets its own copy that may be changed
+            Object other = instance.getFrame(type);
+            assertEquals(frame, other);
+            assertNotSame(frame, other);
+            ((Map<?, ?>) frame).clear();
+            assertNotEquals(frame, instance.getFrame(type));
+        }
+    }
+
+    /**
+     * Test get compaction contexts
+     */
+    @Test
+    final void testGetCompactionContext() {
+        JsonLdProfileRegistry instance = getJsonLdProfileRegistry();
+        URI annoProfile = getAnnoProfileUrl();
+        assertTrue(instance.cacheProfile(annoProfile));
+        List<Object> contexts = List.of(annoProfile.toString());
+        JsonLdCompactionContext compactionContext
+                = instance.getCompactionContext(Type.ANNOTATION, Set.of(annoProfile), () -> contexts);
+        assertEquals(contexts, compactionContext.getContexts());
+        // Cached by type and profiles, the contexts are not collected again
+        assertSame(compactionContext, instance.getCompactionContext(Type.ANNOTATION, Set.of(annoProfile), () -> {
+            fail("Contexts collected although cached");
+            return null;
+        }));
+        assertNotSame(compactionContext,
+                instance.getCompactionContext(Type.PAGE, Set.of(annoProfile), () -> contexts));
+    }
+
+    /**
+     * Test that compacting with a compaction context puts the graph under the same key as the JSON-LD processor
+     */
+    @Test
+    final void testCompactionContextGraphKey() throws Exception {
+        Object expanded = JsonUtils.fromString("[{\"@id\": \"http://example.org/1\", \"http://example.org/name\": "
+                + "[{\"@value\": \"a\"}]}, {\"@id\": \"http://example.org/2\", \"http://example.org/name\": "
+                + "[{\"@value\": \"b\"}]}]");
+        JsonLdOptions options = new JsonLdOptions();
+        for (String context : List.of("{\"name\": \"http://example.org/name\"}",
+                "{\"items\": \"@graph\", \"all\": {\"@id\": \"@graph\"}, \"name\": \"http://example.org/name\"}")) {
+            Object parsed = JsonUtils.fromString(context);
+            Map<String, Object> expected = JsonLdProcessor.compact(expanded, parsed, options);
+            assertEquals(expected,
+                    new JsonLdCompactionContext(List.of(parsed), options).compact(expanded, options));
+        }
+    }
+
     /**
      * Test get frame strings
      */
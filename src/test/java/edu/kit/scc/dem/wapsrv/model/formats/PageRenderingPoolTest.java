@@ -0,0 +1,182 @@
+package edu.kit.scc.dem.wapsrv.model.formats;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import io.specto.hoverfly.junit5.HoverflyExtension;
+import io.specto.hoverfly.junit5.api.HoverflySimulate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import com.github.jsonldjava.utils.JsonUtils;
+import edu.kit.scc.dem.wapsrv.app.ConfigurationKeys;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.exceptions.WapException;
+import edu.kit.scc.dem.wapsrv.model.Annotation;
+import edu.kit.scc.dem.wapsrv.model.FormattableObject.Type;
+import edu.kit.scc.dem.wapsrv.model.ModelFactory;
+import edu.kit.scc.dem.wapsrv.model.Page;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfBackend;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfModelFactory;
+import edu.kit.scc.dem.wapsrv.repository.jena.JenaRdfBackend;
+import edu.kit.scc.dem.wapsrv.testscommon.TestDataStore;
+
+/**
+ * Tests the class PageRenderingPool
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {JenaRdfBackend.class, RdfModelFactory.class, WapServerConfig.class, FormatRegistry.class,
+      JsonLdProfileRegistry.class, JsonLdFormatter.class, PageRenderingPool.class})
+@ExtendWith(HoverflyExtension.class)
+@HoverflySimulate(source = @HoverflySimulate.Source(value = "w3c_simulation.json", type = HoverflySimulate.SourceType.DEFAULT_PATH))
+@ActiveProfiles("test")
+class PageRenderingPoolTest {
+   private static final String CONTAINER_IRI = "http://localhost:8080/wap/container1/";
+   @Autowired
+   private ModelFactory modelFactory;
+   @Autowired
+   private RdfBackend rdfBackend;
+   @Autowired
+   private JsonLdProfileRegistry profileRegistry;
+   @Autowired
+   private PageRenderingPool pageRenderingPool;
+   @Autowired
+   private WapServerConfig config;
+
+   /**
+    * Restores the default configuration
+    */
+   @AfterEach
+   final void resetConfig() {
+      updateConfig(WapServerConfig.getDefaultProperties());
+   }
+
+   private void setParallelism(int parallelism) {
+      Properties props = WapServerConfig.getDefaultProperties();
+      props.setProperty(ConfigurationKeys.PageRenderingParallelism.toString(), String.valueOf(parallelism));
+      updateConfig(props);
+   }
+
+   private void updateConfig(Properties props) {
+      config.updateConfig(props);
+      // Pages read the configuration of the last context created, which may be another one
+      if (WapServerConfig.getInstance() != config) {
+         WapServerConfig.getInstance().updateConfig(props);
+      }
+   }
+
+   /**
+    * Test that the pool follows the configured parallelism and is shut down.
+    */
+   @Test
+   final void testGetPool() {
+      PageRenderingPool holder = new PageRenderingPool(config);
+      setParallelism(0);
+      assertNull(holder.getPool());
+      setParallelism(2);
+      ForkJoinPool pool = holder.getPool();
+      assertNotNull(pool);
+      assertEquals(2, pool.getParallelism());
+      assertSame(pool, holder.getPool());
+      setParallelism(3);
+      ForkJoinPool replaced = holder.getPool();
+      assertEquals(3, replaced.getParallelism());
+      assertTrue(pool.isShutdown(), "The replaced pool must be shut down");
+      holder.shutdown();
+      assertTrue(replaced.isShutdown());
+      assertNull(holder.getPool(), "No pool after shutdown");
+   }
+
+   /**
+    * Test that a page with several annotations is rendered in parallel as it is rendered as a whole, even if its
+    * annotations are returned in another order than the page lists them.
+    *
+    * @throws IOException
+    *                     if the output cannot be parsed
+    */
+   @Test
+   final void testParallelPageMatchesSequential() throws IOException {
+      List<Annotation> annotations = new ArrayList<>();
+      for (String raw : TestDataStore.readAnnotations()) {
+         try {
+            annotations.add(modelFactory.createAnnotation(profileRegistry.expandJsonLd(raw), Format.JSON_LD));
+         } catch (WapException e) {
+            // Not every example is a single annotation
+         }
+         if (annotations.size() == 5) {
+            break;
+         }
+      }
+      assertTrue(annotations.size() > 1, "Not enough test annotations");
+      setParallelism(0);
+      String expected = format(createPage(annotations));
+      setParallelism(2);
+      Page page = createPage(annotations);
+      assertEquals(annotations.size(), page.getAnnotations().size(), "Annotations not kept apart");
+      String actual = format(page);
+      assertEquals(JsonUtils.fromString(expected), JsonUtils.fromString(actual));
+      Set<String> calledMethods = new HashSet<>();
+      String reversed = format(reverseAnnotations(page, calledMethods));
+      assertTrue(calledMethods.contains("toEnvelopeString") && !calledMethods.contains("toString"),
+            "Page has not been rendered in parallel");
+      assertEquals(JsonUtils.fromString(expected), JsonUtils.fromString(reversed));
+   }
+
+   private Page createPage(List<Annotation> annotations) {
+      Page page = modelFactory.createPage(rdfBackend.getRdf().createDataset(), CONTAINER_IRI, 0, false, false,
+            annotations.size(), "2019-01-01T00:00:00Z", "Test container");
+      for (Annotation annotation : annotations) {
+         page.addAnnotation(annotation);
+      }
+      page.closeAdding();
+      return page;
+   }
+
+   private String format(Page page) {
+      JsonLdFormatter formatter = new JsonLdFormatter();
+      formatter.setProfileRegistry(profileRegistry);
+      formatter.setPageRenderingPool(pageRenderingPool);
+      formatter.setAcceptPart(null, Type.PAGE);
+      return formatter.format(page);
+   }
+
+   /**
+    * Wraps a page so that it returns its annotations in reverse order
+    *
+    * @param  page
+    *                       The page to wrap
+    * @param  calledMethods
+    *                       Collects the names of the methods called on the wrapped page
+    * @return               The wrapped page
+    */
+   private static Page reverseAnnotations(Page page, Set<String> calledMethods) {
+      return (Page) Proxy.newProxyInstance(Page.class.getClassLoader(), new Class<?>[] {Page.class},
+            (proxy, method, args) -> {
+               calledMethods.add(method.getName());
+               if ("getAnnotations".equals(method.getName())) {
+                  List<Annotation> reversed = new ArrayList<>(page.getAnnotations());
+                  Collections.reverse(reversed);
+                  return reversed;
+               }
+               return method.invoke(page, args);
+            });
+   }
+}
@@ -1,6 +1,9 @@
 package edu.kit.scc.dem.wapsrv.model.formats;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
 import edu.kit.scc.dem.wapsrv.model.FormattableObject;
 import edu.kit.scc.dem.wapsrv.model.FormattableObject.Type;
@@ -62,6 +65,25 @@ class SimpleFormatterTest {
       }
    }
 
+   /**
+    * Test format to a stream.
+    * 
+    * @throws IOException
+    *                     never, the stream is in memory
+    */
+   @Test
+   final void testFormatToStream() throws IOException {
+      // test for all types
+      for (Format paramFormat : Format.values()) {
+         objSimpleFormatter = new SimpleFormatter(paramFormat, paramFormat.toString());
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         objSimpleFormatter.format(new ParamFormattableObject(), out);
+         String actual = out.toString(StandardCharsets.UTF_8);
+         assertEquals(objSimpleFormatter.format(new ParamFormattableObject()), actual,
+               "Streamed output differs for Format: " + paramFormat);
+      }
+   }
+
    /**
     * Test set accept part.
     */
@@ -5,10 +5,13 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
 import org.apache.commons.rdf.api.BlankNodeOrIRI;
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.Graph;
 import org.apache.commons.rdf.api.RDF;
+import org.apache.jena.commonsrdf.JenaCommonsRDF;
+import org.apache.jena.sparql.util.IsoMatcher;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +20,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
 import edu.kit.scc.dem.wapsrv.exceptions.NotAnAnnotationException;
+import edu.kit.scc.dem.wapsrv.exceptions.WapException;
 import edu.kit.scc.dem.wapsrv.model.Annotation;
 import edu.kit.scc.dem.wapsrv.model.AnnotationList;
 import edu.kit.scc.dem.wapsrv.model.ModelFactory;
@@ -27,6 +31,7 @@ import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
 import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.AnnoVocab;
 import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.RdfVocab;
 import edu.kit.scc.dem.wapsrv.repository.jena.JenaRdfBackend;
+import edu.kit.scc.dem.wapsrv.testscommon.TestDataStore;
 
 /**
  * Tests the class RdfModelFactory.
@@ -116,6 +121,39 @@ class RdfModelFactoryTest {
       assertNotNull(a, "the returned Annotation is not allowed to be null");
    }
 
+   /**
+    * Test create annotation from expanded JSON-LD, every example annotation has to match the annotation parsed from
+    * the string.
+    *
+    * @throws IOException
+    *                     if the examples cannot be read
+    */
+   @Test
+   final void testCreateAnnotationExpandedTree() throws IOException {
+      int compared = 0;
+      for (String raw : TestDataStore.readAnnotations()) {
+         Annotation expected;
+         try {
+            expected = modelFactory.createAnnotation(profileRegistry.expandJsonLd(raw), Format.JSON_LD);
+         } catch (WapException e) {
+            // Not every example is a single annotation, the expanded tree has to be rejected too
+            assertThrows(WapException.class, () -> {
+               modelFactory.createAnnotation(profileRegistry.expandJsonLdTree(raw));
+            }, "Rejected annotation accepted from the expanded tree: " + raw);
+            continue;
+         }
+         Annotation actual = modelFactory.createAnnotation(profileRegistry.expandJsonLdTree(raw));
+         assertTrue(IsoMatcher.isomorphic(JenaCommonsRDF.toJena(expected.getDataset()),
+               JenaCommonsRDF.toJena(actual.getDataset())), "Datasets differ: " + raw);
+         compared++;
+      }
+      assertTrue(compared > 0, "No test annotations");
+      assertThat(modelFactory.createAnnotationList(profileRegistry.expandJsonLdTree(rawAnnotation)).size(), is(1));
+      assertThrows(NotAnAnnotationException.class, () -> {
+         modelFactory.createAnnotationList(profileRegistry.expandJsonLdTree("{}"));
+      });
+   }
+
    /**
     * Test is valid input format.
     */
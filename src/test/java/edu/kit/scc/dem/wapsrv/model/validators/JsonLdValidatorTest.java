@@ -1,15 +1,26 @@
 package edu.kit.scc.dem.wapsrv.model.validators;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import io.specto.hoverfly.junit5.HoverflyExtension;
 import io.specto.hoverfly.junit5.api.HoverflySimulate;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.exceptions.FormatException;
 import edu.kit.scc.dem.wapsrv.model.formats.Format;
 import edu.kit.scc.dem.wapsrv.model.formats.FormatRegistry;
 import edu.kit.scc.dem.wapsrv.model.formats.JsonLdFormatter;
@@ -83,6 +94,49 @@ class JsonLdValidatorTest {
       assertTrue(actual, "Test Container should be valid.");
    }
 
+   /**
+    * Test validating already expanded JSON-LD.
+    */
+   @Test
+   final void testValidateExpandedAnnotation() {
+      assertTrue(jsonLdValidator.isExpansionNeeded(), "The schemas describe expanded JSON-LD.");
+      List<Object> expanded = profileRegistry
+            .expandJsonLdTree(TestDataStore.getAnnotation("example70_realAnnoWithPicture.jsonld"));
+      assertTrue(jsonLdValidator.validateAnnotation(expanded), "Test Annotation should be valid.");
+      assertTrue(jsonLdValidator.validateContainer(
+            profileRegistry.expandJsonLdTree(TestDataStore.getContainer("example1.jsonld"))),
+            "Test Container should be valid.");
+      List<Object> invalid = List.of(Map.of("@id", "http://example.org/anno1",
+            "http://www.w3.org/ns/oa#hasBody", Map.of("@id", "http://example.org/body1")));
+      assertThrows(FormatException.class, () -> {
+         jsonLdValidator.validateAnnotation(invalid);
+      });
+   }
+
+   /**
+    * Test that the compiled schema is replaced when the schema file or the schema folder changes.
+    */
+   @Test
+   final void testSchemaReload(@TempDir Path folder) throws IOException {
+      String annotation = TestDataStore.getAnnotation("example70_realAnnoWithPicture.jsonld");
+      File schema = folder.resolve(JsonLdValidator.ANNOTATION_SCHEMA_FILE).toFile();
+      Files.write(schema.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+      WapServerConfig config = mock(WapServerConfig.class);
+      when(config.getJsonLdValidatorSchemaFolder()).thenReturn(folder.toString());
+      JsonLdValidator validator = new JsonLdValidator(config);
+      assertTrue(validator.validateAnnotation(annotation), "Everything is valid with an empty schema.");
+      // The expanded annotation is an array
+      Files.write(schema.toPath(), "{\"type\": \"object\"}".getBytes(StandardCharsets.UTF_8));
+      assertTrue(schema.setLastModified(schema.lastModified() + 10000), "Could not change the modification time.");
+      assertThrows(FormatException.class, () -> {
+         validator.validateAnnotation(annotation);
+      });
+      // Back to the delivered schemas
+      when(config.getJsonLdValidatorSchemaFolder())
+            .thenReturn(WapServerConfig.getInstance().getJsonLdValidatorSchemaFolder());
+      assertTrue(validator.validateAnnotation(annotation), "Test Annotation should be valid.");
+   }
+
    /**
     * Test get format.
     */
@@ -0,0 +1,120 @@
+package edu.kit.scc.dem.wapsrv.model.validators;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import io.specto.hoverfly.junit5.HoverflyExtension;
+import io.specto.hoverfly.junit5.api.HoverflySimulate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.exceptions.FormatException;
+import edu.kit.scc.dem.wapsrv.exceptions.WapException;
+import edu.kit.scc.dem.wapsrv.model.formats.Format;
+import edu.kit.scc.dem.wapsrv.model.formats.FormatRegistry;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdFormatter;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
+import edu.kit.scc.dem.wapsrv.testscommon.TestDataStore;
+
+/**
+ * Tests the class NetworkntJsonLdValidator
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {WapServerConfig.class, FormatRegistry.class, JsonLdProfileRegistry.class,
+      JsonLdFormatter.class})
+@ExtendWith(HoverflyExtension.class)
+@HoverflySimulate(source = @HoverflySimulate.Source(value = "w3c_simulation.json", type = HoverflySimulate.SourceType.DEFAULT_PATH))
+@ActiveProfiles("test")
+class NetworkntJsonLdValidatorTest {
+   @Autowired
+   private JsonLdProfileRegistry profileRegistry;
+   @Autowired
+   private WapServerConfig config;
+
+   /**
+    * Test validate annotation.
+    */
+   @Test
+   final void testValidateAnnotation() {
+      NetworkntJsonLdValidator validator = new NetworkntJsonLdValidator(config);
+      assertEquals(Format.JSON_LD, validator.getFormat());
+      assertEquals(NetworkntJsonLdValidator.ENGINE, validator.getEngine());
+      assertTrue(validator.isExpansionNeeded(), "The schemas describe expanded JSON-LD.");
+      String annotation = TestDataStore.getAnnotation("example70_realAnnoWithPicture.jsonld");
+      assertTrue(validator.validateAnnotation(annotation), "Test Annotation should be valid.");
+      assertTrue(validator.validateAnnotation(profileRegistry.expandJsonLdTree(annotation)),
+            "Test Annotation should be valid.");
+      assertTrue(validator.validateContainer(
+            profileRegistry.expandJsonLdTree(TestDataStore.getContainer("example1.jsonld"))),
+            "Test Container should be valid.");
+      List<Object> invalid = List.of(Map.of("@id", "http://example.org/anno1",
+            "http://www.w3.org/ns/oa#hasBody", Map.of("@id", "http://example.org/body1")));
+      assertThrows(FormatException.class, () -> {
+         validator.validateAnnotation(invalid);
+      });
+   }
+
+   /**
+    * Test that all test annotations get the same result as from the default engine.
+    */
+   @Test
+   final void testSameResultAsLibrary() {
+      NetworkntJsonLdValidator validator = new NetworkntJsonLdValidator(config);
+      JsonLdValidator library = new JsonLdValidator(config);
+      int validated = 0;
+      for (String annotation : TestDataStore.readAnnotations()) {
+         final List<Object> expanded;
+         try {
+            expanded = profileRegistry.expandJsonLdTree(annotation);
+         } catch (WapException e) {
+            continue;
+         }
+         assertEquals(isValid(library, expanded), isValid(validator, expanded), "Different result for " + annotation);
+         validated++;
+      }
+      assertTrue(validated > 0, "No test annotations");
+   }
+
+   private static boolean isValid(Validator validator, List<Object> expanded) {
+      try {
+         return validator.validateAnnotation(expanded);
+      } catch (FormatException e) {
+         return false;
+      }
+   }
+
+   /**
+    * Test that patterns are evaluated as ECMA 262 regular expressions.
+    */
+   @Test
+   final void testEcmaPattern(@TempDir Path folder) throws IOException {
+      // [^] matches any character in ECMA 262, java.util.regex rejects it
+      Files.write(folder.resolve(AbstractJsonLdValidator.ANNOTATION_SCHEMA_FILE), ("{\"type\": \"array\", \"items\": "
+            + "{\"properties\": {\"@id\": {\"pattern\": \"^http:[^]+$\"}}}}").getBytes(StandardCharsets.UTF_8));
+      WapServerConfig schemaConfig = mock(WapServerConfig.class);
+      when(schemaConfig.getJsonLdValidatorSchemaFolder()).thenReturn(folder.toString());
+      NetworkntJsonLdValidator validator = new NetworkntJsonLdValidator(schemaConfig);
+      assertTrue(validator.validateAnnotation(List.of(Map.of("@id", "http://example.org/anno1"))));
+      assertThrows(FormatException.class, () -> {
+         validator.validateAnnotation(List.of(Map.of("@id", "urn:uuid:1")));
+      });
+   }
+}
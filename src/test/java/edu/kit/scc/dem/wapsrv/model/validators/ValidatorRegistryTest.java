@@ -9,6 +9,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.exceptions.InternalServerException;
 import edu.kit.scc.dem.wapsrv.model.formats.Format;
 
 /**
@@ -22,7 +23,8 @@ import edu.kit.scc.dem.wapsrv.model.formats.Format;
  * @version 1.1
  */
 @ExtendWith(SpringExtension.class)
-@SpringBootTest(classes = {ValidatorRegistry.class, WapServerConfig.class, JsonLdValidator.class})
+@SpringBootTest(classes = {ValidatorRegistry.class, WapServerConfig.class, JsonLdValidator.class,
+      NetworkntJsonLdValidator.class})
 @ActiveProfiles("test")
 class ValidatorRegistryTest {
    @Autowired
@@ -63,6 +65,7 @@ class ValidatorRegistryTest {
       actual = null;
       actual = objValidatorRegistry.getValidator(paramFormat);
       assertNotNull(actual, "Could not get validator for format: " + paramFormat);
+      assertSame(actual, objValidatorRegistry.getValidator(paramFormat), "The validator should be reused.");
       // test for not supported format TURTLE
       paramFormat = Format.TURTLE;
       actual = null;
@@ -70,4 +73,21 @@ class ValidatorRegistryTest {
       assertNull(actual, "Should ne null for not supported format: " + paramFormat);
       // DOTEST write the test for this method
    }
+
+   /**
+    * Test that the JSON-LD validator using the configured engine is chosen.
+    */
+   @Test
+   final void testGetValidatorEngine() {
+      assertEquals(JsonLdValidator.ENGINE, objValidatorRegistry.getValidator(Format.JSON_LD).getEngine(),
+            "The default engine should be used.");
+      assertTrue(objValidatorRegistry.getValidator(Format.JSON_LD, JsonLdValidator.ENGINE) instanceof JsonLdValidator);
+      assertTrue(objValidatorRegistry.getValidator(Format.JSON_LD,
+            NetworkntJsonLdValidator.ENGINE) instanceof NetworkntJsonLdValidator);
+      assertThrows(InternalServerException.class, () -> {
+         objValidatorRegistry.getValidator(Format.JSON_LD, "compiled");
+      });
+      assertNull(objValidatorRegistry.getValidator(Format.TURTLE, NetworkntJsonLdValidator.ENGINE));
+      assertEquals(Set.of(Format.JSON_LD), objValidatorRegistry.getSupportedFormats());
+   }
 }
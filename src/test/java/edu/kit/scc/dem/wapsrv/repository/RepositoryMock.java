@@ -1,6 +1,7 @@
 package edu.kit.scc.dem.wapsrv.repository;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.doCallRealMethod;
 import org.mockito.Mockito;
 import org.springframework.context.annotation.Bean;
@@ -30,11 +31,18 @@ public class RepositoryMock {
    @Bean
    @Primary
    public WapObjectRepository wapObjectRepository() {
-      WapObjectRepository wapObjectRepository = Mockito.mock(CollectedRepository.class);
+      CollectedRepository wapObjectRepository = Mockito.mock(CollectedRepository.class);
       doCallRealMethod().when(wapObjectRepository).readRdfTransaction(any(RdfTransactionExecuter.class));
       doCallRealMethod().when(wapObjectRepository).writeRdfTransaction(any(RdfTransactionExecuter.class));
+      doCallRealMethod().when(wapObjectRepository).readPromoteRdfTransaction(any(RdfTransactionExecuter.class));
       doCallRealMethod().when(wapObjectRepository).doRdfTransaction(any(TransactionRepository.Type.class),
             any(RdfTransactionExecuter.class));
+      doCallRealMethod().when(wapObjectRepository).streamAllObjectIrisOfSeq(any(String.class), any(String.class));
+      doCallRealMethod().when(wapObjectRepository).getWapObjectView(any(String.class));
+      doCallRealMethod().when(wapObjectRepository).getWapObjects(anyList());
+      doCallRealMethod().when(wapObjectRepository).containsWapObject(any(String.class));
+      doCallRealMethod().when(wapObjectRepository).isWapObjectDeleted(any(String.class));
+      doCallRealMethod().when(wapObjectRepository).markWapObjectDeleted(any(String.class));
       return wapObjectRepository;
    }
 }
@@ -0,0 +1,196 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import io.specto.hoverfly.junit5.HoverflyExtension;
+import io.specto.hoverfly.junit5.api.HoverflySimulate;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Seq;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.model.Container;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfBackend;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.AnnoVocab;
+
+/**
+ * Tests the class JenaBulkLoader
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {WapServerConfig.class, JsonLdProfileRegistry.class, JenaRdfBackend.class})
+@ExtendWith(HoverflyExtension.class)
+@HoverflySimulate(source = @HoverflySimulate.Source(value = "w3c_simulation.json", type = HoverflySimulate.SourceType.DEFAULT_PATH))
+@ActiveProfiles("test")
+class JenaBulkLoaderTest {
+   private static final String ROOT_IRI = "http://www.example.org/wap/";
+   private static final String CONTAINER_IRI = ROOT_IRI + "container1/";
+   private static final List<String> ANNOTATION_IRIS
+         = List.of(CONTAINER_IRI + "anno3", CONTAINER_IRI + "anno1", CONTAINER_IRI + "anno2");
+   @Autowired
+   private JsonLdProfileRegistry profileRegistry;
+   @Autowired
+   private RdfBackend rdfBackend;
+
+   /**
+    * Test is N-Quads.
+    */
+   @Test
+   final void testIsNQuads() {
+      assertTrue(JenaBulkLoader.isNQuads("backup.nq"));
+      assertTrue(JenaBulkLoader.isNQuads("backup.nq.gz"));
+      assertFalse(JenaBulkLoader.isNQuads("dump.ndjson"));
+   }
+
+   /**
+    * Test loading NDJSON, the sequences and the object index are built from the loaded database.
+    *
+    * @param  folder
+    *                     The folder holding the dump and the database
+    * @throws IOException
+    *                     if loading fails
+    */
+   @Test
+   final void testLoadObjects(@TempDir Path folder) throws IOException {
+      Path dump = folder.resolve("dump.ndjson");
+      StringBuilder lines = new StringBuilder();
+      lines.append("{\"@context\": [\"http://www.w3.org/ns/anno.jsonld\", \"http://www.w3.org/ns/ldp.jsonld\"], "
+            + "\"id\": \"" + CONTAINER_IRI + "\", "
+            + "\"type\": [\"ldp:Container\", \"ldp:BasicContainer\", \"AnnotationCollection\"]}\n");
+      for (String iri : ANNOTATION_IRIS) {
+         lines.append(createAnnotation(iri)).append("\n");
+      }
+      // Annotations cannot be stored in the root container
+      lines.append(createAnnotation(ROOT_IRI + "anno4")).append("\n");
+      // Neither a container nor an annotation
+      lines.append("{\"@context\": \"http://www.w3.org/ns/anno.jsonld\", \"id\": \"" + CONTAINER_IRI + "x\"}\n");
+      Files.write(dump, lines.toString().getBytes(StandardCharsets.UTF_8));
+      String dataBasePath = folder.resolve("db").toString();
+      JenaBulkLoader loader = new JenaBulkLoader(dataBasePath, ROOT_IRI);
+      assertEquals(4, loader.loadObjects(List.of(dump.toString()), rdfBackend, profileRegistry));
+      Dataset dataBase = TDB2Factory.connectDataset(dataBasePath);
+      dataBase.begin(ReadWrite.READ);
+      try {
+         JenaSequenceIndex sequences = new JenaSequenceIndex(dataBase);
+         String seqIri = Container.toAnnotationSeqIriString(CONTAINER_IRI);
+         assertEquals(ANNOTATION_IRIS.size(), sequences.count(CONTAINER_IRI, seqIri));
+         assertEquals(ANNOTATION_IRIS, sequences.range(CONTAINER_IRI, seqIri, 1, ANNOTATION_IRIS.size()),
+               "The annotations have to be in the order of the lines");
+         Seq containers = dataBase.getNamedModel(ROOT_IRI).getSeq(Container.toContainerSeqIriString(ROOT_IRI));
+         assertEquals(1, containers.size());
+         assertEquals(CONTAINER_IRI, containers.getResource(1).getURI());
+         JenaObjectIndex objects = new JenaObjectIndex();
+         assertEquals(5, objects.build(dataBase), "Root, container and annotations expected");
+         assertTrue(objects.contains(ROOT_IRI));
+         assertTrue(objects.contains(CONTAINER_IRI));
+         for (String iri : ANNOTATION_IRIS) {
+            assertTrue(objects.contains(iri), iri + " not indexed");
+            assertFalse(objects.isDeleted(iri));
+         }
+         assertFalse(objects.contains(ROOT_IRI + "anno4"));
+      } finally {
+         dataBase.end();
+      }
+   }
+
+   /**
+    * Test loading N-Quads, annotation sequences still stored as rdf:Seq are migrated into the index.
+    *
+    * @param  folder
+    *                     The folder holding the dump and the database
+    * @throws IOException
+    *                     if loading fails
+    */
+   @Test
+   final void testLoadNQuads(@TempDir Path folder) throws IOException {
+      Dataset backup = DatasetFactory.create();
+      backup.addNamedModel(ROOT_IRI, JenaDataBase.createRootModel(ROOT_IRI));
+      Model container = backup.getNamedModel(CONTAINER_IRI);
+      Seq annotations = container.createSeq(Container.toAnnotationSeqIriString(CONTAINER_IRI));
+      for (String iri : ANNOTATION_IRIS) {
+         annotations.add(container.createResource(iri));
+         Model annotation = backup.getNamedModel(iri);
+         annotation.add(annotation.createResource(iri), RDF.type,
+               annotation.createResource(AnnoVocab.annotation.getIRIString()));
+      }
+      Path dump = folder.resolve("backup.nq");
+      try (OutputStream out = Files.newOutputStream(dump)) {
+         RDFDataMgr.write(out, backup, Lang.NQUADS);
+      }
+      String dataBasePath = folder.resolve("db").toString();
+      JenaBulkLoader loader = new JenaBulkLoader(dataBasePath, ROOT_IRI);
+      long quads = loader.loadNQuads(List.of(dump.toString()));
+      assertEquals(backup.asDatasetGraph().stream().count(), quads);
+      Dataset dataBase = TDB2Factory.connectDataset(dataBasePath);
+      dataBase.begin(ReadWrite.WRITE);
+      try {
+         // Done on the next start of the server
+         JenaSequenceIndex sequences = new JenaSequenceIndex(dataBase);
+         assertEquals(1, sequences.migrate());
+         String seqIri = Container.toAnnotationSeqIriString(CONTAINER_IRI);
+         assertEquals(ANNOTATION_IRIS, sequences.range(CONTAINER_IRI, seqIri, 1, ANNOTATION_IRIS.size()));
+         JenaObjectIndex objects = new JenaObjectIndex();
+         objects.build(dataBase);
+         assertTrue(objects.contains(ROOT_IRI));
+         for (String iri : ANNOTATION_IRIS) {
+            assertTrue(objects.contains(iri), iri + " not indexed");
+         }
+         dataBase.commit();
+      } finally {
+         dataBase.end();
+      }
+   }
+
+   /**
+    * Test that only empty databases are loaded.
+    *
+    * @param  folder
+    *                     The folder holding the dump and the database
+    * @throws IOException
+    *                     if writing the dump fails
+    */
+   @Test
+   final void testNonEmptyDataBase(@TempDir Path folder) throws IOException {
+      Path dump = folder.resolve("dump.ndjson");
+      Files.write(dump, (createAnnotation(ROOT_IRI + "anno1") + "\n").getBytes(StandardCharsets.UTF_8));
+      String dataBasePath = folder.resolve("db").toString();
+      JenaBulkLoader loader = new JenaBulkLoader(dataBasePath, ROOT_IRI);
+      // The annotation is rejected, the root container is written anyway
+      assertEquals(0, loader.loadObjects(List.of(dump.toString()), rdfBackend, profileRegistry));
+      assertThrows(IOException.class, () -> {
+         loader.loadObjects(List.of(dump.toString()), rdfBackend, profileRegistry);
+      });
+      assertThrows(IOException.class, () -> {
+         loader.loadNQuads(List.of(dump.toString()));
+      });
+   }
+
+   private static String createAnnotation(String iri) {
+      return "{\"@context\": \"http://www.w3.org/ns/anno.jsonld\", \"id\": \"" + iri + "\", \"type\": \"Annotation\", "
+            + "\"body\": \"http://example.org/post1\", \"target\": \"http://example.com/page1\"}";
+   }
+}
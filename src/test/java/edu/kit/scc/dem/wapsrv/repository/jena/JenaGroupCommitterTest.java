@@ -0,0 +1,220 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.jena.commonsrdf.JenaCommonsRDF;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import edu.kit.scc.dem.wapsrv.exceptions.NotExistentException;
+import edu.kit.scc.dem.wapsrv.repository.TransactionRepository;
+
+/**
+ * Tests the class JenaGroupCommitter
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+class JenaGroupCommitterTest {
+   private static final int WRITERS = 16;
+   private static final long TIMEOUT_IN_S = 10;
+   private static final String NS = "http://www.example.org/";
+   private Dataset dataBase;
+   private JenaTransactionManager manager;
+   private JenaGroupCommitter committer;
+
+   /**
+    * Creates a fresh in memory database and a group committer with a long window for every test
+    */
+   @BeforeEach
+   final void setUp() {
+      dataBase = TDB2Factory.createDataset();
+      manager = new JenaTransactionManager(dataBase);
+      TransactionRepository repository = new TransactionRepository() {
+         @Override
+         public org.apache.commons.rdf.api.Dataset getTransactionDataset() {
+            return JenaCommonsRDF.fromJena(dataBase.asDatasetGraph());
+         }
+
+         @Override
+         public boolean beginTransaction(TransactionRepository.Type type) {
+            return manager.begin(type);
+         }
+
+         @Override
+         public void abortTransaction() {
+            manager.abort();
+         }
+
+         @Override
+         public void endTransaction(boolean wasOpend) {
+            manager.end(wasOpend);
+         }
+      };
+      committer = new JenaGroupCommitter(repository, 200, WRITERS);
+   }
+
+   /**
+    * Stops the group committer
+    */
+   @AfterEach
+   final void tearDown() {
+      committer.close();
+   }
+
+   /**
+    * Test concurrent writes are all committed.
+    *
+    * @throws InterruptedException
+    *                              if interrupted while waiting
+    */
+   @Test
+   final void testConcurrentWrites() throws InterruptedException {
+      AtomicInteger failures = new AtomicInteger();
+      List<Thread> writers = startWriters(failures, -1);
+      for (Thread writer : writers) {
+         writer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_IN_S));
+      }
+      assertEquals(0, failures.get(), "Writer failed");
+      assertEquals(WRITERS, countStatements(), "Not all writes committed");
+   }
+
+   /**
+    * Test a failing write only fails its own submitter, the other writes of the batch are committed.
+    *
+    * @throws InterruptedException
+    *                              if interrupted while waiting
+    */
+   @Test
+   final void testFailingWrite() throws InterruptedException {
+      AtomicInteger failures = new AtomicInteger();
+      List<Thread> writers = startWriters(failures, WRITERS / 2);
+      for (Thread writer : writers) {
+         writer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_IN_S));
+      }
+      assertEquals(1, failures.get(), "Only the failing write should fail");
+      assertEquals(WRITERS - 1, countStatements(), "Writes of the failed batch not repeated");
+      assertFalse(manager.isWriteActive(), "Write lock not released");
+   }
+
+   /**
+    * Test the writes repeated after a failing write of their batch see the database without their first execution and
+    * are committed once.
+    *
+    * @throws InterruptedException
+    *                              if interrupted while waiting
+    */
+   @Test
+   final void testFailingWriteRepeatsOthers() throws InterruptedException {
+      final int failing = WRITERS / 2;
+      Map<Integer, AtomicInteger> executions = new ConcurrentHashMap<>();
+      AtomicInteger failures = new AtomicInteger();
+      CountDownLatch start = new CountDownLatch(1);
+      List<Thread> writers = new ArrayList<>();
+      for (int i = 0; i < WRITERS; i++) {
+         final int number = i;
+         Thread writer = new Thread(() -> {
+            try {
+               start.await(TIMEOUT_IN_S, TimeUnit.SECONDS);
+               if (number == failing) {
+                  // Join the batch after the others, well within its window, so there are writes to repeat
+                  Thread.sleep(50);
+               }
+               committer.execute(ds -> {
+                  executions.computeIfAbsent(number, key -> new AtomicInteger()).incrementAndGet();
+                  // Like creating an object, which fails if it exists
+                  if (containsStatement("writer" + number)) {
+                     throw new IllegalStateException("first execution not rolled back");
+                  }
+                  addStatement("writer" + number);
+                  if (number == failing) {
+                     throw new IllegalArgumentException("failing write");
+                  }
+               });
+            } catch (InterruptedException | RuntimeException e) {
+               failures.incrementAndGet();
+            }
+         });
+         writers.add(writer);
+         writer.start();
+      }
+      start.countDown();
+      for (Thread writer : writers) {
+         writer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_IN_S));
+      }
+      assertEquals(1, failures.get(), "Only the failing write should fail");
+      assertEquals(1, executions.get(failing).get(), "The failing write must not be repeated");
+      assertTrue(executions.values().stream().anyMatch(count -> count.get() > 1), "No write has been repeated");
+      assertEquals(WRITERS - 1, countStatements(), "Repeated writes committed more than once");
+      assertFalse(manager.isWriteActive(), "Write lock not released");
+   }
+
+   /**
+    * Test the exception thrown by the write reaches the submitter.
+    */
+   @Test
+   final void testExceptionRethrown() {
+      assertThrows(NotExistentException.class, () -> {
+         committer.execute(ds -> {
+            throw new NotExistentException("failing write");
+         });
+      });
+   }
+
+   private List<Thread> startWriters(AtomicInteger failures, int failing) {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Thread> writers = new ArrayList<>();
+      for (int i = 0; i < WRITERS; i++) {
+         final int number = i;
+         Thread writer = new Thread(() -> {
+            try {
+               start.await(TIMEOUT_IN_S, TimeUnit.SECONDS);
+               committer.execute(ds -> {
+                  addStatement("writer" + number);
+                  if (number == failing) {
+                     throw new NotExistentException("failing write");
+                  }
+               });
+            } catch (InterruptedException | RuntimeException e) {
+               failures.incrementAndGet();
+            }
+         });
+         writers.add(writer);
+         writer.start();
+      }
+      start.countDown();
+      return writers;
+   }
+
+   private void addStatement(String name) {
+      Model model = dataBase.getDefaultModel();
+      model.add(model.createResource(NS + name), model.createProperty(NS + "p"), name);
+   }
+
+   private boolean containsStatement(String name) {
+      Model model = dataBase.getDefaultModel();
+      return model.contains(model.createResource(NS + name), model.createProperty(NS + "p"));
+   }
+
+   private long countStatements() {
+      manager.begin(TransactionRepository.Type.Read);
+      try {
+         return dataBase.getDefaultModel().size();
+      } finally {
+         manager.end(true);
+      }
+   }
+}
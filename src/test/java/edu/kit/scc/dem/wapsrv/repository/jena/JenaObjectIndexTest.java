@@ -0,0 +1,119 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.RdfSchemaVocab;
+import edu.kit.scc.dem.wapsrv.model.rdf.vocabulary.WapVocab;
+import edu.kit.scc.dem.wapsrv.repository.TransactionRepository;
+
+/**
+ * Tests the class JenaObjectIndex
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+class JenaObjectIndexTest {
+   private static final String CONTAINER_IRI = "http://www.example.org/wap/container/";
+   private static final String LIVE_IRI = CONTAINER_IRI + "live";
+   private static final String DELETED_IRI = CONTAINER_IRI + "deleted";
+   private static final String NEW_IRI = CONTAINER_IRI + "new";
+   private Dataset dataBase;
+   private JenaTransactionManager manager;
+   private JenaObjectIndex index;
+
+   /**
+    * Creates a fresh in memory database with one existing and one deleted object and builds the index
+    */
+   @BeforeEach
+   final void setUp() {
+      dataBase = TDB2Factory.createDataset();
+      manager = new JenaTransactionManager(dataBase);
+      index = new JenaObjectIndex();
+      manager.begin(TransactionRepository.Type.Write);
+      addObject(LIVE_IRI);
+      addObject(DELETED_IRI);
+      Model model = dataBase.getNamedModel(DELETED_IRI);
+      model.addLiteral(model.getResource(DELETED_IRI), model.createProperty(WapVocab.deleted.getIRIString()), true);
+      // A named graph not describing an object of its IRI
+      dataBase.getNamedModel(CONTAINER_IRI + "#annotations").add(model.getResource(LIVE_IRI),
+            model.createProperty(WapVocab.orderKey.getIRIString()), "1");
+      // The graph of an indexed sequence describes the sequence of its IRI, it is no object either
+      new JenaSequenceIndex(dataBase).append(CONTAINER_IRI, CONTAINER_IRI + "#annotations", LIVE_IRI);
+      manager.end(true);
+      manager.begin(TransactionRepository.Type.Read);
+      assertEquals(2, index.build(dataBase), "Wrong number of objects indexed");
+      manager.end(true);
+      manager.addTransactionListener(index);
+   }
+
+   /**
+    * Test the index built from the database.
+    */
+   @Test
+   final void testBuild() {
+      assertTrue(index.contains(LIVE_IRI));
+      assertFalse(index.isDeleted(LIVE_IRI));
+      assertTrue(index.contains(DELETED_IRI));
+      assertTrue(index.isDeleted(DELETED_IRI));
+      assertFalse(index.contains(NEW_IRI));
+      assertFalse(index.contains(CONTAINER_IRI + "#annotations"));
+   }
+
+   /**
+    * Test changes are visible to the writing thread at once and to other threads after the commit.
+    *
+    * @throws InterruptedException
+    *                              if interrupted while waiting
+    */
+   @Test
+   final void testCommit() throws InterruptedException {
+      manager.begin(TransactionRepository.Type.Write);
+      index.written(NEW_IRI);
+      index.markedDeleted(LIVE_IRI);
+      assertTrue(index.contains(NEW_IRI), "Own change not visible");
+      assertTrue(index.isDeleted(LIVE_IRI), "Own change not visible");
+      assertFalse(seenByOtherThread(NEW_IRI), "Uncommitted change visible to other threads");
+      manager.end(true);
+      assertTrue(seenByOtherThread(NEW_IRI), "Committed change not visible to other threads");
+      assertTrue(index.isDeleted(LIVE_IRI), "Committed deletion lost");
+      assertFalse(index.isDeleted(NEW_IRI));
+   }
+
+   /**
+    * Test changes of an aborted transaction are discarded.
+    */
+   @Test
+   final void testAbort() {
+      manager.begin(TransactionRepository.Type.Write);
+      index.written(NEW_IRI);
+      index.markedDeleted(LIVE_IRI);
+      manager.abort();
+      assertFalse(index.contains(NEW_IRI), "Aborted change applied");
+      assertFalse(index.isDeleted(LIVE_IRI), "Aborted change applied");
+   }
+
+   private boolean seenByOtherThread(String iri) throws InterruptedException {
+      AtomicBoolean result = new AtomicBoolean();
+      Thread reader = new Thread(() -> result.set(index.contains(iri)));
+      reader.start();
+      reader.join(TimeUnit.SECONDS.toMillis(10));
+      return result.get();
+   }
+
+   private void addObject(String iri) {
+      Model model = dataBase.getNamedModel(iri);
+      Resource resource = model.getResource(iri);
+      model.add(resource, model.createProperty(RdfSchemaVocab.label.getIRIString()), "label");
+   }
+}
@@ -0,0 +1,159 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import edu.kit.scc.dem.wapsrv.dao.ISequenceCounterDao;
+import edu.kit.scc.dem.wapsrv.dao.ISequenceDao;
+import edu.kit.scc.dem.wapsrv.model.ext.SequenceResource;
+
+/**
+ * Tests the keyset anchors JenaRepository2 uses to seek pages of sequences. The sequence resources are kept in a list
+ * behind a mocked DAO.
+ *
+ * @author Matthias Dressel
+ * @author Michael Hitzker
+ * @author Markus Hoefler
+ * @author Andreas Loeffler
+ * @author Timo Schmidt
+ * @version 1.1
+ */
+class JenaRepository2KeysetAnchorTest{
+  private static final String CONTAINER_IRI = "http://www.example.org/wap/container1/";
+  private static final String SEQ_IRI = CONTAINER_IRI + "#annotations";
+  private JenaRepository2 repository;
+  private ISequenceDao iSequenceDao;
+  private List<SequenceResource> resources;
+  private long nextId;
+
+  /**
+   * Creates a repository on an empty sequence table for every test
+   */
+  @BeforeEach
+  final void setUp(){
+    resources = new ArrayList<>();
+    nextId = 1;
+    iSequenceDao = Mockito.mock(ISequenceDao.class);
+    when(iSequenceDao.save(any(SequenceResource.class))).thenAnswer(invocation -> {
+      SequenceResource res = invocation.getArgument(0);
+      res.setId(nextId++);
+      resources.add(res);
+      return res;
+    });
+    when(iSequenceDao.findIdsAfter(anyString(), anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+      return after(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)).stream()
+              .map(SequenceResource::getId).collect(Collectors.toList());
+    });
+    when(iSequenceDao.findBySequenceIriEqualsAndIdGreaterThanOrderByIdAsc(anyString(), anyLong(), any(Limit.class)))
+            .thenAnswer(invocation -> after(invocation.getArgument(0), invocation.getArgument(1),
+                    invocation.getArgument(2)));
+    when(iSequenceDao.findByAnnotationIriEquals(anyString())).thenAnswer(invocation -> {
+      String iri = invocation.getArgument(0);
+      return resources.stream().filter(r -> r.getAnnotationIri().equals(iri)).findFirst();
+    });
+    Mockito.doAnswer(invocation -> resources.remove(invocation.getArgument(0))).when(iSequenceDao)
+            .delete(any(SequenceResource.class));
+    when(iSequenceDao.deleteAllBySequenceIri(anyString())).thenAnswer(invocation -> {
+      int size = resources.size();
+      resources.removeIf(r -> r.getSequenceIri().equals(invocation.getArgument(0)));
+      return size - resources.size();
+    });
+    repository = new JenaRepository2();
+    ReflectionTestUtils.setField(repository, "iSequenceDao", iSequenceDao);
+    ReflectionTestUtils.setField(repository, "iSequenceCounterDao", Mockito.mock(ISequenceCounterDao.class));
+  }
+
+  private List<SequenceResource> after(String seqIri, Long id, Limit limit){
+    return resources.stream().filter(r -> r.getSequenceIri().equals(seqIri) && r.getId() > id)
+            .limit(limit.max()).collect(Collectors.toList());
+  }
+
+  private void addAnnotations(int first, int last){
+    for(int n = first; n <= last; n++){
+      repository.addElementToRdfSeq(CONTAINER_IRI, SEQ_IRI, annotation(n));
+    }
+  }
+
+  private static String annotation(int n){
+    return CONTAINER_IRI + "anno" + n;
+  }
+
+  private static List<String> annotations(int first, int last){
+    return IntStream.rangeClosed(first, last).mapToObj(JenaRepository2KeysetAnchorTest::annotation)
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * Test following pages starts at the position the previous page ended instead of skipping all previous elements.
+   */
+  @Test
+  final void testAnchorHit(){
+    addAnnotations(1, 30);
+    assertEquals(annotations(11, 20), repository.getRangeOfObjectIrisFromSeq(CONTAINER_IRI, SEQ_IRI, 11, 20));
+    verify(iSequenceDao, times(1)).findIdsAfter(SEQ_IRI, 0L, Limit.of(10));
+    clearInvocations(iSequenceDao);
+    assertEquals(annotations(21, 30), repository.getRangeOfObjectIrisFromSeq(CONTAINER_IRI, SEQ_IRI, 21, 30));
+    assertEquals(annotations(11, 20), repository.getRangeOfObjectIrisFromSeq(CONTAINER_IRI, SEQ_IRI, 11, 20));
+    verify(iSequenceDao, never()).findIdsAfter(anyString(), anyLong(), any(Limit.class));
+    // Appending keeps the known positions
+    addAnnotations(31, 35);
+    assertEquals(annotations(31, 35), repository.getRangeOfObjectIrisFromSeq(CONTAINER_IRI, SEQ_IRI, 31, 40));
+    verify(iSequenceDao, never()).findIdsAfter(anyString(), anyLong(), any(Limit.class));
+    // Nothing after the end
+    assertTrue(repository.getRangeOfObjectIrisFromSeq(CONTAINER_IRI, SEQ_IRI, 41, 50).isEmpty());
+  }
+
+  /**
+   * Test removing an element or emptying the sequence drops its known positions.
+   */
+  @Test
+  final void testAnchorInvalidation(){
+    addAnnotations(1, 30);
+    assertEquals(annotations(21, 30), repository.getRangeOfObjectIrisFromSeq(CONTAINER_IRI, SEQ_IRI, 21, 30));
+    repository.removeElementFromRdfSeq(CONTAINER_IRI, SEQ_IRI, annotation(5));
+    assertEquals(annotations(22, 30), repository.getRangeOfObjectIrisFromSeq(CONTAINER_IRI, SEQ_IRI, 21, 30),
+            "Positions after the removed element not shifted");
+    repository.emptySeq(CONTAINER_IRI, SEQ_IRI);
+    addAnnotations(101, 125);
+    assertEquals(annotations(121, 125), repository.getRangeOfObjectIrisFromSeq(CONTAINER_IRI, SEQ_IRI, 21, 30),
+            "Positions of the emptied sequence used");
+  }
+
+  /**
+   * Test a page read while an element is removed does not leave its outdated positions for later pages.
+   */
+  @Test
+  final void testStaleAnchor(){
+    addAnnotations(1, 30);
+    // An element is removed after the page has been read, but before the reader records its end
+    when(iSequenceDao.findBySequenceIriEqualsAndIdGreaterThanOrderByIdAsc(anyString(), anyLong(), any(Limit.class)))
+            .thenAnswer(invocation -> {
+              List<SequenceResource> page = after(invocation.getArgument(0), invocation.getArgument(1),
+                      invocation.getArgument(2));
+              if(resources.stream().anyMatch(r -> r.getAnnotationIri().equals(annotation(1)))){
+                repository.removeElementFromRdfSeq(CONTAINER_IRI, SEQ_IRI, annotation(1));
+              }
+              return page;
+            });
+    assertEquals(annotations(11, 20), repository.getRangeOfObjectIrisFromSeq(CONTAINER_IRI, SEQ_IRI, 11, 20));
+    assertEquals(annotations(22, 30), repository.getRangeOfObjectIrisFromSeq(CONTAINER_IRI, SEQ_IRI, 21, 30),
+            "Position recorded before the removal used");
+    assertEquals(Optional.empty(), iSequenceDao.findByAnnotationIriEquals(annotation(1)));
+  }
+}
@@ -0,0 +1,110 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import edu.kit.scc.dem.wapsrv.dao.ISequenceCounterDao;
+import edu.kit.scc.dem.wapsrv.dao.ISequenceDao;
+import edu.kit.scc.dem.wapsrv.model.ext.SequenceCounter;
+import edu.kit.scc.dem.wapsrv.model.ext.SequenceResource;
+
+/**
+ * Tests how JenaRepository2 maintains and reads the element counters of sequences
+ *
+ * @author Matthias Dressel
+ * @author Michael Hitzker
+ * @author Markus Hoefler
+ * @author Andreas Loeffler
+ * @author Timo Schmidt
+ * @version 1.1
+ */
+class JenaRepository2SequenceCounterTest{
+  private static final String CONTAINER_IRI = "http://www.example.org/wap/container1/";
+  private static final String SEQ_IRI = CONTAINER_IRI + "#annotations";
+  private static final String ANNO_IRI = CONTAINER_IRI + "anno1";
+  private JenaRepository2 repository;
+  private ISequenceDao iSequenceDao;
+  private ISequenceCounterDao iSequenceCounterDao;
+
+  /**
+   * Creates a repository on mocked DAOs for every test
+   */
+  @BeforeEach
+  final void setUp(){
+    iSequenceDao = Mockito.mock(ISequenceDao.class);
+    iSequenceCounterDao = Mockito.mock(ISequenceCounterDao.class);
+    when(iSequenceDao.save(any(SequenceResource.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    repository = new JenaRepository2();
+    ReflectionTestUtils.setField(repository, "iSequenceDao", iSequenceDao);
+    ReflectionTestUtils.setField(repository, "iSequenceCounterDao", iSequenceCounterDao);
+  }
+
+  /**
+   * Test count elements in seq reads the counter and counts the sequence resources only without one.
+   */
+  @Test
+  final void testCountElementsInSeq(){
+    when(iSequenceCounterDao.findById(SEQ_IRI)).thenReturn(Optional.of(SequenceCounter.create(SEQ_IRI, 42)));
+    assertEquals(42, repository.countElementsInSeq(CONTAINER_IRI, SEQ_IRI));
+    verify(iSequenceDao, never()).countBySequenceIriEquals(anyString());
+    when(iSequenceCounterDao.findById(SEQ_IRI)).thenReturn(Optional.empty());
+    when(iSequenceDao.countBySequenceIriEquals(SEQ_IRI)).thenReturn(7L);
+    assertEquals(7, repository.countElementsInSeq(CONTAINER_IRI, SEQ_IRI), "Sequence without counter not counted");
+  }
+
+  /**
+   * Test adding and removing elements update an existing counter in place.
+   */
+  @Test
+  final void testUpdateCounter(){
+    when(iSequenceCounterDao.addToElementCount(anyString(), Mockito.anyLong())).thenReturn(1);
+    repository.addElementToRdfSeq(CONTAINER_IRI, SEQ_IRI, ANNO_IRI);
+    verify(iSequenceCounterDao).addToElementCount(SEQ_IRI, 1);
+    SequenceResource res = SequenceResource.create(SEQ_IRI, ANNO_IRI);
+    when(iSequenceDao.findByAnnotationIriEquals(ANNO_IRI)).thenReturn(Optional.of(res));
+    repository.removeElementFromRdfSeq(CONTAINER_IRI, SEQ_IRI, ANNO_IRI);
+    verify(iSequenceDao).delete(res);
+    verify(iSequenceCounterDao).addToElementCount(SEQ_IRI, -1);
+    verify(iSequenceCounterDao, never()).save(any(SequenceCounter.class));
+  }
+
+  /**
+   * Test a missing counter is created from the sequence resources, which already include the change.
+   */
+  @Test
+  final void testCreateCounter(){
+    when(iSequenceCounterDao.addToElementCount(anyString(), Mockito.anyLong())).thenReturn(0);
+    when(iSequenceDao.countBySequenceIriEquals(SEQ_IRI)).thenReturn(8L);
+    repository.addElementToRdfSeq(CONTAINER_IRI, SEQ_IRI, ANNO_IRI);
+    SequenceCounter counter = captureSavedCounter();
+    assertEquals(SEQ_IRI, counter.getSequenceIri());
+    assertEquals(8, counter.getElementCount(), "Counter not created from the sequence resources");
+  }
+
+  /**
+   * Test emptying a sequence resets its counter.
+   */
+  @Test
+  final void testEmptySeq(){
+    when(iSequenceDao.deleteAllBySequenceIri(SEQ_IRI)).thenReturn(3);
+    repository.emptySeq(CONTAINER_IRI, SEQ_IRI);
+    SequenceCounter counter = captureSavedCounter();
+    assertEquals(SEQ_IRI, counter.getSequenceIri());
+    assertEquals(0, counter.getElementCount());
+  }
+
+  private SequenceCounter captureSavedCounter(){
+    ArgumentCaptor<SequenceCounter> saved = ArgumentCaptor.forClass(SequenceCounter.class);
+    verify(iSequenceCounterDao).save(saved.capture());
+    return saved.getValue();
+  }
+}
@@ -2,6 +2,7 @@ package edu.kit.scc.dem.wapsrv.repository.jena;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
+import java.util.Collections;
 import java.util.List;
 import org.apache.commons.rdf.api.RDF;
 import org.junit.jupiter.api.AfterEach;
@@ -95,6 +96,45 @@ class JenaRepositoryTest {
       });
    }
 
+   /**
+    * Test get WAP object view, it contains the same data as the copy and changes do not reach the database.
+    */
+   @Test
+   final void testGetWapObjectView() {
+      String paramIri = objWapServerConfig.getRootContainerIri();
+      org.apache.commons.rdf.api.Dataset copy = objJenaRepository.getWapObject(paramIri);
+      org.apache.commons.rdf.api.Dataset view = objJenaRepository.getWapObjectView(paramIri);
+      assertEquals(copy.size(), view.size(), "View and copy differ for: " + paramIri);
+      org.apache.commons.rdf.api.IRI added = objRdfBackend.getRdf().createIRI(paramIri + "added");
+      view.add(null, added, added, added);
+      assertEquals(copy.size() + 1, view.size(), "Changes not visible in the view");
+      assertEquals(copy.size(), objJenaRepository.getWapObject(paramIri).size(), "View changed the database");
+      // test invalid container
+      assertThrows(NotExistentException.class, () -> {
+         objJenaRepository.getWapObjectView(objWapServerConfig.getRootContainerIri() + "invalidContainer9815/");
+      });
+   }
+
+   /**
+    * Test get wap objects.
+    */
+   @Test
+   final void testGetWapObjects() {
+      String paramIri = objWapServerConfig.getRootContainerIri();
+      objJenaRepository.readRdfTransaction(ds -> {
+         List<org.apache.commons.rdf.api.Dataset> objects = objJenaRepository.getWapObjects(List.of(paramIri, paramIri));
+         assertEquals(2, objects.size(), "Not all objects read");
+         assertEquals(objJenaRepository.getWapObject(paramIri).size(), objects.get(0).size(),
+               "Object differs from the one read alone for: " + paramIri);
+      });
+      assertTrue(objJenaRepository.getWapObjects(Collections.emptyList()).isEmpty());
+      // test invalid container
+      assertThrows(NotExistentException.class, () -> {
+         objJenaRepository.getWapObjects(
+               List.of(paramIri, objWapServerConfig.getRootContainerIri() + "invalidContainer9815/"));
+      });
+   }
+
    /**
     * Test backup database.
     */
@@ -0,0 +1,201 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Seq;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import edu.kit.scc.dem.wapsrv.model.Container;
+
+/**
+ * Tests the class JenaSequenceIndex
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+class JenaSequenceIndexTest {
+   private static final String CONTAINER_IRI = "http://www.example.org/wap/container/";
+   private static final String SEQ_IRI = Container.toAnnotationSeqIriString(CONTAINER_IRI);
+   private static final int BLOCK_SIZE = 4;
+   private Dataset dataBase;
+   private JenaSequenceIndex index;
+
+   /**
+    * Creates a fresh in memory database and begins a write transaction
+    */
+   @BeforeEach
+   final void setUp() {
+      dataBase = TDB2Factory.createDataset();
+      index = new JenaSequenceIndex(dataBase, BLOCK_SIZE);
+      dataBase.begin(ReadWrite.WRITE);
+   }
+
+   /**
+    * Clean up by abort transaction.
+    */
+   @AfterEach
+   final void tearDown() {
+      dataBase.abort();
+      dataBase.end();
+   }
+
+   /**
+    * Test only the annotation sequences are indexed.
+    */
+   @Test
+   final void testIsIndexed() {
+      assertTrue(JenaSequenceIndex.isIndexed(CONTAINER_IRI, SEQ_IRI));
+      assertFalse(JenaSequenceIndex.isIndexed(CONTAINER_IRI, Container.toContainerSeqIriString(CONTAINER_IRI)));
+   }
+
+   /**
+    * Test append, count and range reads over several blocks.
+    */
+   @Test
+   final void testAppendAndRange() {
+      List<String> expected = appendElements(10);
+      assertEquals(10, index.count(CONTAINER_IRI, SEQ_IRI));
+      assertEquals(expected, index.range(CONTAINER_IRI, SEQ_IRI, 1, 10));
+      assertEquals(expected.subList(2, 7), index.range(CONTAINER_IRI, SEQ_IRI, 3, 7));
+      // Indices behind the end are ignored
+      assertEquals(expected.subList(8, 10), index.range(CONTAINER_IRI, SEQ_IRI, 9, 20));
+      assertTrue(index.range(CONTAINER_IRI, SEQ_IRI, 11, 20).isEmpty());
+   }
+
+   /**
+    * Test removal leaves gaps that range reads skip, the order of the remaining elements is kept.
+    */
+   @Test
+   final void testRemove() {
+      List<String> expected = appendElements(10);
+      // one from the first block, a whole second block and one from the last block
+      for (int i : new int[] {9, 7, 6, 5, 4, 1}) {
+         index.remove(CONTAINER_IRI, SEQ_IRI, expected.remove(i));
+      }
+      // removing an element that is not contained does nothing
+      index.remove(CONTAINER_IRI, SEQ_IRI, CONTAINER_IRI + "unknown");
+      assertEquals(expected.size(), index.count(CONTAINER_IRI, SEQ_IRI));
+      assertEquals(expected, index.range(CONTAINER_IRI, SEQ_IRI, 1, expected.size()));
+      assertEquals(expected, index.stream(CONTAINER_IRI, SEQ_IRI).collect(Collectors.toList()));
+      for (int first = 1; first <= expected.size(); first++) {
+         assertEquals(expected.subList(first - 1, expected.size()),
+               index.range(CONTAINER_IRI, SEQ_IRI, first, expected.size()), "Wrong range from index " + first);
+      }
+      // appending after removals continues at the end
+      String appended = CONTAINER_IRI + "appended";
+      index.append(CONTAINER_IRI, SEQ_IRI, appended);
+      expected.add(appended);
+      assertEquals(expected, index.range(CONTAINER_IRI, SEQ_IRI, 1, expected.size()));
+   }
+
+   /**
+    * Test appending several elements at once continues the sequence over several blocks.
+    */
+   @Test
+   final void testAppendAll() {
+      List<String> expected = appendElements(3);
+      List<String> batch = new ArrayList<>();
+      for (int i = 0; i < 7; i++) {
+         batch.add(CONTAINER_IRI + "batch" + i);
+      }
+      index.appendAll(CONTAINER_IRI, SEQ_IRI, batch);
+      index.appendAll(CONTAINER_IRI, SEQ_IRI, new ArrayList<>());
+      expected.addAll(batch);
+      assertEquals(10, index.count(CONTAINER_IRI, SEQ_IRI));
+      assertEquals(expected, index.range(CONTAINER_IRI, SEQ_IRI, 1, 10));
+      // the block counts must be right for range reads after removals
+      index.remove(CONTAINER_IRI, SEQ_IRI, expected.remove(4));
+      assertEquals(expected.subList(3, 9), index.range(CONTAINER_IRI, SEQ_IRI, 4, 9));
+      String appended = CONTAINER_IRI + "appended";
+      index.append(CONTAINER_IRI, SEQ_IRI, appended);
+      expected.add(appended);
+      assertEquals(expected, index.range(CONTAINER_IRI, SEQ_IRI, 1, expected.size()));
+   }
+
+   /**
+    * Test sequences written by the builder are read and continued like appended ones.
+    */
+   @Test
+   final void testBuilder() {
+      String otherContainer = CONTAINER_IRI + "other/";
+      String otherSeq = Container.toAnnotationSeqIriString(otherContainer);
+      JenaSequenceIndex.Builder builder
+            = new JenaSequenceIndex.Builder(StreamRDFLib.dataset(dataBase.asDatasetGraph()), BLOCK_SIZE);
+      List<String> expected = new ArrayList<>();
+      for (int i = 0; i < 9; i++) {
+         expected.add(CONTAINER_IRI + "anno" + i);
+         builder.append(CONTAINER_IRI, SEQ_IRI, CONTAINER_IRI + "anno" + i);
+         if (i % 3 == 0) {
+            builder.append(otherContainer, otherSeq, otherContainer + "anno" + i);
+         }
+      }
+      builder.finish();
+      assertEquals(9, index.count(CONTAINER_IRI, SEQ_IRI));
+      assertEquals(expected, index.range(CONTAINER_IRI, SEQ_IRI, 1, 9));
+      assertEquals(List.of(otherContainer + "anno0", otherContainer + "anno3", otherContainer + "anno6"),
+            index.range(otherContainer, otherSeq, 1, 3));
+      index.remove(CONTAINER_IRI, SEQ_IRI, expected.remove(5));
+      String appended = CONTAINER_IRI + "appended";
+      index.append(CONTAINER_IRI, SEQ_IRI, appended);
+      expected.add(appended);
+      assertEquals(expected, index.range(CONTAINER_IRI, SEQ_IRI, 1, expected.size()));
+   }
+
+   /**
+    * Test clearing the sequence.
+    */
+   @Test
+   final void testClear() {
+      appendElements(6);
+      index.clear(CONTAINER_IRI, SEQ_IRI);
+      assertEquals(0, index.count(CONTAINER_IRI, SEQ_IRI));
+      assertTrue(index.range(CONTAINER_IRI, SEQ_IRI, 1, 6).isEmpty());
+      List<String> expected = appendElements(2);
+      assertEquals(expected, index.range(CONTAINER_IRI, SEQ_IRI, 1, 2));
+   }
+
+   /**
+    * Test migrating an annotation rdf:Seq into the index.
+    */
+   @Test
+   final void testMigrate() {
+      Model model = dataBase.getNamedModel(CONTAINER_IRI);
+      Seq seq = model.createSeq(SEQ_IRI);
+      Seq containerSeq = model.createSeq(Container.toContainerSeqIriString(CONTAINER_IRI));
+      containerSeq.add(model.getResource(CONTAINER_IRI + "sub/"));
+      List<String> expected = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+         expected.add(CONTAINER_IRI + "anno" + i);
+         seq.add(model.getResource(CONTAINER_IRI + "anno" + i));
+      }
+      assertEquals(1, index.migrate(), "Only the annotation sequence should be migrated");
+      assertEquals(0, model.getSeq(SEQ_IRI).size(), "Old sequence not emptied");
+      assertEquals(1, model.getSeq(Container.toContainerSeqIriString(CONTAINER_IRI)).size(),
+            "Container sequence must stay untouched");
+      assertEquals(6, index.count(CONTAINER_IRI, SEQ_IRI));
+      assertEquals(expected, index.range(CONTAINER_IRI, SEQ_IRI, 1, 6));
+      assertEquals(0, index.migrate(), "Migration should only happen once");
+   }
+
+   private List<String> appendElements(int count) {
+      List<String> elements = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+         String element = CONTAINER_IRI + "anno" + i;
+         index.append(CONTAINER_IRI, SEQ_IRI, element);
+         elements.add(element);
+      }
+      return elements;
+   }
+}
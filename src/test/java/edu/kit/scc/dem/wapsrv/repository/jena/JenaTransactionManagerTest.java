@@ -0,0 +1,242 @@
+package edu.kit.scc.dem.wapsrv.repository.jena;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import edu.kit.scc.dem.wapsrv.exceptions.TransactionConflictException;
+import edu.kit.scc.dem.wapsrv.repository.TransactionRepository;
+
+/**
+ * Tests the class JenaTransactionManager
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+class JenaTransactionManagerTest {
+   private static final int READERS = 8;
+   private static final long TIMEOUT_IN_S = 10;
+   private Dataset dataBase;
+   private JenaTransactionManager manager;
+
+   /**
+    * Creates a fresh in memory database for every test
+    */
+   @BeforeEach
+   final void setUp() {
+      dataBase = TDB2Factory.createDataset();
+      manager = new JenaTransactionManager(dataBase);
+   }
+
+   /**
+    * Test nested transactions join the outermost one.
+    */
+   @Test
+   final void testNesting() {
+      assertTrue(manager.begin(TransactionRepository.Type.Write), "Outermost begin should open the transaction");
+      assertFalse(manager.begin(TransactionRepository.Type.Read), "Nested begin should join the transaction");
+      manager.end(false);
+      assertEquals(TransactionRepository.Type.Write, manager.getActiveType(), "Nested end must not end");
+      manager.end(true);
+      assertNull(manager.getActiveType(), "Outermost end should end the transaction");
+      assertFalse(manager.isWriteActive(), "Write lock not released");
+   }
+
+   /**
+    * Test abort releases the write lock, also when called from a nested level.
+    */
+   @Test
+   final void testAbortReleasesWriteLock() {
+      assertTrue(manager.begin(TransactionRepository.Type.Write));
+      assertFalse(manager.begin(TransactionRepository.Type.Write));
+      manager.abort();
+      assertFalse(manager.isWriteActive(), "Write lock not released on abort");
+      // the outermost end after a nested abort does nothing
+      manager.end(true);
+      assertTrue(manager.begin(TransactionRepository.Type.Write), "Could not begin again after abort");
+      manager.end(true);
+   }
+
+   /**
+    * Test that many READ transactions are active at the same time, next to an active WRITE transaction.
+    *
+    * @throws InterruptedException
+    *                              if interrupted while waiting
+    */
+   @Test
+   final void testParallelReaders() throws InterruptedException {
+      CountDownLatch allReading = new CountDownLatch(READERS);
+      CountDownLatch finish = new CountDownLatch(1);
+      AtomicInteger failures = new AtomicInteger();
+      // A writer is active during the whole test
+      assertTrue(manager.begin(TransactionRepository.Type.Write));
+      List<Thread> readers = new ArrayList<>();
+      for (int i = 0; i < READERS; i++) {
+         Thread reader = new Thread(() -> {
+            try {
+               if (!manager.begin(TransactionRepository.Type.Read)) {
+                  failures.incrementAndGet();
+                  return;
+               }
+               try {
+                  // Every reader waits inside its transaction until all readers are inside theirs
+                  allReading.countDown();
+                  finish.await(TIMEOUT_IN_S, TimeUnit.SECONDS);
+               } finally {
+                  manager.end(true);
+               }
+            } catch (InterruptedException | RuntimeException e) {
+               failures.incrementAndGet();
+            }
+         });
+         readers.add(reader);
+         reader.start();
+      }
+      boolean parallel = allReading.await(TIMEOUT_IN_S, TimeUnit.SECONDS);
+      finish.countDown();
+      for (Thread reader : readers) {
+         reader.join(TimeUnit.SECONDS.toMillis(TIMEOUT_IN_S));
+      }
+      manager.end(true);
+      assertTrue(parallel, "Read transactions have been serialized");
+      assertEquals(0, failures.get(), "Reader failed");
+   }
+
+   /**
+    * Test that a second WRITE transaction waits until the first one ended.
+    *
+    * @throws InterruptedException
+    *                              if interrupted while waiting
+    */
+   @Test
+   final void testWritersSerialized() throws InterruptedException {
+      CountDownLatch secondWriting = new CountDownLatch(1);
+      assertTrue(manager.begin(TransactionRepository.Type.Write));
+      Thread writer = new Thread(() -> {
+         manager.begin(TransactionRepository.Type.Write);
+         secondWriting.countDown();
+         manager.end(true);
+      });
+      writer.start();
+      assertFalse(secondWriting.await(200, TimeUnit.MILLISECONDS), "Second writer did not wait");
+      manager.end(true);
+      assertTrue(secondWriting.await(TIMEOUT_IN_S, TimeUnit.SECONDS), "Second writer did not start");
+      writer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_IN_S));
+      assertFalse(manager.isWriteActive(), "Write lock not released");
+   }
+
+   /**
+    * Test a nested WRITE promotes a READ_PROMOTE transaction and the data written is committed.
+    */
+   @Test
+   final void testPromotion() {
+      assertTrue(manager.begin(TransactionRepository.Type.ReadPromote));
+      assertFalse(manager.isWriteActive(), "READ_PROMOTE must not take the write lock before promotion");
+      assertFalse(manager.begin(TransactionRepository.Type.Write), "Nested write should join the transaction");
+      assertTrue(manager.isWriteActive(), "Promotion did not take the write lock");
+      assertEquals(TransactionRepository.Type.Write, manager.getActiveType(), "Transaction not promoted");
+      addStatement("promoted");
+      manager.end(false);
+      manager.end(true);
+      assertFalse(manager.isWriteActive(), "Write lock not released");
+      assertTrue(manager.begin(TransactionRepository.Type.Read));
+      assertFalse(dataBase.getDefaultModel().isEmpty(), "Promoted write not committed");
+      manager.end(true);
+   }
+
+   /**
+    * Test promotion fails if another write committed after the READ_PROMOTE transaction began.
+    *
+    * @throws InterruptedException
+    *                              if interrupted while waiting
+    */
+   @Test
+   final void testPromotionConflict() throws InterruptedException {
+      assertTrue(manager.begin(TransactionRepository.Type.ReadPromote));
+      Thread writer = new Thread(() -> {
+         manager.begin(TransactionRepository.Type.Write);
+         addStatement("concurrent");
+         manager.end(true);
+      });
+      writer.start();
+      writer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_IN_S));
+      assertThrows(TransactionConflictException.class, () -> {
+         manager.begin(TransactionRepository.Type.Write);
+      });
+      assertFalse(manager.isWriteActive(), "Write lock not released after failed promotion");
+      manager.abort();
+      assertNull(manager.getActiveType(), "Transaction not ended on abort");
+   }
+
+   /**
+    * Test that with exclusive reads a READ transaction waits for the WRITE transaction and the other way round.
+    *
+    * @throws InterruptedException
+    *                              if interrupted while waiting
+    */
+   @Test
+   final void testExclusiveReads() throws InterruptedException {
+      manager = new JenaTransactionManager(dataBase, true);
+      CountDownLatch reading = new CountDownLatch(1);
+      assertTrue(manager.begin(TransactionRepository.Type.Write));
+      Thread reader = new Thread(() -> {
+         manager.begin(TransactionRepository.Type.Read);
+         reading.countDown();
+         manager.end(true);
+      });
+      reader.start();
+      assertFalse(reading.await(200, TimeUnit.MILLISECONDS), "Reader did not wait for the writer");
+      manager.end(true);
+      assertTrue(reading.await(TIMEOUT_IN_S, TimeUnit.SECONDS), "Reader did not start");
+      reader.join(TimeUnit.SECONDS.toMillis(TIMEOUT_IN_S));
+      CountDownLatch writing = new CountDownLatch(1);
+      assertTrue(manager.begin(TransactionRepository.Type.Read));
+      Thread writer = new Thread(() -> {
+         manager.begin(TransactionRepository.Type.Write);
+         writing.countDown();
+         manager.end(true);
+      });
+      writer.start();
+      assertFalse(writing.await(200, TimeUnit.MILLISECONDS), "Writer did not wait for the reader");
+      manager.end(true);
+      assertTrue(writing.await(TIMEOUT_IN_S, TimeUnit.SECONDS), "Writer did not start");
+      writer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_IN_S));
+      assertFalse(manager.isWriteActive(), "Write lock not released");
+   }
+
+   /**
+    * Test that with exclusive reads a READ_PROMOTE transaction takes the write lock when it begins and is promoted.
+    */
+   @Test
+   final void testExclusiveReadsPromotion() {
+      manager = new JenaTransactionManager(dataBase, true);
+      assertTrue(manager.begin(TransactionRepository.Type.ReadPromote));
+      assertTrue(manager.isWriteActive(), "READ_PROMOTE has to take the write lock at once");
+      assertFalse(manager.begin(TransactionRepository.Type.Write), "Nested write should join the transaction");
+      assertEquals(TransactionRepository.Type.Write, manager.getActiveType(), "Transaction not promoted");
+      addStatement("promoted");
+      manager.end(true);
+      assertFalse(manager.isWriteActive(), "Write lock not released");
+      assertTrue(manager.begin(TransactionRepository.Type.Read));
+      assertFalse(dataBase.getDefaultModel().isEmpty(), "Promoted write not committed");
+      manager.end(true);
+   }
+
+   private void addStatement(String name) {
+      Model model = dataBase.getDefaultModel();
+      Resource resource = model.createResource("http://www.example.org/" + name);
+      model.add(resource, model.createProperty("http://www.example.org/p"), name);
+   }
+}
@@ -1,10 +1,13 @@
 package edu.kit.scc.dem.wapsrv.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import java.util.Calendar;
+import java.util.Optional;
 import io.specto.hoverfly.junit5.HoverflyExtension;
 import io.specto.hoverfly.junit5.api.HoverflySimulate;
 import org.apache.commons.rdf.api.Dataset;
@@ -56,7 +59,7 @@ import org.springframework.context.annotation.ComponentScan;
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(classes = {ContainerServiceImpl.class, RepositoryMock.class, ModelFactoryMock.class,
   EtagFactoryMock.class, JsonLdProfileRegistry.class, ValidatorRegistry.class, WapServerConfigMock.class,
-  JsonLdValidator.class, Validator.class})
+  JsonLdValidator.class, Validator.class, RenderedBodyCache.class})
 @ExtendWith(HoverflyExtension.class)
 @HoverflySimulate(source = @HoverflySimulate.Source(value = "w3c_simulation.json", type = HoverflySimulate.SourceType.DEFAULT_PATH))
 @ComponentScan(basePackages = "edu.kit.scc.dem.wapsrv.repository")
@@ -221,6 +224,28 @@ class AbstractWapServiceTest{
     wapObjectService.containsIri(ROOT_IRI);
   }
 
+  /**
+   * Test ETag updates inside a coalescing write transaction are written once at
+   * its end.
+   */
+  @Test
+  final void testCoalescingWriteTransaction(){
+    IRI root = simpleRDF.createIRI(ROOT_IRI);
+    wapObjectService.coalescingWriteTransaction(ds -> {
+      wapObjectService.updateEtag(ROOT_IRI, "first etag");
+      wapObjectService.updateEtag(ROOT_IRI, "last etag");
+      assertTrue(dataset.contains(Optional.of(root), root, WapVocab.etag, simpleRDF.createLiteral("test etag")),
+              "ETag updated before the end of the transaction");
+    });
+    assertEquals(1, dataset.stream(Optional.of(root), root, WapVocab.etag, null).count());
+    assertTrue(dataset.contains(Optional.of(root), root, WapVocab.etag, simpleRDF.createLiteral("last etag")),
+            "Last ETag not written");
+    // Outside of a coalescing transaction the update is written at once
+    wapObjectService.updateEtag(ROOT_IRI, "direct etag");
+    assertTrue(dataset.contains(Optional.of(root), root, WapVocab.etag, simpleRDF.createLiteral("direct etag")),
+            "ETag not written");
+  }
+
 //  /**
 //   * Test if an IRI is deleted.
 //   */
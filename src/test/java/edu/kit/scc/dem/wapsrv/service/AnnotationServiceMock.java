@@ -1,5 +1,7 @@
 package edu.kit.scc.dem.wapsrv.service;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
 import org.mockito.Mockito;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,6 +28,8 @@ public class AnnotationServiceMock {
    @Primary
    public AnnotationService annotationService() {
       AnnotationService annotationServiceMock = Mockito.mock(AnnotationService.class);
+      // Rendering is done on the mocked getAnnotation
+      doCallRealMethod().when(annotationServiceMock).getRenderedAnnotation(any(), any());
       return annotationServiceMock;
    }
 }
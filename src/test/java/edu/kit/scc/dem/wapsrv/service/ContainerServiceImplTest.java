@@ -3,6 +3,7 @@ package edu.kit.scc.dem.wapsrv.service;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -67,7 +68,7 @@ import edu.kit.scc.dem.wapsrv.testscommon.ModelFactoryMock;
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(classes = {ContainerServiceImpl.class, RepositoryMock.class, ModelFactoryMock.class,
       EtagFactoryMock.class, JsonLdProfileRegistry.class, ValidatorRegistry.class, WapServerConfigMock.class,
-      JsonLdValidator.class, Validator.class})
+      JsonLdValidator.class, Validator.class, RenderedBodyCache.class})
 @ExtendWith(HoverflyExtension.class)
 @HoverflySimulate(source = @HoverflySimulate.Source(value = "w3c_simulation.json", type = HoverflySimulate.SourceType.DEFAULT_PATH))
 @Configuration
@@ -183,7 +184,7 @@ class ContainerServiceImplTest {
    @Test
    final void testPostContainer() {
       Container containerMock = mock(Container.class);
-      when(modelFactoryMock.createContainer(any(String.class), eq(Format.JSON_LD), any(String.class)))
+      when(modelFactoryMock.createContainer(anyList(), any(String.class)))
             .thenReturn(containerMock);
       when(containerMock.getIriString()).thenReturn(ROOT_IRI + "test/");
       when(etagFactoryMock.generateEtag()).thenReturn("test etag");
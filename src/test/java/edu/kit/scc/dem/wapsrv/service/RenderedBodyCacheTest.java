@@ -0,0 +1,165 @@
+package edu.kit.scc.dem.wapsrv.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.model.formats.Format;
+import edu.kit.scc.dem.wapsrv.model.formats.Formatter;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
+
+/**
+ * Tests the class RenderedBodyCache
+ *
+ * @author  Matthias Dressel
+ * @author  Michael Hitzker
+ * @author  Markus Hoefler
+ * @author  Andreas Loeffler
+ * @author  Timo Schmidt
+ * @version 1.1
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {RenderedBodyCache.class, RenderedBodyCacheTest.CacheConfiguration.class})
+class RenderedBodyCacheTest {
+   private static final String IRI = "http://www.example.org/wap/container/anno1";
+   private static final String OTHER_IRI = "http://www.example.org/wap/container/anno2";
+   private static final URI PROFILE = URI.create("http://www.w3.org/ns/anno.jsonld");
+   @Autowired
+   private RenderedBodyCache cache;
+   private Formatter jsonLd;
+   private Formatter jsonLdNoProfile;
+   private Formatter turtle;
+
+   /**
+    * Provides a configuration with a cache of 1 MB
+    */
+   @Configuration
+   static class CacheConfiguration {
+      /**
+       * Gets a configuration mock enabling the cache
+       *
+       * @return The configuration mock
+       */
+      @Bean
+      public WapServerConfig wapServerConfig() {
+         WapServerConfig config = Mockito.mock(WapServerConfig.class);
+         when(config.getRenderedBodyCacheSizeInMb()).thenReturn(1);
+         return config;
+      }
+
+      /**
+       * Gets a profile registry mock
+       *
+       * @return The profile registry mock
+       */
+      @Bean
+      public JsonLdProfileRegistry jsonLdProfileRegistry() {
+         return Mockito.mock(JsonLdProfileRegistry.class);
+      }
+   }
+
+   /**
+    * Starts every test with an empty cache
+    */
+   @BeforeEach
+   final void setUp() {
+      cache.clear();
+      jsonLd = formatter(Format.JSON_LD, Set.of(PROFILE));
+      jsonLdNoProfile = formatter(Format.JSON_LD, Collections.emptySet());
+      turtle = formatter(Format.TURTLE, Collections.emptySet());
+   }
+
+   /**
+    * Test bodies are found only with the same ETag, format and profiles.
+    */
+   @Test
+   final void testGet() {
+      assertTrue(cache.isEnabled());
+      cache.put(IRI, "etag1", jsonLd, "body", cache.getGeneration());
+      assertEquals("body", cache.get(IRI, "etag1", jsonLd));
+      assertNull(cache.get(IRI, "etag2", jsonLd), "Body found with another ETag");
+      assertNull(cache.get(IRI, "etag1", jsonLdNoProfile), "Body found with other profiles");
+      assertNull(cache.get(IRI, "etag1", turtle), "Body found with another format");
+      assertNull(cache.get(OTHER_IRI, "etag1", jsonLd), "Body found for another object");
+   }
+
+   /**
+    * Test invalidation removes all bodies of the object only.
+    */
+   @Test
+   final void testInvalidate() {
+      cache.put(IRI, "etag1", jsonLd, "body", cache.getGeneration());
+      cache.put(IRI, "etag1", turtle, "ttl", cache.getGeneration());
+      cache.put(OTHER_IRI, "etag1", jsonLd, "other", cache.getGeneration());
+      cache.invalidate(IRI);
+      assertNull(cache.get(IRI, "etag1", jsonLd));
+      assertNull(cache.get(IRI, "etag1", turtle));
+      assertEquals("other", cache.get(OTHER_IRI, "etag1", jsonLd));
+   }
+
+   /**
+    * Test bodies rendered before the cache has been cleared are not added.
+    */
+   @Test
+   final void testStaleGeneration() {
+      long generation = cache.getGeneration();
+      cache.clear();
+      cache.put(IRI, "etag1", jsonLd, "body", generation);
+      assertNull(cache.get(IRI, "etag1", jsonLd), "Body of an old generation added");
+   }
+
+   /**
+    * Test the least recently used bodies are evicted once the cache is full.
+    */
+   @Test
+   final void testEviction() {
+      // Each body needs about 400 KB, so only two fit into 1 MB
+      String body = "x".repeat(200 * 1024);
+      cache.put(IRI, "etag1", jsonLd, body, cache.getGeneration());
+      cache.put(OTHER_IRI, "etag1", jsonLd, body, cache.getGeneration());
+      assertNotNull(cache.get(IRI, "etag1", jsonLd));
+      cache.put(IRI, "etag1", turtle, body, cache.getGeneration());
+      assertNull(cache.get(OTHER_IRI, "etag1", jsonLd), "Least recently used body not evicted");
+      assertNotNull(cache.get(IRI, "etag1", jsonLd));
+      assertNotNull(cache.get(IRI, "etag1", turtle));
+      // Larger than the whole cache
+      cache.put(OTHER_IRI, "etag2", jsonLd, "x".repeat(1024 * 1024), cache.getGeneration());
+      assertNull(cache.get(OTHER_IRI, "etag2", jsonLd), "Body larger than the cache added");
+   }
+
+   /**
+    * Test keys compare without failing on missing values.
+    */
+   @Test
+   final void testKeyEquals() {
+      RenderedBodyCache.Key key = new RenderedBodyCache.Key(IRI, "etag1", Format.JSON_LD, Set.of(PROFILE));
+      RenderedBodyCache.Key noEtag = new RenderedBodyCache.Key(IRI, null, Format.JSON_LD, Set.of(PROFILE));
+      RenderedBodyCache.Key noProfiles = new RenderedBodyCache.Key(IRI, "etag1", Format.JSON_LD, null);
+      assertEquals(key, new RenderedBodyCache.Key(IRI, "etag1", Format.JSON_LD, Set.of(PROFILE)));
+      assertEquals(key.hashCode(), new RenderedBodyCache.Key(IRI, "etag1", Format.JSON_LD, Set.of(PROFILE)).hashCode());
+      assertNotEquals(noEtag, key);
+      assertNotEquals(key, noEtag);
+      assertNotEquals(noProfiles, key);
+      assertNotEquals(key, noProfiles);
+      assertEquals(noEtag, new RenderedBodyCache.Key(IRI, null, Format.JSON_LD, Set.of(PROFILE)));
+      assertEquals(noEtag.hashCode(), new RenderedBodyCache.Key(IRI, null, Format.JSON_LD, Set.of(PROFILE)).hashCode());
+   }
+
+   private static Formatter formatter(Format format, Set<URI> profiles) {
+      Formatter formatter = Mockito.mock(Formatter.class);
+      when(formatter.getFormat()).thenReturn(format);
+      when(formatter.getProfiles()).thenReturn(profiles);
+      return formatter;
+   }
+}
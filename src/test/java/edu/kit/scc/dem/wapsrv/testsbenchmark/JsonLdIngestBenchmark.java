@@ -0,0 +1,125 @@
+package edu.kit.scc.dem.wapsrv.testsbenchmark;
+
+import java.util.List;
+import io.specto.hoverfly.junit5.HoverflyExtension;
+import io.specto.hoverfly.junit5.api.HoverflySimulate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.exceptions.WapException;
+import edu.kit.scc.dem.wapsrv.model.formats.Format;
+import edu.kit.scc.dem.wapsrv.model.formats.FormatRegistry;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdFormatter;
+import edu.kit.scc.dem.wapsrv.model.formats.JsonLdProfileRegistry;
+import edu.kit.scc.dem.wapsrv.model.rdf.RdfBackend;
+import edu.kit.scc.dem.wapsrv.repository.jena.JenaRdfBackend;
+import edu.kit.scc.dem.wapsrv.testscommon.TestDataStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Do a Benchmark test on turning posted JSON-LD into RDF. The string pipeline expands the annotation, serializes the
+ * expanded form and lets the RDF backend parse it again. The tree pipeline converts the expanded form directly.
+ *
+ * @author Matthias Dressel
+ * @author Michael Hitzker
+ * @author Markus Hoefler
+ * @author Andreas Loeffler
+ * @author Timo Schmidt
+ * @version 1.1
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {WapServerConfig.class, JsonLdProfileRegistry.class, FormatRegistry.class,
+        JsonLdFormatter.class, JenaRdfBackend.class})
+@ExtendWith(HoverflyExtension.class)
+@HoverflySimulate(source = @HoverflySimulate.Source(value = "w3c_simulation.json", type = HoverflySimulate.SourceType.DEFAULT_PATH))
+@Tag("benchmark")
+@ActiveProfiles("test")
+public class JsonLdIngestBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonLdIngestBenchmark.class);
+
+    private static String[] annotations;
+    @Autowired
+    private JsonLdProfileRegistry registry;
+    @Autowired
+    private RdfBackend rdfBackend;
+    private long beforeTime;
+
+    /**
+     * Prepare class.
+     */
+    @BeforeAll
+    public static void prepareClass() {
+        annotations = TestDataStore.readAnnotations();
+    }
+
+    /**
+     * Prepare test.
+     */
+    @BeforeEach
+    public void prepareTest() {
+        logger.trace("---------------------------");
+        logger.trace("Begin Test :");
+        beforeTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Ingest via the serialized expanded form.
+     */
+    @Test
+    public void ingestStringTest() {
+        int runs = 10000 / annotations.length;
+        int converted = 0;
+        for (int n = 0; n < runs; n++) {
+            for (String jsonLd : annotations) {
+                try {
+                    rdfBackend.readFromString(registry.expandJsonLd(jsonLd), Format.JSON_LD);
+                    converted++;
+                } catch (WapException e) {
+                    // Not every example is valid JSON-LD
+                }
+            }
+        }
+        logger.trace("Ingested " + converted + " Annotations via strings");
+    }
+
+    /**
+     * Ingest via the expanded tree.
+     */
+    @Test
+    public void ingestTreeTest() {
+        int runs = 10000 / annotations.length;
+        int converted = 0;
+        for (int n = 0; n < runs; n++) {
+            for (String jsonLd : annotations) {
+                try {
+                    List<Object> expanded = registry.expandJsonLdTree(jsonLd);
+                    rdfBackend.readFromJsonLd(expanded);
+                    converted++;
+                } catch (WapException e) {
+                    // Not every example is valid JSON-LD
+                }
+            }
+        }
+        logger.trace("Ingested " + converted + " Annotations via the expanded tree");
+    }
+
+    /**
+     * Finish test.
+     */
+    @AfterEach
+    public void finishTest() {
+        logger.trace("End Test :");
+        logger.trace("Test duration : " + (System.currentTimeMillis() - beforeTime) + "ms");
+        logger.trace("---------------------------");
+    }
+}
@@ -0,0 +1,103 @@
+package edu.kit.scc.dem.wapsrv.testsbenchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import edu.kit.scc.dem.wapsrv.app.WapServerConfig;
+import edu.kit.scc.dem.wapsrv.exceptions.WapException;
+import edu.kit.scc.dem.wapsrv.model.validators.JsonLdValidator;
+import edu.kit.scc.dem.wapsrv.model.validators.NetworkntJsonLdValidator;
+import edu.kit.scc.dem.wapsrv.model.validators.Validator;
+import edu.kit.scc.dem.wapsrv.testscommon.TestDataStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Do a Benchmark test on the JSON-LD validation engines, using the delivered schemas and the test annotations
+ *
+ * @author Matthias Dressel
+ * @author Michael Hitzker
+ * @author Markus Hoefler
+ * @author Andreas Loeffler
+ * @author Timo Schmidt
+ * @version 1.1
+ */
+@Tag("benchmark")
+public class ValidationEngineBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationEngineBenchmark.class);
+
+    private static String[] annotations;
+    private long beforeTime;
+
+    /**
+     * Prepare class.
+     */
+    @BeforeAll
+    public static void prepareClass() {
+        annotations = TestDataStore.readAnnotations();
+    }
+
+    /**
+     * Prepare test.
+     */
+    @BeforeEach
+    public void prepareTest() {
+        logger.trace("---------------------------");
+        logger.trace("Begin Test :");
+        beforeTime = System.currentTimeMillis();
+    }
+
+    private static WapServerConfig createConfig() {
+        WapServerConfig config = mock(WapServerConfig.class);
+        when(config.getJsonLdValidatorSchemaFolder()).thenReturn("./schemas");
+        return config;
+    }
+
+    private static void validate(Validator validator) {
+        int runs = 1000 / annotations.length;
+        int valid = 0;
+        for (int n = 0; n < runs; n++) {
+            for (String jsonLd : annotations) {
+                try {
+                    validator.validateAnnotation(jsonLd);
+                    valid++;
+                } catch (WapException e) {
+                    // Not every example is a valid annotation
+                }
+            }
+        }
+        logger.trace("Validated " + annotations.length * runs + " Annotations with " + validator.getEngine() + ", "
+                + valid + " valid");
+    }
+
+    /**
+     * Validate with the json-schema-validator library.
+     */
+    @Test
+    public void libraryEngineTest() {
+        validate(new JsonLdValidator(createConfig()));
+    }
+
+    /**
+     * Validate with the networknt json-schema-validator library.
+     */
+    @Test
+    public void networkntEngineTest() {
+        validate(new NetworkntJsonLdValidator(createConfig()));
+    }
+
+    /**
+     * Finish test.
+     */
+    @AfterEach
+    public void finishTest() {
+        logger.trace("End Test :");
+        logger.trace("Test duration : " + (System.currentTimeMillis() - beforeTime) + "ms");
+        logger.trace("---------------------------");
+    }
+}